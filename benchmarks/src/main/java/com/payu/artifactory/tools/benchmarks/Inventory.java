@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Building blocks of synthetic repository inventories.
+ *
+ * <p>Items are spread over groups with skewed sizes, few large artifacts or images have most of the versions,
+ * like in real repositories.
+ */
+public final class Inventory {
+
+    /**
+     * Average number of items in one artifact or image.
+     */
+    public static final int ITEMS_PER_GROUP = 20;
+
+    private static final int TEAMS = 50;
+
+    private Inventory() {
+    }
+
+    /**
+     * Index of group for next item, lower indexes are more frequent.
+     */
+    public static int group(Random random, int groups) {
+        double r = random.nextDouble();
+        return (int) (groups * r * r);
+    }
+
+    public static int groups(int size) {
+        return Math.max(1, size / ITEMS_PER_GROUP);
+    }
+
+    /**
+     * Path of group, eg. {@code com/payu/team7/service-123}.
+     */
+    public static String groupPath(String prefix, int group) {
+        return prefix + "team" + group % TEAMS + "/service-" + group;
+    }
+
+    /**
+     * Maven like version, eg. {@code 2.14.3}.
+     */
+    public static String version(Random random) {
+        return random.nextInt(5) + "." + random.nextInt(30) + "." + random.nextInt(50);
+    }
+}
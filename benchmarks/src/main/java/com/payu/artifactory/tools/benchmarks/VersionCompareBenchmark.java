@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.payu.artifactory.tools.version.VersionKey;
+import com.payu.artifactory.tools.version.VersionKeyCache;
+
+/**
+ * Sorting and filtering of versions with {@link ComparableVersion} created on each comparison
+ * against {@link VersionKey} parsed once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class VersionCompareBenchmark {
+
+    private static final String[] QUALIFIERS = {"", "", "", "-SNAPSHOT", "-rc1", "-alpha-2", "-beta", ".Final"};
+
+    @Param("1000000")
+    private int size;
+
+    private List<String> versions;
+
+    private String newestRelease;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        versions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            versions.add(randomVersion(random));
+        }
+        newestRelease = "5.10.0";
+    }
+
+    static String randomVersion(Random random) {
+        return random.nextInt(10) + "." + random.nextInt(30) + "." + random.nextInt(100)
+                + QUALIFIERS[random.nextInt(QUALIFIERS.length)];
+    }
+
+    @Benchmark
+    public List<String> sortComparableVersion() {
+        List<String> result = new ArrayList<>(versions);
+        result.sort((a, b) -> new ComparableVersion(a).compareTo(new ComparableVersion(b)));
+        return result;
+    }
+
+    @Benchmark
+    public List<VersionKey> sortVersionKey() {
+        List<VersionKey> result = new ArrayList<>(versions.size());
+        versions.forEach(version -> result.add(VersionKey.parse(version)));
+        Collections.sort(result);
+        return result;
+    }
+
+    @Benchmark
+    public List<VersionKey> sortVersionKeyCache() {
+        VersionKeyCache cache = new VersionKeyCache();
+        List<VersionKey> result = new ArrayList<>(versions.size());
+        versions.forEach(version -> result.add(cache.get(version)));
+        Collections.sort(result);
+        return result;
+    }
+
+    @Benchmark
+    public List<String> filterComparableVersion() {
+        ComparableVersion release = new ComparableVersion(newestRelease);
+        return versions.stream()
+                .filter(version -> release.compareTo(new ComparableVersion(version)) > 0)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> filterVersionKeyCache() {
+        VersionKeyCache cache = new VersionKeyCache();
+        VersionKey release = cache.get(newestRelease);
+        return versions.stream()
+                .filter(version -> release.compareTo(cache.get(version)) > 0)
+                .collect(Collectors.toList());
+    }
+}
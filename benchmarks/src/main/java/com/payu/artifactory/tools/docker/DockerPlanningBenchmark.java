@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.docker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.payu.artifactory.tools.aql.ItemColumns;
+import com.payu.artifactory.tools.aql.PathTrie;
+import com.payu.artifactory.tools.benchmarks.Inventory;
+import com.payu.artifactory.tools.benchmarks.ItemCounter;
+import com.payu.artifactory.tools.inventory.InventoryReader;
+import com.payu.artifactory.tools.inventory.InventoryWriter;
+
+/**
+ * Grouping of docker tags, selecting the newest ones and filtering, as done by {@link DockerImagesCleaner},
+ * compared with the object based {@link ObjectTagPlanner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class DockerPlanningBenchmark {
+
+    private static final long START = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+    private static final long PERIOD = TimeUnit.DAYS.toMillis(3 * 365);
+    private static final int PREFIX_FILTERS = 200;
+    private static final int REGEX_FILTERS = 100;
+
+    @Param({"10000", "1000000", "10000000"})
+    private int size;
+
+    @Param("5")
+    private int tagsToKeep;
+
+    private List<AQLItem> items;
+
+    private FilterMatcher filters;
+
+    private InventoryReader inventory;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int groups = Inventory.groups(size);
+
+        items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            AQLItem item = new AQLItem();
+            item.setPath(Inventory.groupPath("", Inventory.group(random, groups)) + "/" + tag(random));
+            item.setModified(Instant.ofEpochMilli(START + (long) (random.nextDouble() * PERIOD))
+                    .atOffset(ZoneOffset.ofHours(2)).toString());
+            items.add(item);
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < PREFIX_FILTERS; i++) {
+            lines.add(Inventory.groupPath("", random.nextInt(groups)) + "/.*");
+        }
+        for (int i = 0; i < REGEX_FILTERS; i++) {
+            lines.add("team" + i + "/.*/release-" + i + "\\.\\d+");
+        }
+        filters = new FilterMatcher(lines);
+
+        InventoryWriter writer = new InventoryWriter();
+        items.forEach(item -> writer.add(item.getPath(), item.getVersion(), item.getCreated(), item.getModified(),
+                item.getSize()));
+        try {
+            Path file = Files.createTempFile("docker", ".inventory");
+            file.toFile().deleteOnExit();
+            writer.write(file);
+            inventory = InventoryReader.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String tag(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return Inventory.version(random);
+            case 1:
+                return "build-" + random.nextInt(10_000);
+            default:
+                return Integer.toHexString(random.nextInt());
+        }
+    }
+
+    @Benchmark
+    public Map<String, List<String>> findTagsToDelete(ItemCounter counter) {
+        counter.items += size;
+        return findTagsToDelete(items::forEach, tagsToKeep, filters);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> findTagsToDeleteWithObjects(ItemCounter counter) {
+        counter.items += size;
+        return ObjectTagPlanner.findTagsToDelete(items::forEach, tagsToKeep, filters);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> findTagsToDeleteFromInventory(ItemCounter counter) {
+        counter.items += size;
+        return findTagsToDelete(consumer -> {
+            for (int row = 0; row < inventory.size(); row++) {
+                consumer.accept(item(row));
+            }
+        }, tagsToKeep, filters);
+    }
+
+    /**
+     * Group all tags by image into columns and select tags of each image by {@link DockerImagesCleaner}.
+     */
+    private static Map<String, List<String>> findTagsToDelete(
+            Consumer<Consumer<AQLItem>> items, int tagsToKeep, FilterMatcher filters
+    ) {
+        PathTrie paths = new PathTrie();
+        ItemColumns tags = new ItemColumns(paths);
+        items.accept(item -> {
+            item.intern(paths);
+            tags.add(item);
+        });
+
+        Map<String, List<String>> result = new HashMap<>();
+        tags.groupByPath().forEach(imageTags -> {
+            List<String> toDelete =
+                    DockerImagesCleaner.selectTagsToDelete(imageTags.getPath(), imageTags, tagsToKeep, filters);
+            if (!toDelete.isEmpty()) {
+                result.put(imageTags.getPath(), toDelete);
+            }
+        });
+        return result;
+    }
+
+    private AQLItem item(int row) {
+        AQLItem item = new AQLItem();
+        item.set(inventory.getGroup(row), inventory.getVersion(row), inventory.getCreated(row),
+                inventory.getModified(row), inventory.getSize(row));
+        return item;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.docker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.payu.artifactory.tools.aql.PathGroups;
+import com.payu.artifactory.tools.aql.PathTrie;
+
+/**
+ * Baseline of tag selection of {@link DockerImagesCleaner}, which kept item objects of each image in a bounded heap.
+ */
+final class ObjectTagPlanner {
+
+    private static final Comparator<AQLItem> OLDEST_FIRST =
+            Comparator.comparingLong(AQLItem::getModified).thenComparing(AQLItem::getVersion);
+
+    private ObjectTagPlanner() {
+    }
+
+    static Map<String, List<String>> findTagsToDelete(
+            Consumer<Consumer<AQLItem>> items, int tagsToKeep, FilterMatcher filters
+    ) {
+        PathTrie paths = new PathTrie();
+        PathGroups<Selection> pv = new PathGroups<>(paths);
+        items.accept(item -> {
+            item.intern(paths);
+            pv.computeIfAbsent(item, () -> new Selection(tagsToKeep)).add(item);
+        });
+
+        Map<String, List<String>> result = new HashMap<>();
+        pv.forEach((image, tags) -> {
+            List<String> toDelete = new ArrayList<>();
+            Predicate<String> isFiltered = filters.forImage(image);
+            tags.older.forEach(item -> {
+                if (!isFiltered.test(item.getVersion())) {
+                    toDelete.add(item.getVersion());
+                }
+            });
+            if (!toDelete.isEmpty()) {
+                result.put(image, toDelete);
+            }
+        });
+        return result;
+    }
+
+    private static final class Selection {
+        private final int tagsToKeep;
+        private final PriorityQueue<AQLItem> newest;
+        private final List<AQLItem> older = new ArrayList<>();
+
+        private Selection(int tagsToKeep) {
+            this.tagsToKeep = tagsToKeep;
+            this.newest = new PriorityQueue<>(tagsToKeep + 1, OLDEST_FIRST);
+        }
+
+        private void add(AQLItem item) {
+            newest.add(item);
+            if (newest.size() > tagsToKeep) {
+                older.add(newest.poll());
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.releases;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Baseline of {@link VersionSelector#findVersionsToDelete}, which deduplicated and sorted item objects.
+ */
+final class ObjectVersionPlanner {
+
+    private ObjectVersionPlanner() {
+    }
+
+    static List<AQLItemRootVersion> findVersionsToDelete(
+            Consumer<Consumer<AQLItemRootVersion>> versions, int minRemain, Date minData
+    ) {
+        Set<AQLItemRootVersion> found = new HashSet<>();
+        versions.accept(found::add);
+        List<AQLItemRootVersion> items = found.stream().sorted().collect(Collectors.toList());
+
+        for (int i = 0; i < minRemain && !items.isEmpty(); i++) {
+            items.remove(items.size() - 1);
+        }
+
+        items.removeIf(item -> minData.before(item.getCreated()));
+        return items;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.releases;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.payu.artifactory.tools.benchmarks.Inventory;
+import com.payu.artifactory.tools.benchmarks.ItemCounter;
+
+/**
+ * Sorting of released versions and selecting the old ones, as done by {@link VersionSelector},
+ * compared with the object based {@link ObjectVersionPlanner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class ReleasesPlanningBenchmark {
+
+    private static final long PERIOD = TimeUnit.DAYS.toMillis(3 * 365);
+
+    @Param({"10000", "1000000", "10000000"})
+    private int size;
+
+    private List<AQLItemRootVersion> items;
+
+    private Date minDate;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int groups = Inventory.groups(size);
+        long now = System.currentTimeMillis();
+
+        items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            AQLItemRootVersion item = new AQLItemRootVersion();
+            item.setPath(Inventory.groupPath("com/payu/", Inventory.group(random, groups)) + "/module/"
+                    + Inventory.version(random));
+            item.setCreated(new Date(now - (long) (random.nextDouble() * PERIOD)));
+            items.add(item);
+        }
+
+        minDate = new Date(now - TimeUnit.DAYS.toMillis(365));
+    }
+
+    @Benchmark
+    public List<AQLItemRootVersion> findVersionsToDelete(ItemCounter counter) {
+        counter.items += size;
+        return VersionSelector.findVersionsToDelete(items::forEach, 3, minDate);
+    }
+
+    @Benchmark
+    public List<AQLItemRootVersion> findVersionsToDeleteWithObjects(ItemCounter counter) {
+        counter.items += size;
+        return ObjectVersionPlanner.findVersionsToDelete(items::forEach, 3, minDate);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.snapshot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.payu.artifactory.tools.benchmarks.Inventory;
+import com.payu.artifactory.tools.benchmarks.ItemCounter;
+import com.payu.artifactory.tools.delete.PlannedDelete;
+import com.payu.artifactory.tools.pipeline.CleanerPipeline;
+import com.payu.artifactory.tools.version.VersionKeyCache;
+
+/**
+ * Planning of snapshot groups by {@link CleanerPipeline} with growing number of planning threads.
+ *
+ * <p>Groups are collected once, deletes are completed right away, so the score is bound by planning only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class PipelinePlanningBenchmark {
+
+    private static final CompletableFuture<Void> DELETED = CompletableFuture.completedFuture(null);
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    private int parallelism;
+
+    private Map<String, SnapshotGroup> groups;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int groupCount = Inventory.groups(size);
+        VersionKeyCache versionKeys = new VersionKeyCache();
+
+        groups = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String version = Inventory.version(random);
+            if (random.nextInt(10) < 3) {
+                version += "-SNAPSHOT";
+            }
+            groups.computeIfAbsent(Inventory.groupPath("com/payu/", Inventory.group(random, groupCount)),
+                    k -> new SnapshotGroup(versionKeys)).add(version);
+        }
+    }
+
+    @Benchmark
+    public int planGroups(ItemCounter counter) {
+        counter.items += size;
+        try (CleanerPipeline<SnapshotGroup> pipeline = new CleanerPipeline<>("benchmark", "repo",
+                (repo, path) -> DELETED, CleanerPipeline.DEFAULT_PENDING_DELETES, parallelism,
+                PipelinePlanningBenchmark::plan)) {
+            // groups are planned again by each invocation, so they are not removed by planAll
+            groups.forEach(pipeline::plan);
+            pipeline.finish();
+            return pipeline.getSubmitted();
+        }
+    }
+
+    private static List<PlannedDelete> plan(String path, SnapshotGroup group) {
+        return group.getSnapshotsToDelete().stream()
+                .map(version -> PlannedDelete.of(path + "/" + version))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.snapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.payu.artifactory.tools.aql.PathGroups;
+import com.payu.artifactory.tools.aql.PathTrie;
+import com.payu.artifactory.tools.benchmarks.Inventory;
+import com.payu.artifactory.tools.benchmarks.ItemCounter;
+import com.payu.artifactory.tools.version.VersionKeyCache;
+
+/**
+ * Grouping of maven items and selecting snapshots to delete, as done by {@link SnapshotCleaner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class SnapshotPlanningBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int size;
+
+    private List<AQLItem> items;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int groups = Inventory.groups(size);
+
+        items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String version = Inventory.version(random);
+            if (random.nextInt(10) < 3) {
+                version += "-SNAPSHOT";
+            }
+
+            AQLItem item = new AQLItem();
+            item.setPath(Inventory.groupPath("com/payu/", Inventory.group(random, groups)) + "/" + version);
+            items.add(item);
+        }
+    }
+
+    @Benchmark
+    public Map<String, List<String>> findSnapshotsToDelete(ItemCounter counter) {
+        counter.items += size;
+        return findSnapshotsToDelete(items::forEach);
+    }
+
+    /**
+     * Group all items by artifact as {@link SnapshotCleaner} does and select snapshots of each artifact.
+     */
+    private static Map<String, List<String>> findSnapshotsToDelete(Consumer<Consumer<AQLItem>> items) {
+        VersionKeyCache versionKeys = new VersionKeyCache();
+        PathTrie paths = new PathTrie();
+        PathGroups<SnapshotGroup> pv = new PathGroups<>(paths);
+        items.accept(item -> {
+            item.intern(paths);
+            pv.computeIfAbsent(item, () -> new SnapshotGroup(versionKeys)).add(item.getVersion());
+        });
+
+        Map<String, List<String>> result = new HashMap<>();
+        pv.forEach((path, group) -> {
+            List<String> snapshots = group.getSnapshotsToDelete();
+            if (!snapshots.isEmpty()) {
+                result.put(path, snapshots);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.transport;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncResponseProducer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+
+/**
+ * Local non-blocking stub of Artifactory answering AQL queries and deletes after fixed latency.
+ *
+ * <p>Server speaks either HTTP/1.1 or HTTP/2 with prior knowledge, latency doesn't hold any thread.
+ */
+class StubArtifactory implements AutoCloseable {
+
+    private static final String AQL_RESPONSE = "{\"results\":[{\"repo\":\"repo-local\",\"path\":\"com/example\","
+            + "\"name\":\"app-1.0.jar\",\"modified\":\"2019-01-01T00:00:00.000Z\"}],\"range\":{\"total\":1}}";
+
+    private final long latencyMillis;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final HttpAsyncServer server;
+    private final int port;
+
+    StubArtifactory(long latencyMillis, boolean http2) throws InterruptedException, ExecutionException {
+        this.latencyMillis = latencyMillis;
+
+        server = H2ServerBootstrap.bootstrap()
+                .setVersionPolicy(http2 ? HttpVersionPolicy.FORCE_HTTP_2 : HttpVersionPolicy.FORCE_HTTP_1)
+                .register("*", new Handler())
+                .create();
+        server.start();
+        port = ((InetSocketAddress) server
+                .listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), URIScheme.HTTP)
+                .get().getAddress()).getPort();
+    }
+
+    String getUrl() {
+        return "http://localhost:" + port + "/artifactory";
+    }
+
+    @Override
+    public void close() {
+        server.close(CloseMode.IMMEDIATE);
+        timer.shutdownNow();
+    }
+
+    private final class Handler implements AsyncServerRequestHandler<Message<HttpRequest, String>> {
+
+        @Override
+        public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(
+                HttpRequest request, EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(entityDetails == null ? null : new StringAsyncEntityConsumer());
+        }
+
+        @Override
+        public void handle(Message<HttpRequest, String> message, ResponseTrigger trigger, HttpContext context) {
+            AsyncResponseProducer response = "POST".equals(message.getHead().getMethod())
+                    ? AsyncResponseBuilder.create(200).setEntity(AQL_RESPONSE, ContentType.APPLICATION_JSON).build()
+                    : AsyncResponseBuilder.create(204).build();
+
+            timer.schedule(() -> {
+                try {
+                    trigger.submitResponse(response, context);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, latencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
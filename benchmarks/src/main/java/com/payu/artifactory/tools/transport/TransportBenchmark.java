@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.jfrog.artifactory.client.ArtifactoryClientBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bursts of concurrent AQL queries and deletes sent to local stub of Artifactory by blocking client
+ * and by non-blocking HTTP/2 transport, score is number of requests per second.
+ *
+ * <p>Blocking client needs a thread for each request in flight, HTTP/2 transport sends all of them
+ * from the calling thread. Peak number of threads is reported by
+ * {@code -prof com.payu.artifactory.tools.benchmarks.PeakThreadsProfiler}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class TransportBenchmark {
+
+    private static final int REQUESTS = 256;
+
+    @Param({"client", "http2"})
+    private String transport;
+
+    @Param("10")
+    private long latencyMillis;
+
+    private StubArtifactory server;
+    private ArtifactoryTransport artifactory;
+    private ExecutorService callers;
+
+    @Setup
+    public void setUp() throws Exception {
+        boolean http2 = "http2".equals(transport);
+        server = new StubArtifactory(latencyMillis, http2);
+
+        if (http2) {
+            artifactory = new AsyncTransport(server.getUrl(), "user", "password", REQUESTS);
+        } else {
+            artifactory = new ClientTransport(ArtifactoryClientBuilder.create()
+                    .setUrl(server.getUrl())
+                    .setUsername("user")
+                    .setPassword("password")
+                    .build());
+            callers = Executors.newFixedThreadPool(REQUESTS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (callers != null) {
+            callers.shutdownNow();
+        }
+        if (artifactory instanceof AsyncTransport) {
+            ((AsyncTransport) artifactory).close();
+        }
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public int delete() throws IOException {
+        return burst(t -> t.delete("repo-local", "com/example/app/" + System.nanoTime()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public int aql() throws IOException {
+        return burst(t -> t.aql("items.find({\"repo\":\"repo-local\"})").thenApply(TransportBenchmark::close));
+    }
+
+    private <T> int burst(Function<ArtifactoryTransport, CompletableFuture<T>> request) throws IOException {
+        List<CompletableFuture<T>> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(send(request));
+        }
+
+        int done = 0;
+        for (CompletableFuture<T> future : requests) {
+            ArtifactoryTransport.await(future);
+            done++;
+        }
+        return done;
+    }
+
+    private <T> CompletableFuture<T> send(Function<ArtifactoryTransport, CompletableFuture<T>> request) {
+        return callers == null
+                ? request.apply(artifactory)
+                : CompletableFuture.supplyAsync(() -> request.apply(artifactory), callers).thenCompose(f -> f);
+    }
+
+    private static InputStream close(InputStream response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+}
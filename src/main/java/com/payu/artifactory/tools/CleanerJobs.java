@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.docker.DockerImagesCleaner;
+import com.payu.artifactory.tools.incremental.WatermarkStore;
+import com.payu.artifactory.tools.inventory.InventoryStore;
+import com.payu.artifactory.tools.metrics.JobMetrics;
+import com.payu.artifactory.tools.metrics.Metrics;
+import com.payu.artifactory.tools.releases.ReleasesCleaner;
+import com.payu.artifactory.tools.snapshot.SnapshotCleaner;
+
+import io.github.resilience4j.retry.Retry;
+import lombok.Value;
+
+/**
+ * Cleaner jobs of one run, sharing clients, deleters, stores and metrics of the run.
+ */
+@Value
+class CleanerJobs {
+
+    private final Config config;
+    private final Map<String, CleanerMain.Client> clients;
+    private final CleanerMain.DeleterFactory deleters;
+    private final WatermarkStore watermarks;
+    private final InventoryStore inventories;
+    private final Metrics metrics;
+
+    /**
+     * Add job for each configured repository, jobs of releases only when release client is configured.
+     */
+    void addTo(JobScheduler scheduler) {
+        config.getSnapshotRepo().ifPresent(
+                snapshotRepo -> config.getReleaseRepo().ifPresent(
+                        releaseRepo -> scheduler.add("snapshot:" + snapshotRepo, config.getDeadlineBudget("snapshot"),
+                                jobDeadline -> cleanSnapshots(snapshotRepo, releaseRepo, jobDeadline))));
+
+        config.getDockerRepository().ifPresent(
+                repo -> scheduler.add("docker:" + repo, config.getDeadlineBudget("docker"),
+                        jobDeadline -> cleanDockerImages(repo, jobDeadline)));
+
+        if (clients.containsKey(CleanerMain.RELEASE_CLIENT)) {
+            config.getReleaseCleanConfigs()
+                    .orElseGet(Collections::emptyList)
+                    .forEach(relConfig -> scheduler.add("release:" + relConfig, config.getDeadlineBudget("release"),
+                            jobDeadline -> cleanReleases(relConfig, jobDeadline)));
+        }
+    }
+
+    private void cleanSnapshots(String snapshotRepo, String releaseRepo, Deadline jobDeadline) {
+        CleanerMain.Client client = clients.get(CleanerMain.DEFAULT_CLIENT);
+        JobMetrics jobMetrics = metrics.job("snapshot", snapshotRepo);
+        Retry retry = jobMetrics.watch(config.getRetryPolicy().newRetry("snapshot:" + snapshotRepo, jobDeadline));
+        SnapshotCleaner cleaner = new SnapshotCleaner(
+                client.getArtifactory(),
+                retry,
+                deleters.create(CleanerMain.DEFAULT_CLIENT, retry, jobMetrics, jobDeadline),
+                config.getAqlPageSize(),
+                snapshotRepo,
+                releaseRepo
+        );
+        cleaner.setWatermarks(watermarks);
+        cleaner.setInventories(inventories);
+        cleaner.setMetrics(jobMetrics);
+        cleaner.setTransport(client.getTransport());
+        cleaner.setPendingDeletes(config.getDeletePending());
+        cleaner.setPlanningParallelism(config.getPlanningParallelism());
+        cleaner.setCoalesceDeletes(config.isDeleteCoalesce());
+        cleaner.setDeleteOrder(config.getDeleteOrder());
+        cleaner.setDeadline(jobDeadline);
+        cleaner.execute();
+    }
+
+    private void cleanDockerImages(String repo, Deadline jobDeadline) {
+        CleanerMain.Client client = clients.get(CleanerMain.DEFAULT_CLIENT);
+        JobMetrics jobMetrics = metrics.job("docker", repo);
+        Retry retry = jobMetrics.watch(config.getRetryPolicy().newRetry("docker:" + repo, jobDeadline));
+        DockerImagesCleaner cleaner = new DockerImagesCleaner(
+                client.getArtifactory(),
+                retry,
+                deleters.create(CleanerMain.DEFAULT_CLIENT, retry, jobMetrics, jobDeadline),
+                config.getAqlPageSize(),
+                repo,
+                config.getDockerTagsToKeep(),
+                config.getDockerFilterFile().orElse(null)
+        );
+        cleaner.setWatermarks(watermarks);
+        cleaner.setInventories(inventories);
+        cleaner.setMetrics(jobMetrics);
+        cleaner.setTransport(client.getTransport());
+        cleaner.setPendingDeletes(config.getDeletePending());
+        cleaner.setPlanningParallelism(config.getPlanningParallelism());
+        cleaner.setDeleteOrder(config.getDeleteOrder());
+        cleaner.setDeadline(jobDeadline);
+        cleaner.execute();
+    }
+
+    private void cleanReleases(String relConfig, Deadline jobDeadline) {
+        CleanerMain.Client client = clients.get(CleanerMain.RELEASE_CLIENT);
+        JobMetrics jobMetrics = metrics.job("release", relConfig.split(":")[0]);
+        Retry retry = jobMetrics.watch(config.getRetryPolicy().newRetry("release:" + relConfig, jobDeadline));
+        ReleasesCleaner cleaner = new ReleasesCleaner(client.getArtifactory(), retry,
+                deleters.create(CleanerMain.RELEASE_CLIENT, retry, jobMetrics, jobDeadline), config.getAqlPageSize(),
+                relConfig);
+        cleaner.setWatermarks(watermarks);
+        cleaner.setInventories(inventories);
+        cleaner.setMetrics(jobMetrics);
+        cleaner.setTransport(client.getTransport());
+        cleaner.setCoalesceDeletes(config.isDeleteCoalesce());
+        cleaner.setDeleteOrder(config.getDeleteOrder());
+        cleaner.setDeadline(jobDeadline);
+        cleaner.execute();
+    }
+}
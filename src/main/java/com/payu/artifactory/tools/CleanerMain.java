@@ -17,26 +17,56 @@
 
 package com.payu.artifactory.tools;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.jfrog.artifactory.client.Artifactory;
 import org.jfrog.artifactory.client.ArtifactoryClientBuilder;
 import org.jfrog.artifactory.client.model.Version;
 
-import com.payu.artifactory.tools.docker.DockerImagesCleaner;
-import com.payu.artifactory.tools.releases.ReleasesCleaner;
-import com.payu.artifactory.tools.snapshot.SnapshotCleaner;
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.delete.ArtifactoryDeleter;
+import com.payu.artifactory.tools.delete.ConcurrencyLimiter;
+import com.payu.artifactory.tools.delete.DeleteExecutor;
+import com.payu.artifactory.tools.delete.DeleteJournal;
+import com.payu.artifactory.tools.delete.Deleter;
+import com.payu.artifactory.tools.delete.JournalingDeleter;
+import com.payu.artifactory.tools.incremental.WatermarkStore;
+import com.payu.artifactory.tools.inventory.InventoryStore;
+import com.payu.artifactory.tools.metrics.JobMetrics;
+import com.payu.artifactory.tools.metrics.Metrics;
+import com.payu.artifactory.tools.plan.PlanApplier;
+import com.payu.artifactory.tools.plan.PlanWriter;
+import com.payu.artifactory.tools.transport.ArtifactoryTransport;
+import com.payu.artifactory.tools.transport.AsyncTransport;
+import com.payu.artifactory.tools.transport.ClientTransport;
 
 import io.github.resilience4j.retry.Retry;
 import io.vavr.control.Try;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public final class CleanerMain {
 
+    /**
+     * Name of Artifactory client with main credentials.
+     */
+    static final String DEFAULT_CLIENT = "default";
+
+    /**
+     * Name of Artifactory client with credentials for released components.
+     */
+    static final String RELEASE_CLIENT = "release";
+
     private CleanerMain() {
     }
 
@@ -52,53 +82,195 @@ public final class CleanerMain {
         Version v = artifactory.system().version();
         LOGGER.info("Artifactory version: {}, rev: {}, addons: {}", v.getVersion(), v.getRevision(), v.getAddons());
 
-        Retry retry = config.getRetry();
-
-        List<Try<Void>> jobs = new ArrayList<>();
-
-        jobs.add(Try.run(
-                () -> config.getSnapshotRepo().ifPresent(
-                        snapshotRepo -> config.getReleaseRepo().ifPresent(
-                                releaseRepo -> new SnapshotCleaner(
-                                        artifactory,
-                                        retry,
-                                        snapshotRepo,
-                                        releaseRepo
-                                ).execute()
-                        )
-                )
-        ).onFailure(e -> LOGGER.error("", e)));
-
-        jobs.add(Try.run(
-                () -> config.getDockerRepository().ifPresent(
-                        repo -> new DockerImagesCleaner(
-                                artifactory,
-                                retry,
-                                repo,
-                                config.getDockerTagsToKeep(),
-                                config.getDockerFilterFile().orElse(null)
-                        ).execute()
-                )
-        ).onFailure(e -> LOGGER.error("", e)));
-
         Optional<String> releaseUser = config.getReleaseUser();
         Optional<String> releasePassword = config.getReleasePassword();
 
+        Map<String, Client> clients = new HashMap<>();
+        clients.put(DEFAULT_CLIENT, newClient(config, artifactory, config.getUser(), config.getPassword()));
+
         if (releaseUser.isPresent() && releasePassword.isPresent()) {
-            Artifactory artifactoryRelease = ArtifactoryClientBuilder.create()
+            clients.put(RELEASE_CLIENT, newClient(config, ArtifactoryClientBuilder.create()
                     .setUrl(config.getArtifactoryURL())
                     .setUsername(releaseUser.get())
                     .setPassword(releasePassword.get())
-                    .build();
+                    .build(), releaseUser.get(), releasePassword.get()));
+        }
+
+        RunMode mode = config.getMode();
+        LOGGER.info("Running in {} mode", mode);
+
+        Deadline deadline = config.getDeadline();
+        Metrics metrics = new Metrics();
+        try (Closeable server = serveMetrics(config, metrics);
+             Closeable transports = () -> closeTransports(clients.values())) {
+            if (mode == RunMode.APPLY) {
+                apply(config, clients, deadline, metrics);
+            } else {
+                clean(config, clients, mode == RunMode.PLAN, deadline, metrics);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            config.getMetricsFile().ifPresent(metrics::writeTextFile);
+        }
+    }
+
+    private static Closeable serveMetrics(Config config, Metrics metrics) throws IOException {
+        Optional<Integer> port = config.getMetricsPort();
+        return port.isPresent() ? metrics.serve(port.get()) : () -> { };
+    }
+
+    private static Client newClient(Config config, Artifactory artifactory, String user, String password) {
+        ArtifactoryTransport transport = config.getTransport() == TransportType.HTTP2
+                ? new AsyncTransport(config.getArtifactoryURL(), user, password, config.getTransportStreams())
+                : new ClientTransport(artifactory);
+        return new Client(artifactory, transport);
+    }
+
+    private static void closeTransports(Collection<Client> clients) throws IOException {
+        for (Client client : clients) {
+            if (client.getTransport() instanceof Closeable) {
+                ((Closeable) client.getTransport()).close();
+            }
+        }
+    }
+
+    private void apply(Config config, Map<String, Client> clients, Deadline deadline, Metrics metrics) {
+        // repository of each delete is known only from plan, so metrics are split by repository in deleter
+        JobMetrics jobMetrics = metrics.job("apply", "all");
+        Retry retry = jobMetrics.watch(config.getRetryPolicy().newRetry("apply", deadline));
+
+        try (DeleteJournal journal = openJournal(config);
+             DeleteExecutor deleteExecutor = newDeleteExecutor(config, metrics);
+             ShutdownHook shutdownHook = new ShutdownHook(deleteExecutor, journal)) {
+
+            Map<String, Deleter> deleters = new HashMap<>();
+            clients.forEach((name, client) ->
+                    deleters.put(name, journaled(
+                            new ArtifactoryDeleter(client.getTransport(), retry, deleteExecutor, jobMetrics, deadline),
+                            journal)));
+
+            new PlanApplier(deleters).apply(config.getPlanFile());
+            finishJournal(journal);
+        }
+    }
+
+    private void clean(Config config, Map<String, Client> clients, boolean planOnly, Deadline deadline,
+            Metrics metrics) {
+        WatermarkStore watermarks = config.isIncremental() ? new WatermarkStore(config.getWatermarkFile()) : null;
+        InventoryStore inventories = config.getInventoryDir()
+                .map(dir -> new InventoryStore(dir, !planOnly, TimeUnit.DAYS.toMillis(config.getInventoryReconcileDays())))
+                .orElse(null);
+
+        List<JobScheduler.JobResult> results;
+
+        try (DeleteJournal journal = planOnly ? null : openJournal(config);
+             DeleteExecutor deleteExecutor = newDeleteExecutor(config, metrics);
+             ShutdownHook shutdownHook = new ShutdownHook(deleteExecutor, journal);
+             PlanWriter planWriter = planOnly ? new PlanWriter(config.getPlanFile()) : null) {
+
+            DeleterFactory deleters = (client, retry, jobMetrics, jobDeadline) -> planOnly
+                    ? planWriter.forClient(client)
+                    : journaled(new ArtifactoryDeleter(clients.get(client).getTransport(), retry, deleteExecutor,
+                            jobMetrics, jobDeadline), journal);
+
+            JobScheduler scheduler = new JobScheduler(config.getJobsParallelism(), deadline);
 
-            config.getReleaseCleanConfigs()
-                    .orElseGet(Collections::emptyList).stream()
-                    .map(relConfig -> new ReleasesCleaner(artifactoryRelease, retry, relConfig))
-                    .map(cleaner -> Try.run(cleaner::execute).onFailure(e -> LOGGER.error("", e)))
-                    .forEach(jobs::add);
+            new CleanerJobs(config, clients, deleters, watermarks, inventories, metrics).addTo(scheduler);
+
+            results = scheduler.runAll();
+
+            saveWatermarks(watermarks, planOnly);
+
+            if (results.stream().allMatch(JobScheduler.JobResult::isSuccess)) {
+                finishJournal(journal);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        reportFailures(results);
+    }
+
+    private static void saveWatermarks(WatermarkStore watermarks, boolean planOnly) {
+        // nothing was deleted by plan, so the next run must see the same changes again
+        if (watermarks != null && !planOnly) {
+            watermarks.save();
         }
+    }
+
+    /**
+     * Jobs stopped by deadline are not failures, their work is left for the next run.
+     */
+    private static void reportFailures(List<JobScheduler.JobResult> results) {
+        String timedOut = results.stream()
+                .filter(JobScheduler.JobResult::isTimedOut)
+                .map(JobScheduler.JobResult::getName)
+                .collect(Collectors.joining(", "));
+        if (!timedOut.isEmpty()) {
+            LOGGER.warn("Jobs stopped by deadline, the rest is left for the next run: {}", timedOut);
+        }
+
+        List<JobScheduler.JobResult> failed = results.stream()
+                .filter(r -> !r.isSuccess() && !r.isTimedOut())
+                .collect(Collectors.toList());
+
+        if (!failed.isEmpty()) {
+            IllegalStateException e = new IllegalStateException(failed.size() + " of " + results.size() + " jobs failed: "
+                    + failed.stream().map(JobScheduler.JobResult::getName).collect(Collectors.joining(", ")));
+            failed.forEach(r -> r.getFailure().ifPresent(e::addSuppressed));
+            throw e;
+        }
+    }
+
+    private static DeleteExecutor newDeleteExecutor(Config config, Metrics metrics) {
+        ConcurrencyLimiter limiter = config.isDeleteAdaptive()
+                ? new ConcurrencyLimiter(config.getDeleteMinWorkers(), config.getDeleteWorkers())
+                : ConcurrencyLimiter.fixed(config.getDeleteWorkers());
+        metrics.deleteConcurrency(limiter::getLimit);
+        return new DeleteExecutor(limiter);
+    }
+
+    private static DeleteJournal openJournal(Config config) {
+        return config.getJournalFile()
+                .map(file -> Try.of(() -> new DeleteJournal(file)).get())
+                .orElse(null);
+    }
+
+    private static Deleter journaled(Deleter deleter, DeleteJournal journal) {
+        return journal == null ? deleter : new JournalingDeleter(deleter, journal);
+    }
+
+    /**
+     * Remove journal when all deletes succeeded, otherwise keep it for the next run.
+     */
+    private static void finishJournal(DeleteJournal journal) {
+        if (journal == null) {
+            return;
+        }
+
+        if (journal.getFailed() == 0) {
+            journal.discard();
+        } else {
+            LOGGER.warn("{} deletes failed, journal is kept for the next run", journal.getFailed());
+        }
+    }
+
+    /**
+     * Deleter of one job, sharing retry and metrics of the job.
+     */
+    @FunctionalInterface
+    interface DeleterFactory {
+        Deleter create(String client, Retry retry, JobMetrics metrics, Deadline deadline);
+    }
 
-        Try.sequence(jobs).get();
+    /**
+     * Artifactory client with transport used for its credentials.
+     */
+    @Value
+    static class Client {
+        private final Artifactory artifactory;
+        private final ArtifactoryTransport transport;
     }
 
     public static void main(String[] args) {
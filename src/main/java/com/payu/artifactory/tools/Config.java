@@ -17,8 +17,12 @@
 
 package com.payu.artifactory.tools;
 
-import io.github.resilience4j.retry.Retry;
-import io.github.resilience4j.retry.RetryConfig;
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.delete.DeleteOrder;
+import com.payu.artifactory.tools.pipeline.CleanerPipeline;
+import com.payu.artifactory.tools.retry.CircuitBreaker;
+import com.payu.artifactory.tools.retry.RetryPolicy;
+
 import io.vavr.control.Try;
 import lombok.extern.slf4j.Slf4j;
 
@@ -26,9 +30,12 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Properties;
 
@@ -129,19 +136,125 @@ public class Config {
         return getProperty("artifactory.retry.sleep").map(Integer::valueOf);
     }
 
-    public Retry getRetry() {
+    public int getDeleteWorkers() {
+        return getProperty("artifactory.delete.workers").map(Integer::valueOf).orElse(4);
+    }
+
+    public boolean isDeleteAdaptive() {
+        return getProperty("artifactory.delete.adaptive").map(Boolean::valueOf).orElse(false);
+    }
 
-        RetryConfig retryConfig = RetryConfig.custom()
-                .maxAttempts(getRetryCount().orElse(12))
-                .waitDuration(Duration.ofSeconds(getRetrySleep().orElse(15)))
-                .build();
+    public int getDeleteMinWorkers() {
+        return getProperty("artifactory.delete.workers.min").map(Integer::valueOf).orElse(1);
+    }
 
-        Retry retry = Retry.of("id", retryConfig);
+    public int getDeletePending() {
+        return getProperty("artifactory.delete.pending").map(Integer::valueOf)
+                .orElse(CleanerPipeline.DEFAULT_PENDING_DELETES);
+    }
 
-        retry.getEventPublisher()
-                .onRetry(e -> LOGGER.warn("Retry attempt: #" + e.getNumberOfRetryAttempts(), e.getLastThrowable()));
+    public boolean isDeleteCoalesce() {
+        return getProperty("artifactory.delete.coalesce").map(Boolean::valueOf).orElse(false);
+    }
+
+    public DeleteOrder getDeleteOrder() {
+        return getProperty("artifactory.delete.order").map(t -> DeleteOrder.valueOf(t.toUpperCase(Locale.ROOT)))
+                .orElse(DeleteOrder.VERSION);
+    }
+
+    public int getPlanningParallelism() {
+        return getProperty("artifactory.planning.parallelism").map(Integer::valueOf)
+                .orElse(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Deadline of run started now, never reached when run time is not limited.
+     *
+     * @return deadline of run
+     */
+    public Deadline getDeadline() {
+        Duration grace = Duration.ofMinutes(
+                getProperty("artifactory.deadline.grace.minutes").map(Long::valueOf).orElse(5L));
+        return getProperty("artifactory.deadline.minutes")
+                .map(minutes -> Deadline.after(Duration.ofMinutes(Long.parseLong(minutes)), grace))
+                .orElse(Deadline.NONE);
+    }
+
+    /**
+     * Percent of run time one job of cleaner may use.
+     *
+     * @param cleaner {@code docker}, {@code snapshot} or {@code release}
+     * @return percent of run time, 100 when budget of cleaner is not configured
+     */
+    public int getDeadlineBudget(String cleaner) {
+        return getProperty("artifactory.deadline.budget." + cleaner).map(Integer::valueOf).orElse(100);
+    }
+
+    public int getJobsParallelism() {
+        return getProperty("artifactory.jobs.parallelism").map(Integer::valueOf).orElse(4);
+    }
+
+    public int getAqlPageSize() {
+        return getProperty("artifactory.aql.page.size").map(Integer::valueOf).orElse(10000);
+    }
+
+    public RunMode getMode() {
+        return getProperty("artifactory.mode").map(m -> RunMode.valueOf(m.toUpperCase(Locale.ROOT))).orElse(RunMode.RUN);
+    }
+
+    public TransportType getTransport() {
+        return getProperty("artifactory.transport")
+                .map(t -> TransportType.valueOf(t.toUpperCase(Locale.ROOT)))
+                .orElse(TransportType.CLIENT);
+    }
+
+    public int getTransportStreams() {
+        return getProperty("artifactory.transport.streams").map(Integer::valueOf).orElse(256);
+    }
+
+    public Path getPlanFile() {
+        return Paths.get(getProperty("artifactory.plan.file").orElse("artifactory-cleaner.plan"));
+    }
+
+    public Optional<Path> getJournalFile() {
+        return getProperty("artifactory.journal.file").map(Paths::get);
+    }
+
+    public boolean isIncremental() {
+        return getProperty("artifactory.incremental").map(Boolean::valueOf).orElse(false);
+    }
+
+    public Path getWatermarkFile() {
+        return Paths.get(getProperty("artifactory.watermark.file").orElse("artifactory-cleaner.watermarks"));
+    }
+
+    public Optional<Path> getInventoryDir() {
+        return getProperty("artifactory.inventory.dir").map(Paths::get);
+    }
+
+    public int getInventoryReconcileDays() {
+        return getProperty("artifactory.inventory.reconcile.days").map(Integer::valueOf).orElse(7);
+    }
+
+    public Optional<Path> getMetricsFile() {
+        return getProperty("artifactory.metrics.file").map(Paths::get);
+    }
+
+    public Optional<Integer> getMetricsPort() {
+        return getProperty("artifactory.metrics.port").map(Integer::valueOf);
+    }
 
-        return retry;
+    public RetryPolicy getRetryPolicy() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(
+                getProperty("artifactory.circuit.failures").map(Integer::valueOf).orElse(5),
+                Duration.ofSeconds(getProperty("artifactory.circuit.open.seconds").map(Integer::valueOf).orElse(30)));
+
+        return new RetryPolicy(
+                getRetryCount().orElse(12),
+                Duration.ofMillis(getProperty("artifactory.retry.initial.millis").map(Long::valueOf).orElse(500L)),
+                Duration.ofSeconds(getRetrySleep().orElse(15)),
+                getProperty("artifactory.retry.budget").map(Integer::valueOf).orElse(1000),
+                circuitBreaker);
     }
 
     public Optional<List<String>> getReleaseCleanConfigs() {
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.deadline.DeadlineExceededException;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Run independent cleaner jobs in parallel.
+ *
+ * <p>Jobs waiting when the run deadline is reached are not started. Each job gets its own deadline, a share of the run
+ * time counted from its start. A job which failed by {@link DeadlineExceededException} is reported as stopped by
+ * deadline, any other failure is reported as failure, even when it happened after the deadline.
+ */
+@Slf4j
+public class JobScheduler {
+
+    private final int parallelism;
+    private final Deadline deadline;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public JobScheduler(int parallelism) {
+        this(parallelism, Deadline.NONE);
+    }
+
+    /**
+     * @param parallelism number of jobs running at the same time
+     * @param deadline deadline of the whole run
+     */
+    public JobScheduler(int parallelism, Deadline deadline) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.deadline = deadline;
+    }
+
+    public void add(String name, Runnable job) {
+        add(name, 100, jobDeadline -> job.run());
+    }
+
+    /**
+     * @param name name of job in logs and results
+     * @param budget percent of run time the job may use
+     * @param job job accepting its deadline
+     */
+    public void add(String name, int budget, Consumer<Deadline> job) {
+        if (jobs.putIfAbsent(name, new Job(budget, job)) != null) {
+            throw new IllegalArgumentException("duplicate job name: " + name);
+        }
+    }
+
+    /**
+     * Run all jobs and wait for them.
+     *
+     * @return results in order in which jobs were added
+     */
+    public List<JobResult> runAll() {
+        if (jobs.isEmpty()) {
+            LOGGER.info("No jobs to run");
+            return new ArrayList<>();
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, jobs.size()),
+                r -> new Thread(r, "job-" + threadNumber.incrementAndGet()));
+
+        List<CompletableFuture<JobResult>> futures = new ArrayList<>();
+        try {
+            jobs.forEach((name, job) -> futures.add(CompletableFuture.supplyAsync(() -> run(name, job), executor)));
+            futures.forEach(CompletableFuture::join);
+        } finally {
+            executor.shutdown();
+        }
+
+        List<JobResult> results = new ArrayList<>();
+        futures.forEach(f -> results.add(f.join()));
+
+        results.forEach(r -> LOGGER.info("Job {} {} in {} s", r.getName(),
+                r.isSuccess() ? "finished" : r.isTimedOut() ? "stopped by deadline" : "failed",
+                r.getDuration().getSeconds()));
+
+        return results;
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException") // checked exceptions can be sneaky thrown by Try
+    private JobResult run(String name, Job job) {
+        if (deadline.isReached()) {
+            LOGGER.warn("Job {} not started, deadline of run reached", name);
+            return new JobResult(name, Duration.ZERO,
+                    new DeadlineExceededException("job " + name + " not started, deadline reached"), true);
+        }
+
+        LOGGER.info("Job {} started", name);
+        long start = System.nanoTime();
+        Deadline jobDeadline = deadline.share(job.budget);
+        Throwable failure = null;
+
+        try {
+            job.body.accept(jobDeadline);
+        } catch (Exception e) {
+            failure = e;
+        }
+
+        boolean timedOut = isDeadlineExceeded(failure);
+        if (timedOut) {
+            LOGGER.warn("Job {} stopped by deadline, the rest is left for the next run: {}", name,
+                    failure.getMessage());
+        } else if (failure != null) {
+            LOGGER.error("Job " + name + " failed", failure);
+        }
+
+        return new JobResult(name, Duration.ofNanos(System.nanoTime() - start), failure, timedOut);
+    }
+
+    /**
+     * Check if failure or any of its causes is stop by deadline, eg. wrapped by future.
+     */
+    private static boolean isDeadlineExceeded(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeadlineExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Job {
+        private final int budget;
+        private final Consumer<Deadline> body;
+
+        private Job(int budget, Consumer<Deadline> body) {
+            this.budget = budget;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Outcome of one job.
+     */
+    @Getter
+    public static final class JobResult {
+        private final String name;
+        private final Duration duration;
+        private final Throwable failure;
+        private final boolean timedOut;
+
+        JobResult(String name, Duration duration, Throwable failure, boolean timedOut) {
+            this.name = name;
+            this.duration = duration;
+            this.failure = failure;
+            this.timedOut = timedOut;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        /**
+         * Job was not started or finished before deadline, its work is left for the next run.
+         *
+         * @return true when work of job is left for the next run
+         */
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public Optional<Throwable> getFailure() {
+            return Optional.ofNullable(failure);
+        }
+    }
+}
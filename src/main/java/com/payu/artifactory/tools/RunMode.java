@@ -14,17 +14,25 @@
  *    limitations under the License.
  *
  */
+package com.payu.artifactory.tools;
 
-package com.payu.artifactory.tools.snapshot;
-
-import lombok.Getter;
+/**
+ * What cleaner does with items selected for deleting.
+ */
+public enum RunMode {
 
-import java.util.HashSet;
-import java.util.Set;
+    /**
+     * Search and delete in one go.
+     */
+    RUN,
 
-@Getter
-@SuppressWarnings("PMD.UnusedPrivateField") // false positive
-public class AQLItems {
+    /**
+     * Search only and write items to plan file.
+     */
+    PLAN,
 
-    private final Set<AQLItem> results = new HashSet<>();
+    /**
+     * Delete items from plan file without searching.
+     */
+    APPLY
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools;
+
+import com.payu.artifactory.tools.delete.DeleteExecutor;
+import com.payu.artifactory.tools.delete.DeleteJournal;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Let deletes in progress finish and flush journal when JVM is stopped, eg. pod is evicted.
+ *
+ * <p>Hook is registered while the object is open.
+ */
+@Slf4j
+class ShutdownHook implements AutoCloseable {
+
+    private final Thread hook;
+
+    /**
+     * @param journal journal to flush, may be null
+     */
+    ShutdownHook(DeleteExecutor deleteExecutor, DeleteJournal journal) {
+        hook = new Thread(() -> {
+            LOGGER.warn("Cleaner is stopping, waiting for deletes in progress");
+            deleteExecutor.cancelPending();
+            deleteExecutor.close();
+            if (journal != null) {
+                journal.close();
+            }
+        }, "cleaner-shutdown");
+
+        Runtime.getRuntime().addShutdownHook(hook);
+    }
+
+    @Override
+    public void close() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            LOGGER.debug("Shutdown in progress, hook stays", e);
+        }
+    }
+}
@@ -14,17 +14,20 @@
  *    limitations under the License.
  *
  */
+package com.payu.artifactory.tools;
 
-package com.payu.artifactory.tools.docker;
-
-import lombok.Getter;
-
-import java.util.HashSet;
-import java.util.Set;
+/**
+ * How requests are sent to Artifactory.
+ */
+public enum TransportType {
 
-@Getter
-@SuppressWarnings("PMD.UnusedPrivateField") // false positive
-public class AQLItems {
+    /**
+     * Blocking Artifactory client, one connection per request in flight.
+     */
+    CLIENT,
 
-    private final Set<AQLItem> results = new HashSet<>();
+    /**
+     * Non-blocking HTTP/2 client, all requests multiplexed on one connection.
+     */
+    HTTP2
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.aql;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Conversion of AQL dates, eg. {@code 2019-05-05T16:44:30.629+02:00}, to epoch millis and back.
+ */
+public final class AqlDates {
+
+    private static final DateTimeFormatter AQL_DATE =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").withZone(ZoneOffset.UTC);
+
+    private AqlDates() {
+    }
+
+    public static long parse(String date) {
+        return OffsetDateTime.parse(date).toInstant().toEpochMilli();
+    }
+
+    public static String format(long epochMillis) {
+        return AQL_DATE.format(Instant.ofEpochMilli(epochMillis));
+    }
+}
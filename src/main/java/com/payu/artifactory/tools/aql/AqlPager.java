@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.aql;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import com.payu.artifactory.tools.deadline.Deadline;
+
+import io.vavr.control.Try;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Split AQL query into sorted pages.
+ *
+ * <p>Each page is retried on its own and the next page is fetched while the current one is processed,
+ * so at most two pages are held in memory. No page is fetched after deadline of job is reached.
+ */
+@Slf4j
+public class AqlPager {
+
+    /**
+     * Every query using pager must include these fields.
+     */
+    static final String SORT = ".sort({\"$asc\":[\"repo\",\"path\",\"name\"]})";
+
+    private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "aql-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AqlSearch search;
+    private final int pageSize;
+    private final Deadline deadline;
+
+    /**
+     * @param search search sending each page
+     * @param pageSize number of items in one page, zero or less disables paging
+     */
+    public AqlPager(AqlSearch search, int pageSize) {
+        this(search, pageSize, Deadline.NONE);
+    }
+
+    /**
+     * @param search search sending each page
+     * @param pageSize number of items in one page, zero or less disables paging
+     * @param deadline deadline of job, when reached queries fail with
+     *                 {@link com.payu.artifactory.tools.deadline.DeadlineExceededException}
+     */
+    public AqlPager(AqlSearch search, int pageSize, Deadline deadline) {
+        this.search = search;
+        this.pageSize = pageSize;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Execute query page by page and pass each item to consumer.
+     *
+     * @param <T> type of items
+     * @param query AQL query with {@code find} and {@code include} part only
+     * @param itemType class items are parsed to
+     * @param consumer consumer of items, called by thread of caller
+     * @return number of items in result
+     */
+    public <T> long find(String query, Class<T> itemType, Consumer<? super T> consumer) {
+        deadline.check("AQL query");
+        if (pageSize <= 0) {
+            return search.find(query, itemType, consumer);
+        }
+
+        long offset = 0;
+        CompletableFuture<List<T>> next = fetch(query, offset, itemType);
+
+        while (true) {
+            List<T> page = await(next);
+            offset += page.size();
+
+            boolean last = page.size() < pageSize;
+            if (!last) {
+                deadline.check("AQL page at offset " + offset);
+                next = fetch(query, offset, itemType);
+            }
+
+            page.forEach(consumer);
+
+            if (last) {
+                return offset;
+            }
+        }
+    }
+
+    private <T> CompletableFuture<List<T>> fetch(String query, long offset, Class<T> itemType) {
+        String pageQuery = pageQuery(query, offset);
+        return CompletableFuture.supplyAsync(() -> {
+            LOGGER.debug("Fetching page: {}", pageQuery);
+            return search.findAll(pageQuery, itemType);
+        }, PREFETCH);
+    }
+
+    String pageQuery(String query, long offset) {
+        return query + SORT + ".offset(" + offset + ").limit(" + pageSize + ")";
+    }
+
+    /**
+     * Wait for page and rethrow original exception of failed fetch.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            return Try.<T>failure(e.getCause()).get();
+        }
+    }
+}
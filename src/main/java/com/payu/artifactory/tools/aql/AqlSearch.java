@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.aql;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import org.jfrog.artifactory.client.Artifactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.payu.artifactory.tools.metrics.JobMetrics;
+import com.payu.artifactory.tools.transport.ArtifactoryTransport;
+import com.payu.artifactory.tools.transport.ClientTransport;
+
+import io.github.resilience4j.retry.Retry;
+import io.vavr.control.Try;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Execute AQL query and stream result items one by one to consumer.
+ *
+ * <p>Items are parsed from the {@code results} array token by token, so the whole response
+ * is never held in memory when the default Artifactory client is used. Items kept by consumer still add up,
+ * eg. cleaners keep items of a full scan until it ends.
+ *
+ * <p>Requests are sent by {@link ArtifactoryTransport}, {@link ClientTransport} is used for Artifactory client.
+ */
+@Slf4j
+public class AqlSearch {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final ArtifactoryTransport transport;
+    private final Retry retry;
+    private final JobMetrics metrics;
+
+    public AqlSearch(Artifactory artifactory, Retry retry) {
+        this(artifactory, retry, JobMetrics.NONE);
+    }
+
+    public AqlSearch(Artifactory artifactory, Retry retry, JobMetrics metrics) {
+        this(new ClientTransport(Objects.requireNonNull(artifactory, "artifactory must be set")), retry, metrics);
+    }
+
+    public AqlSearch(ArtifactoryTransport transport, Retry retry, JobMetrics metrics) {
+        Objects.requireNonNull(transport, "transport must be set");
+        Objects.requireNonNull(retry, "retry must be set");
+        Objects.requireNonNull(metrics, "metrics must be set");
+        this.transport = transport;
+        this.retry = retry;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Execute query and pass each item of result to consumer.
+     *
+     * <p>Only sending the request is retried, failure while reading response stops processing.
+     *
+     * @param <T> type of items
+     * @param query AQL query
+     * @param itemType class items are parsed to
+     * @param consumer consumer of items
+     * @return number of items in result
+     */
+    public <T> long find(String query, Class<T> itemType, Consumer<? super T> consumer) {
+        ObjectReader reader = MAPPER.readerFor(itemType);
+        long start = System.nanoTime();
+
+        return measured(start, Try.withResources(Retry.decorateCheckedSupplier(retry, () -> open(query)))
+                .of(parser -> readResults(parser, reader, consumer)), Long::longValue);
+    }
+
+    /**
+     * Execute query and collect all items of result.
+     *
+     * <p>Whole call including reading of response is retried, so it should be used for bounded results only.
+     *
+     * @param <T> type of items
+     * @param query AQL query
+     * @param itemType class items are parsed to
+     * @return all items of result
+     */
+    public <T> List<T> findAll(String query, Class<T> itemType) {
+        ObjectReader reader = MAPPER.readerFor(itemType);
+        long start = System.nanoTime();
+
+        return measured(start, Try.of(Retry.decorateCheckedSupplier(retry, () -> {
+            try (JsonParser parser = open(query)) {
+                List<T> result = new ArrayList<>();
+                AqlSearch.<T>readResults(parser, reader, result::add);
+                return result;
+            }
+        })), List::size);
+    }
+
+    /**
+     * Record latency of the whole call including retries and reading of response.
+     */
+    private <R> R measured(long start, Try<R> result, ToLongFunction<R> items) {
+        return result
+                .onSuccess(r -> metrics.aqlRequest(start, items.applyAsLong(r)))
+                .onFailure(e -> metrics.aqlFailed(start))
+                .get();
+    }
+
+    private JsonParser open(String query) throws IOException {
+        return MAPPER.getFactory().createParser(ArtifactoryTransport.await(transport.aql(query)));
+    }
+
+    /**
+     * Move parser to {@code results} array and pass each element to consumer.
+     */
+    static <T> long readResults(JsonParser parser, ObjectReader reader, Consumer<? super T> consumer) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("AQL response must be JSON object");
+        }
+
+        long count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if ("results".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    T item = reader.readValue(parser);
+                    consumer.accept(item);
+                    count++;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        LOGGER.debug("AQL returned {} items", count);
+        return count;
+    }
+}
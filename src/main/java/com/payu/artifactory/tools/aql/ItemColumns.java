@@ -0,0 +1,342 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.aql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Items of one job stored by columns of primitive arrays, planners read rows by index instead of item objects.
+ *
+ * <p>Each row keeps node of its folder in {@link PathTrie}, id of its version in dictionary of the store and times
+ * and size as longs. Rows are grouped, sorted and selected by operators working on arrays of row indexes.
+ *
+ * <p>It is not thread safe while items are added. Once filled, disjoint groups may be planned by different threads.
+ */
+public class ItemColumns {
+
+    private static final int INITIAL_ROWS = 1024;
+
+    /**
+     * Ranges shorter than this are sorted by insertion.
+     */
+    private static final int INSERTION_SORT = 16;
+
+    private final PathTrie paths;
+
+    private int[] nodes = new int[INITIAL_ROWS];
+    private int[] versions = new int[INITIAL_ROWS];
+    private long[] created = new long[INITIAL_ROWS];
+    private long[] modified = new long[INITIAL_ROWS];
+    private long[] sizes = new long[INITIAL_ROWS];
+    private int size;
+
+    private final Map<String, Integer> versionIds = new HashMap<>();
+    private final List<String> versionNames = new ArrayList<>();
+
+    /**
+     * @param paths folders of stored items
+     */
+    public ItemColumns(PathTrie paths) {
+        this.paths = paths;
+    }
+
+    /**
+     * Add interned item.
+     *
+     * @param item item with path interned by the same trie
+     * @return row of item
+     */
+    public int add(VersionItem item) {
+        if (item.getNode() < 0) {
+            throw new IllegalArgumentException("path of item is not interned: " + item.getPath());
+        }
+        return add(item.getNode(), item.getVersion(), item.getCreated(), item.getModified(), item.getSize());
+    }
+
+    /**
+     * Add item of folder node.
+     *
+     * @param node node of folder of item
+     * @param version name of item in folder
+     * @param created creation time in epoch millis
+     * @param modified modification time in epoch millis
+     * @param size size in bytes
+     * @return row of item
+     */
+    public int add(int node, String version, long created, long modified, long size) {
+        if (this.size == nodes.length) {
+            int capacity = this.size * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            this.created = Arrays.copyOf(this.created, capacity);
+            this.modified = Arrays.copyOf(this.modified, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+
+        int row = this.size++;
+        nodes[row] = node;
+        versions[row] = versionIds.computeIfAbsent(version, v -> {
+            versionNames.add(v);
+            return versionNames.size() - 1;
+        });
+        this.created[row] = created;
+        this.modified[row] = modified;
+        sizes[row] = size;
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getNode(int row) {
+        return nodes[row];
+    }
+
+    public String getPath(int row) {
+        return paths.path(nodes[row]);
+    }
+
+    public int getVersionId(int row) {
+        return versions[row];
+    }
+
+    public String getVersion(int row) {
+        return versionNames.get(versions[row]);
+    }
+
+    public long getCreated(int row) {
+        return created[row];
+    }
+
+    public long getModified(int row) {
+        return modified[row];
+    }
+
+    public long getSize(int row) {
+        return sizes[row];
+    }
+
+    /**
+     * Rank of each distinct version by its key, equal keys have equal rank, so rows can be ordered by comparing ints.
+     *
+     * @param <K> type of parsed version
+     * @param key parsed version, computed once for each distinct version
+     * @return ranks indexed by version id
+     */
+    public <K extends Comparable<? super K>> int[] rankVersions(Function<String, K> key) {
+        int count = versionNames.size();
+        List<K> keys = new ArrayList<>(count);
+        Integer[] ids = new Integer[count];
+        for (int id = 0; id < count; id++) {
+            keys.add(key.apply(versionNames.get(id)));
+            ids[id] = id;
+        }
+        Arrays.sort(ids, (a, b) -> keys.get(a).compareTo(keys.get(b)));
+
+        int[] ranks = new int[count];
+        int rank = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && keys.get(ids[i - 1]).compareTo(keys.get(ids[i])) < 0) {
+                rank++;
+            }
+            ranks[ids[i]] = rank;
+        }
+        return ranks;
+    }
+
+    /**
+     * All rows in the order they were added.
+     *
+     * @return rows of all items
+     */
+    public Rows rows() {
+        int[] rows = new int[size];
+        for (int row = 0; row < size; row++) {
+            rows[row] = row;
+        }
+        return new Rows(rows, 0, size);
+    }
+
+    /**
+     * Rows grouped by folder, groups are in the order of their first rows and rows keep their order in group.
+     *
+     * <p>Rows are placed by counting sort into one array shared by all groups.
+     *
+     * @return rows of each folder
+     */
+    public List<Rows> groupByPath() {
+        // group of node plus one, zero for nodes without rows
+        int[] groupOfNode = new int[paths.size()];
+        int[] counts = new int[16];
+        int groups = 0;
+
+        for (int row = 0; row < size; row++) {
+            int group = groupOfNode[nodes[row]] - 1;
+            if (group < 0) {
+                group = groups++;
+                groupOfNode[nodes[row]] = groups;
+                if (groups == counts.length) {
+                    counts = Arrays.copyOf(counts, groups * 2);
+                }
+            }
+            counts[group]++;
+        }
+
+        int[] next = new int[groups];
+        for (int group = 1; group < groups; group++) {
+            next[group] = next[group - 1] + counts[group - 1];
+        }
+
+        int[] rows = new int[size];
+        int[] groupSizes = counts;
+        List<Rows> result = IntStream.range(0, groups)
+                .mapToObj(group -> new Rows(rows, next[group], next[group] + groupSizes[group]))
+                .collect(Collectors.toList());
+        for (int row = 0; row < size; row++) {
+            rows[next[groupOfNode[nodes[row]] - 1]++] = row;
+        }
+        return result;
+    }
+
+    /**
+     * Order of two rows.
+     */
+    @FunctionalInterface
+    public interface RowComparator {
+        int compare(int row, int other);
+    }
+
+    /**
+     * Range of row indexes, eg. one group, which may be reordered in place.
+     *
+     * <p>Ranges of all groups are disjoint parts of one array, owned by the columns and never exposed.
+     */
+    public final class Rows {
+        private final int[] rows;
+        private final int from;
+        private final int to;
+
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly") // groups share one array, each reorders only its range
+        private Rows(int[] rows, int from, int to) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        public ItemColumns getColumns() {
+            return ItemColumns.this;
+        }
+
+        public int size() {
+            return to - from;
+        }
+
+        /**
+         * Row at position in range.
+         *
+         * @param i position in range
+         * @return row of item
+         */
+        public int get(int i) {
+            return rows[from + i];
+        }
+
+        /**
+         * Path of folder of the first row, the same for all rows of a group.
+         *
+         * @return path of folder
+         */
+        public String getPath() {
+            return ItemColumns.this.getPath(rows[from]);
+        }
+
+        /**
+         * Stable sort of rows.
+         *
+         * @param comparator order of rows
+         */
+        public void sort(RowComparator comparator) {
+            mergeSort(rows, Arrays.copyOfRange(rows, from, to), from, to, -from, comparator);
+        }
+
+        /**
+         * Move the first {@code k} rows in order of comparator to the beginning of range, in that order.
+         * The other rows keep their order. It costs O(n k), so it suits small {@code k}.
+         *
+         * @param k number of rows to move
+         * @param comparator order of rows, the first ones are moved
+         * @return number of moved rows, lower than k when there are fewer rows
+         */
+        public int top(int k, RowComparator comparator) {
+            int count = Math.min(k, size());
+            for (int i = from; i < from + count; i++) {
+                int first = i;
+                for (int j = i + 1; j < to; j++) {
+                    if (comparator.compare(rows[j], rows[first]) < 0) {
+                        first = j;
+                    }
+                }
+                int row = rows[first];
+                System.arraycopy(rows, i, rows, i + 1, first - i);
+                rows[i] = row;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Sort {@code rows[from, to)} using {@code buffer} holding the same rows, shifted by {@code offset}.
+     */
+    private static void mergeSort(int[] rows, int[] buffer, int from, int to, int offset, RowComparator comparator) {
+        if (to - from < INSERTION_SORT) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i;
+                while (j > from && comparator.compare(rows[j - 1], row) > 0) {
+                    j--;
+                }
+                System.arraycopy(rows, j, rows, j + 1, i - j);
+                rows[j] = row;
+            }
+            return;
+        }
+
+        // sort both halves in buffer, then merge them into rows
+        int middle = (from + to) >>> 1;
+        mergeSort(buffer, rows, from + offset, middle + offset, -offset, comparator);
+        mergeSort(buffer, rows, middle + offset, to + offset, -offset, comparator);
+
+        int left = from + offset;
+        int right = middle + offset;
+        for (int i = from; i < to; i++) {
+            if (right >= to + offset
+                    || left < middle + offset && comparator.compare(buffer[left], buffer[right]) <= 0) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+}
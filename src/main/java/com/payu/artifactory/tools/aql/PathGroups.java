@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.aql;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Groups of items by their folder, eg. tags by image, indexed by node of {@link PathTrie}.
+ *
+ * <p>Group of an item is found by id of its folder node, without hashing or comparing its path.
+ * Groups are visited in the order of their first items.
+ *
+ * @param <G> items of one group
+ */
+public class PathGroups<G> {
+
+    private final PathTrie paths;
+
+    private Object[] groups = new Object[1024];
+    private int[] order = new int[1024];
+    private int size;
+
+    /**
+     * @param paths folders of grouped items
+     */
+    public PathGroups(PathTrie paths) {
+        this.paths = paths;
+    }
+
+    /**
+     * Group of interned item, created when it is the first item of its folder.
+     *
+     * @param item item with path interned by the trie of groups
+     * @param factory creates group of the first item of folder
+     * @return group of folder of item
+     */
+    @SuppressWarnings("unchecked")
+    public G computeIfAbsent(VersionItem item, Supplier<G> factory) {
+        int node = item.getNode();
+        if (node < 0) {
+            throw new IllegalArgumentException("path of item is not interned: " + item.getPath());
+        }
+
+        if (node >= groups.length) {
+            groups = Arrays.copyOf(groups, Math.max(groups.length * 2, node + 1));
+        }
+        G group = (G) groups[node];
+        if (group == null) {
+            group = factory.get();
+            groups[node] = group;
+            if (size == order.length) {
+                order = Arrays.copyOf(order, size * 2);
+            }
+            order[size++] = node;
+        }
+        return group;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Pass each group with path of its folder to consumer and remove all groups.
+     *
+     * @param consumer consumer of path and group
+     */
+    public void drain(BiConsumer<String, G> consumer) {
+        forEach(consumer);
+        for (int i = 0; i < size; i++) {
+            groups[order[i]] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Pass each group with path of its folder to consumer.
+     *
+     * @param consumer consumer of path and group
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<String, G> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(paths.path(order[i]), (G) groups[order[i]]);
+        }
+    }
+}
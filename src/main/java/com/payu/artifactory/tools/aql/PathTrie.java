@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.aql;
+
+import java.util.Arrays;
+
+/**
+ * Folders of items found by one job, each distinct folder is stored once as a node with parent and name.
+ *
+ * <p>Items keep canonical path and id of their folder instead of their own copy of the path, so millions of items
+ * sharing a few thousand folders cost a few thousand strings. Children are found in one open addressing table
+ * keyed by parent and name, existing folders are looked up without allocating.
+ *
+ * <p>It is not thread safe, paths are interned by the thread consuming items.
+ */
+public class PathTrie {
+
+    /**
+     * Node of empty path, root of repository.
+     */
+    public static final int ROOT = 0;
+
+    private static final int INITIAL_NODES = 1024;
+
+    private int[] parents = new int[INITIAL_NODES];
+    private int[] hashes = new int[INITIAL_NODES];
+    private String[] names = new String[INITIAL_NODES];
+    private String[] paths = new String[INITIAL_NODES];
+    private int size = 1;
+
+    /**
+     * Node ids plus one, zero marks free slot.
+     */
+    private int[] table = new int[INITIAL_NODES * 2];
+
+    public PathTrie() {
+        names[ROOT] = "";
+        paths[ROOT] = "";
+    }
+
+    /**
+     * Node of folder path, added with its missing parents when not known yet.
+     *
+     * @param path path of folder, empty for root
+     * @return node of folder
+     */
+    public int intern(String path) {
+        int node = ROOT;
+        int start = 0;
+        int length = path.length();
+
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            node = child(node, path, start, end);
+            start = end + 1;
+        }
+        return node;
+    }
+
+    /**
+     * Canonical path of node, the same instance for all items of folder.
+     *
+     * @param node node of folder
+     * @return path of folder
+     */
+    public String path(int node) {
+        return paths[node];
+    }
+
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    public String name(int node) {
+        return names[node];
+    }
+
+    /**
+     * Number of nodes including root.
+     *
+     * @return number of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    private int child(int parent, String path, int start, int end) {
+        int hash = hash(parent, path, start, end);
+        int mask = table.length - 1;
+
+        int slot = hash & mask;
+        int node = table[slot] - 1;
+        while (node != -1) {
+            if (hashes[node] == hash && parents[node] == parent && names[node].length() == end - start
+                    && path.regionMatches(start, names[node], 0, end - start)) {
+                return node;
+            }
+            slot = (slot + 1) & mask;
+            node = table[slot] - 1;
+        }
+        return add(parent, hash, path, end, path.substring(start, end), slot);
+    }
+
+    private int add(int parent, int hash, String path, int end, String name, int slot) {
+        if (size == parents.length) {
+            int capacity = size * 2;
+            parents = Arrays.copyOf(parents, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            names = Arrays.copyOf(names, capacity);
+            paths = Arrays.copyOf(paths, capacity);
+        }
+
+        int node = size++;
+        parents[node] = parent;
+        hashes[node] = hash;
+        names[node] = name;
+        paths[node] = end == path.length() ? path : path.substring(0, end);
+        table[slot] = node + 1;
+
+        // keep table at most half full
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return node;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int node = 1; node < size; node++) {
+            int slot = hashes[node] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = node + 1;
+        }
+    }
+
+    private static int hash(int parent, String path, int start, int end) {
+        int hash = parent;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + path.charAt(i);
+        }
+        // spread higher bits, slots are taken from the lowest ones
+        return hash ^ (hash >>> 16);
+    }
+}
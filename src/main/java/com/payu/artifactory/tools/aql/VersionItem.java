@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.aql;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Item found by AQL, split into path of group, eg. image or artifact, and its version.
+ *
+ * <p>Times are parsed once when item is read. Path is replaced by canonical path of its folder
+ * when item is interned.
+ */
+@Getter
+@EqualsAndHashCode(exclude = "node")
+@SuppressWarnings({"PMD.UnusedPrivateField", "PMD.SingularField"}) // false positives
+public class VersionItem {
+
+    private String path;
+
+    private String version;
+
+    /**
+     * Creation time in epoch millis.
+     */
+    private long created;
+
+    /**
+     * Modification time in epoch millis.
+     */
+    private long modified;
+
+    @Setter
+    private long size;
+
+    /**
+     * Node of path in {@link PathTrie}, negative until item is interned.
+     */
+    private int node = -1;
+
+    /**
+     * Set all fields at once, eg. when item is read from inventory.
+     *
+     * @param path path of folder containing item
+     * @param version name of item in folder
+     * @param created creation time in epoch millis
+     * @param modified modification time in epoch millis
+     * @param size size in bytes
+     */
+    public void set(String path, String version, long created, long modified, long size) {
+        this.path = path;
+        this.version = version;
+        this.node = -1;
+        this.created = created;
+        this.modified = modified;
+        this.size = size;
+    }
+
+    public void setPath(String path) {
+        int last = path.lastIndexOf('/');
+
+        if (last == -1) {
+            throw new IllegalArgumentException("no slash character in path " + path);
+        }
+
+        this.path = path.substring(0, last);
+        this.version = path.substring(last + 1);
+        this.node = -1;
+    }
+
+    /**
+     * Share path of folder with all other items of the same folder.
+     *
+     * @param paths folder trie of job
+     */
+    public void intern(PathTrie paths) {
+        node = paths.intern(path);
+        path = paths.path(node);
+    }
+
+    public void setCreated(String created) {
+        this.created = AqlDates.parse(created);
+    }
+
+    public void setModified(String modified) {
+        this.modified = AqlDates.parse(modified);
+    }
+}
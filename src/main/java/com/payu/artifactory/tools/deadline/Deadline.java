@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.deadline;
+
+import java.time.Duration;
+
+/**
+ * Time after which run or job doesn't start any new work.
+ *
+ * <p>New work is stopped {@code grace} before the end, so requests already in flight can finish before it.
+ * Job may get only a share of the run time, counted from its start and never past the end of the run.
+ */
+public final class Deadline {
+
+    private static final int WHOLE = 100;
+
+    /**
+     * Deadline which is never reached.
+     */
+    public static final Deadline NONE = new Deadline(false, 0, 0, 0);
+
+    private final boolean bounded;
+    private final long runNanos;
+    private final long endNanos;
+    private final long graceNanos;
+
+    private Deadline(boolean bounded, long runNanos, long endNanos, long graceNanos) {
+        this.bounded = bounded;
+        this.runNanos = runNanos;
+        this.endNanos = endNanos;
+        this.graceNanos = graceNanos;
+    }
+
+    /**
+     * Deadline of run started now.
+     *
+     * @param run time of the whole run
+     * @param grace time before the end left for work in flight
+     * @return deadline reached at the end of run less grace
+     */
+    public static Deadline after(Duration run, Duration grace) {
+        return new Deadline(true, run.toNanos(), System.nanoTime() + run.toNanos(), grace.toNanos());
+    }
+
+    /**
+     * Deadline of job started now, which may use given percent of run time.
+     *
+     * @param percent percent of run time, from 1 to 100
+     * @return deadline of job
+     */
+    public Deadline share(int percent) {
+        if (percent < 1 || percent > WHOLE) {
+            throw new IllegalArgumentException("percent must be between 1 and 100: " + percent);
+        }
+        if (!bounded || percent == WHOLE) {
+            return this;
+        }
+
+        long jobEnd = System.nanoTime() + runNanos / WHOLE * percent;
+        return new Deadline(true, runNanos, jobEnd - endNanos < 0 ? jobEnd : endNanos, graceNanos);
+    }
+
+    /**
+     * Check if no new work should be started.
+     *
+     * @return true when deadline is reached
+     */
+    public boolean isReached() {
+        return bounded && System.nanoTime() - (endNanos - graceNanos) >= 0;
+    }
+
+    /**
+     * Fail when no new work should be started.
+     *
+     * @param work description of work which would be started
+     */
+    public void check(String work) {
+        if (isReached()) {
+            throw new DeadlineExceededException(work + " not started, deadline reached");
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023 PayU
+ * Copyright 2019 PayU
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -14,16 +14,16 @@
  *    limitations under the License.
  *
  */
+package com.payu.artifactory.tools.deadline;
 
-package com.payu.artifactory.tools.releases;
-
-import java.util.Set;
-
-import lombok.Getter;
+/**
+ * Work was stopped by deadline of run or job, what is left is done by the next run.
+ */
+public class DeadlineExceededException extends IllegalStateException {
 
-@Getter
-@SuppressWarnings("PMD.UnusedPrivateField") // false positive
-public class AQLItemsRootVersion {
+    private static final long serialVersionUID = 1L;
 
-    private Set<AQLItemRootVersion> results;
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
 }
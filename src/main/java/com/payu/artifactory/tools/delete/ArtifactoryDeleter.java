@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+import org.jfrog.artifactory.client.Artifactory;
+
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.metrics.JobMetrics;
+import com.payu.artifactory.tools.transport.ArtifactoryTransport;
+import com.payu.artifactory.tools.transport.ClientTransport;
+
+import io.github.resilience4j.retry.Retry;
+import io.vavr.control.Try;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delete items from Artifactory by shared delete executor.
+ *
+ * <p>Worker of executor waits for each request, so retries and concurrency limit apply to non-blocking
+ * transport as well. It also means non-blocking transport doesn't reduce the number of delete threads, there is
+ * still one worker for each permit of the highest concurrency limit. Deletes still queued when deadline of job is
+ * reached fail without sending request.
+ */
+@Slf4j
+public class ArtifactoryDeleter implements Deleter {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ArtifactoryTransport transport;
+    private final Retry retry;
+    private final DeleteExecutor deleteExecutor;
+    private final JobMetrics metrics;
+    private final Deadline deadline;
+
+    public ArtifactoryDeleter(Artifactory artifactory, Retry retry, DeleteExecutor deleteExecutor) {
+        this(artifactory, retry, deleteExecutor, JobMetrics.NONE);
+    }
+
+    public ArtifactoryDeleter(Artifactory artifactory, Retry retry, DeleteExecutor deleteExecutor,
+            JobMetrics metrics) {
+        this(new ClientTransport(artifactory), retry, deleteExecutor, metrics);
+    }
+
+    public ArtifactoryDeleter(ArtifactoryTransport transport, Retry retry, DeleteExecutor deleteExecutor,
+            JobMetrics metrics) {
+        this(transport, retry, deleteExecutor, metrics, Deadline.NONE);
+    }
+
+    public ArtifactoryDeleter(ArtifactoryTransport transport, Retry retry, DeleteExecutor deleteExecutor,
+            JobMetrics metrics, Deadline deadline) {
+        this.transport = transport;
+        this.retry = retry;
+        this.deleteExecutor = deleteExecutor;
+        this.metrics = metrics;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String repoKey, String path) {
+        return deleteExecutor.submit(repoKey, () -> {
+            deadline.check("delete of " + repoKey + "/" + path);
+            LOGGER.info("Delete {}/{}", repoKey, path);
+
+            JobMetrics repoMetrics = metrics.forRepo(repoKey);
+            long start = System.nanoTime();
+
+            Try.of(Retry.decorateCheckedSupplier(retry, () -> deleteOnce(repoKey, path)))
+                    .onSuccess(r -> repoMetrics.deleteRequest(start))
+                    .onFailure(e -> repoMetrics.deleteFailed(start))
+                    .get();
+        });
+    }
+
+    /**
+     * One attempt of delete, it holds permit of concurrency limiter only while its request is in flight
+     * and its result is reported to the limiter.
+     */
+    private Void deleteOnce(String repoKey, String path) throws InterruptedException {
+        ConcurrencyLimiter limiter = deleteExecutor.getLimiter();
+        limiter.acquire();
+        long start = System.nanoTime();
+
+        try {
+            return Try.of(() -> ArtifactoryTransport.await(transport.delete(repoKey, path)))
+                    .onSuccess(r -> limiter.onResponse(System.nanoTime() - start))
+                    .onFailure(e -> {
+                        if (e instanceof HttpResponseException
+                                && isOverload(((HttpResponseException) e).getStatusCode())) {
+                            limiter.onOverload();
+                        }
+                    })
+                    .get();
+        } finally {
+            limiter.release();
+        }
+    }
+
+    static boolean isOverload(int status) {
+        return status == TOO_MANY_REQUESTS || status >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limit of delete requests in flight, adapted by additive increase and multiplicative decrease.
+ *
+ * <p>Latencies of requests are collected in windows of {@link #WINDOW} samples. The limit is raised by one after
+ * a window in which it was reached and p99 latency stayed close to the baseline, which is the lowest p99 seen,
+ * slowly drifting up to follow lasting changes of the server. The limit is cut by {@link #BACKOFF} when p99 rises over
+ * {@link #TOLERANCE} times the baseline or when the server answers it is overloaded. After a cut, as many responses
+ * as the previous limit are taken as sent before it, so one burst of rejects cuts the limit only once.
+ */
+@Slf4j
+public class ConcurrencyLimiter {
+
+    static final int WINDOW = 20;
+    static final double BACKOFF = 0.5;
+    static final double TOLERANCE = 2.0;
+    private static final double BASELINE_DRIFT = 1.01;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private final int min;
+    private final int max;
+    private double limit;
+    private int inFlight;
+
+    private final long[] window = new long[WINDOW];
+    private int samples;
+    private boolean saturated;
+    private long baseline;
+    private int sinceDecrease;
+    private int limitBeforeDecrease;
+
+    public ConcurrencyLimiter(int min, int max) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("limits must be positive and ordered: " + min + ", " + max);
+        }
+        this.min = min;
+        this.max = max;
+        this.limit = min;
+    }
+
+    /**
+     * Limiter which never changes its limit.
+     *
+     * @param limit number of requests in flight
+     * @return limiter with the same min and max
+     */
+    public static ConcurrencyLimiter fixed(int limit) {
+        return new ConcurrencyLimiter(limit, limit);
+    }
+
+    /**
+     * Wait until request may be sent.
+     *
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                available.await();
+            }
+            inFlight++;
+            if (inFlight >= (int) limit) {
+                saturated = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Latency of request successfully answered by server.
+     *
+     * @param latencyNanos time from sending request to its response
+     */
+    public void onResponse(long latencyNanos) {
+        lock.lock();
+        try {
+            sinceDecrease++;
+            window[samples++] = latencyNanos;
+            if (samples == WINDOW) {
+                evaluateWindow();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evaluateWindow() {
+        Arrays.sort(window);
+        long p99 = window[(int) Math.ceil(WINDOW * 0.99) - 1];
+        samples = 0;
+
+        if (baseline == 0) {
+            baseline = p99;
+        }
+
+        if (p99 > baseline * TOLERANCE) {
+            decrease("p99 latency " + TimeUnit.NANOSECONDS.toMillis(p99) + " ms over baseline "
+                    + TimeUnit.NANOSECONDS.toMillis(baseline) + " ms");
+        } else {
+            baseline = Math.min(p99, (long) (baseline * BASELINE_DRIFT) + 1);
+            if (saturated) {
+                setLimit(limit + 1, "latency is stable");
+            }
+        }
+        saturated = false;
+    }
+
+    /**
+     * Server answered it is overloaded.
+     */
+    public void onOverload() {
+        lock.lock();
+        try {
+            sinceDecrease++;
+            decrease("server is overloaded");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(String reason) {
+        // responses to requests sent before the previous cut tell nothing new
+        if (sinceDecrease < limitBeforeDecrease) {
+            return;
+        }
+        sinceDecrease = 0;
+        limitBeforeDecrease = (int) limit;
+        samples = 0;
+        setLimit(limit * BACKOFF, reason);
+    }
+
+    private void setLimit(double newLimit, String reason) {
+        int previous = (int) limit;
+        limit = Math.max(min, Math.min(max, newLimit));
+        if ((int) limit != previous) {
+            LOGGER.info("Delete concurrency limit changed from {} to {}, {}", previous, (int) limit, reason);
+            available.signalAll();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.payu.artifactory.tools.aql.AqlPager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collapse deletes of all children of a folder into one delete of the folder, level by level.
+ *
+ * <p>Only folders with at least two planned children are checked, the deepest ones first, so a folder is checked
+ * only after its subfolders were coalesced. Their children are listed by AQL query
+ * and the folder is deleted instead when every child is planned, except Maven metadata describing them.
+ *
+ * <p>Coalescing is racy: items deployed into the folder between the listing and the delete of the folder are
+ * deleted with it, although they were never planned. It is therefore enabled only on request.
+ */
+@Slf4j
+public class DeleteCoalescer {
+
+    /**
+     * Number of folders listed by one AQL query.
+     */
+    static final int FOLDERS_PER_QUERY = 50;
+
+    private static final String MAVEN_METADATA = "maven-metadata.xml";
+
+    private final AqlPager aqlPager;
+
+    public DeleteCoalescer(AqlPager aqlPager) {
+        this.aqlPager = aqlPager;
+    }
+
+    /**
+     * Coalesce planned deletes of items in repository.
+     *
+     * @param repoKey repository of items
+     * @param top folder which is never deleted, only folders under it are, empty for the root of repository
+     * @param paths paths of items planned for deleting
+     * @return delete requests covering all planned items
+     */
+    public List<PlannedDelete> coalesce(String repoKey, String top, Collection<String> paths) {
+        Map<String, List<String>> planned = new LinkedHashMap<>();
+        paths.forEach(path -> planned.computeIfAbsent(path, p -> new ArrayList<>()).add(path));
+
+        Set<String> checked = new HashSet<>();
+        List<String> candidates = candidates(planned.keySet(), top, checked);
+
+        while (!candidates.isEmpty()) {
+            checked.addAll(candidates);
+            Map<String, List<String>> children = listChildren(repoKey, candidates);
+
+            for (String folder : candidates) {
+                List<String> folderChildren = children.getOrDefault(folder, Collections.emptyList());
+                if (!folderChildren.isEmpty() && folderChildren.stream()
+                        .allMatch(child -> planned.containsKey(child) || isMetadata(child))) {
+                    List<String> items = folderChildren.stream()
+                            .map(planned::remove)
+                            .filter(Objects::nonNull)
+                            .flatMap(List::stream)
+                            .collect(Collectors.toList());
+                    planned.put(folder, items);
+                    LOGGER.info("Coalesced deletes of {} items into {}/{}", items.size(), repoKey, folder);
+                }
+            }
+
+            candidates = candidates(planned.keySet(), top, checked);
+        }
+
+        return planned.entrySet().stream()
+                .map(e -> new PlannedDelete(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Deepest parent folders under top with at least two planned children, which were not checked yet.
+     */
+    private static List<String> candidates(Collection<String> planned, String top, Set<String> checked) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String path : planned) {
+            String parent = parent(path);
+            if (isUnder(parent, top) && !checked.contains(parent)) {
+                counts.merge(parent, 1, Integer::sum);
+            }
+        }
+
+        List<String> parents = counts.entrySet().stream()
+                .filter(e -> e.getValue() > 1)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        int deepest = parents.stream().mapToInt(DeleteCoalescer::depth).max().orElse(0);
+
+        return parents.stream()
+                .filter(parent -> depth(parent) == deepest)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static int depth(String folder) {
+        int depth = 0;
+        for (int i = folder.indexOf('/'); i != -1; i = folder.indexOf('/', i + 1)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private Map<String, List<String>> listChildren(String repoKey, List<String> folders) {
+        List<FolderChild> children = new ArrayList<>();
+
+        for (int from = 0; from < folders.size(); from += FOLDERS_PER_QUERY) {
+            List<String> batch = folders.subList(from, Math.min(from + FOLDERS_PER_QUERY, folders.size()));
+            String query = batch.stream()
+                    .map(folder -> "{\"path\":\"" + folder + "\"}")
+                    .collect(Collectors.joining(",",
+                            "items.find({\"repo\":\"" + repoKey + "\",\"type\":\"any\",\"$or\":[",
+                            "]}).include(\"repo\",\"path\",\"name\")"));
+            LOGGER.debug("Listing folders with query: {}", query);
+
+            aqlPager.find(query, FolderChild.class, children::add);
+        }
+
+        return children.stream().collect(Collectors.groupingBy(FolderChild::getPath,
+                Collectors.mapping(child -> child.getPath() + "/" + child.getName(), Collectors.toList())));
+    }
+
+    /**
+     * Parent folder of path, empty for the root of repository.
+     *
+     * @param path path of item
+     * @return path of parent folder
+     */
+    public static String parent(String path) {
+        int last = path.lastIndexOf('/');
+        return last == -1 ? "" : path.substring(0, last);
+    }
+
+    private static boolean isUnder(String folder, String top) {
+        return top.isEmpty() ? !folder.isEmpty() : folder.startsWith(top + "/");
+    }
+
+    private static boolean isMetadata(String path) {
+        return path.substring(path.lastIndexOf('/') + 1).startsWith(MAVEN_METADATA);
+    }
+}
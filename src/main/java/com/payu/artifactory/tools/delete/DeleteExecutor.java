@@ -0,0 +1,291 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.delete;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded pool of delete workers shared by all cleaners.
+ *
+ * <p>Every repository has its own queue and workers take tasks from the queues in round-robin order,
+ * so one huge repository can't starve the others. There is one worker for each request allowed by the highest
+ * limit of {@link ConcurrencyLimiter}, each attempt of a task takes a permit of the limiter only while its request
+ * is in flight, so waits between retries don't count as requests.
+ */
+@Slf4j
+public class DeleteExecutor implements AutoCloseable {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Map<String, Queue<DeleteTask>> queues = new HashMap<>();
+    private final Deque<String> ready = new ArrayDeque<>();
+    private final Map<String, DeleteStats> stats = new ConcurrentHashMap<>();
+
+    private final ExecutorService workers;
+    private final ConcurrencyLimiter limiter;
+    private final long started = System.nanoTime();
+    private boolean closed;
+    private boolean summaryLogged;
+
+    public DeleteExecutor(int workerCount) {
+        this(ConcurrencyLimiter.fixed(checkWorkerCount(workerCount)));
+    }
+
+    /**
+     * Executor with one worker for each request allowed by the highest limit.
+     *
+     * @param limiter limiter of requests in flight shared by all repositories
+     */
+    public DeleteExecutor(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+        int workerCount = limiter.getMax();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount,
+                r -> new Thread(r, "delete-worker-" + threadNumber.incrementAndGet()));
+
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+
+        LOGGER.info("Delete executor started with {} workers, limit {}", workerCount, limiter.getLimit());
+    }
+
+    private static int checkWorkerCount(int workerCount) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be positive: " + workerCount);
+        }
+        return workerCount;
+    }
+
+    /**
+     * Queue delete action for given repository.
+     *
+     * @param repoKey repository used for fair queuing and statistics
+     * @param action  blocking delete call
+     * @return future completed when action is finished
+     */
+    public CompletableFuture<Void> submit(String repoKey, Runnable action) {
+        DeleteTask task = new DeleteTask(repoKey, action);
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("delete executor is closed");
+            }
+
+            Queue<DeleteTask> queue = queues.get(repoKey);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queues.put(repoKey, queue);
+                ready.addLast(repoKey);
+            }
+            queue.add(task);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        return task.future;
+    }
+
+    /**
+     * Wait for all given deletes.
+     *
+     * @param futures results of deletes
+     * @return number of failed deletes
+     */
+    public static int awaitAll(List<CompletableFuture<Void>> futures) {
+        int failed = 0;
+        for (CompletableFuture<Void> future : futures) {
+            if (future.handle((v, e) -> e != null).join()) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    private DeleteTask take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (ready.isEmpty()) {
+                if (closed) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+
+            String repoKey = ready.pollFirst();
+            Queue<DeleteTask> queue = queues.get(repoKey);
+            DeleteTask task = queue.poll();
+
+            if (queue.isEmpty()) {
+                queues.remove(repoKey);
+            } else {
+                ready.addLast(repoKey);
+            }
+
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        try {
+            DeleteTask task = take();
+            while (task != null) {
+                run(task);
+                task = take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException") // checked exceptions can be sneaky thrown by Try
+    private void run(DeleteTask task) {
+        DeleteStats repoStats = statsFor(task.repoKey);
+        try {
+            task.action.run();
+            repoStats.success();
+            task.future.complete(null);
+        } catch (Exception e) {
+            repoStats.failure();
+            task.future.completeExceptionally(e);
+        }
+    }
+
+    private DeleteStats statsFor(String repoKey) {
+        return stats.computeIfAbsent(repoKey, k -> new DeleteStats());
+    }
+
+    /**
+     * Drop all queued deletes, deletes in progress are finished.
+     *
+     * <p>Futures of dropped deletes are completed with {@link CancellationException}.
+     */
+    public void cancelPending() {
+        List<DeleteTask> cancelled = new ArrayList<>();
+
+        lock.lock();
+        try {
+            closed = true;
+            queues.values().forEach(cancelled::addAll);
+            queues.clear();
+            ready.clear();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (!cancelled.isEmpty()) {
+            LOGGER.warn("{} queued deletes cancelled", cancelled.size());
+        }
+        CancellationException cancellation = new CancellationException("delete executor is stopping");
+        cancelled.forEach(task -> task.future.completeExceptionally(cancellation));
+    }
+
+    /**
+     * Finish all queued deletes and log the summary.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        workers.shutdown();
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.info("Waiting for delete workers ...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        lock.lock();
+        try {
+            if (summaryLogged) {
+                return;
+            }
+            summaryLogged = true;
+        } finally {
+            lock.unlock();
+        }
+
+        logSummary();
+    }
+
+    private void logSummary() {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long total = 0;
+
+        for (Map.Entry<String, DeleteStats> e : stats.entrySet()) {
+            DeleteStats s = e.getValue();
+            LOGGER.info("Repository {}: deleted {} items, {} failed, {} items/s",
+                    e.getKey(), s.getDeleted(), s.getFailed(), String.format("%.1f", s.getThroughput()));
+            total += s.getDeleted();
+        }
+
+        LOGGER.info("Deleted {} items in {} s, {} items/s, final concurrency limit {}",
+                total, String.format("%.1f", seconds), String.format("%.1f", seconds > 0 ? total / seconds : 0),
+                limiter.getLimit());
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public Map<String, DeleteStats> getStats() {
+        return stats;
+    }
+
+    private static final class DeleteTask {
+        private final String repoKey;
+        private final Runnable action;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private DeleteTask(String repoKey, Runnable action) {
+            this.repoKey = repoKey;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.delete;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of finished deletes, used to resume interrupted run.
+ *
+ * <p>Records are written to memory-mapped regions of the file, so recording a delete doesn't block on disk.
+ * Regions are forced to disk in the background every {@link #SYNC_INTERVAL_MILLIS} and on close.
+ *
+ * <p>Each record is {@code length:int crc:int status:byte repoKeyLength:short repoKey path}, strings are
+ * in UTF-8 and zero length marks the end of journal. Reading stops on the first broken record, which may be left by crash of the machine.
+ */
+@Slf4j
+public class DeleteJournal implements AutoCloseable {
+
+    static final byte DELETED = 1;
+    static final byte FAILED = 2;
+
+    private static final int REGION_SIZE = 4 * 1024 * 1024;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final long SYNC_INTERVAL_MILLIS = 1000;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Set<String> deletedKeys = new HashSet<>();
+    private final ScheduledExecutorService sync;
+    private final int resumed;
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long position;
+    private boolean dirty;
+    private boolean closed;
+    private long failedCount;
+
+    public DeleteJournal(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            position = load();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        resumed = deletedKeys.size();
+        map(position);
+
+        sync = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sync.scheduleWithFixedDelay(this::force, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        if (resumed > 0) {
+            LOGGER.info("Resuming from journal {}, {} deleted items will be skipped", file, resumed);
+        }
+    }
+
+    private long load() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return 0;
+        }
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CRC32 crc = new CRC32();
+
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+
+            byte[] payload = read(buffer, length);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                LOGGER.warn("Broken record in journal {} at {}, the rest is ignored", file, start);
+                buffer.position(start);
+                break;
+            }
+
+            replay(payload);
+        }
+
+        return buffer.position();
+    }
+
+    private static byte[] read(ByteBuffer buffer, int length) {
+        byte[] result = new byte[length];
+        buffer.get(result);
+        return result;
+    }
+
+    private void replay(byte[] payload) {
+        int repoLength = (payload[1] & 0xFF) << 8 | payload[2] & 0xFF;
+        String repoKey = new String(payload, 3, repoLength, StandardCharsets.UTF_8);
+        int pathStart = 3 + repoLength;
+        String path = new String(payload, pathStart, payload.length - pathStart, StandardCharsets.UTF_8);
+
+        if (payload[0] == DELETED) {
+            deletedKeys.add(key(repoKey, path));
+        } else {
+            deletedKeys.remove(key(repoKey, path));
+        }
+    }
+
+    private static String key(String repoKey, String path) {
+        return repoKey + '\n' + path;
+    }
+
+    private void map(long start) throws IOException {
+        regionStart = start;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, REGION_SIZE);
+    }
+
+    /**
+     * Check if item was deleted by previous run.
+     *
+     * @param repoKey repository of item
+     * @param path path of item
+     * @return true when previous run recorded successful delete of item
+     */
+    public synchronized boolean isDeleted(String repoKey, String path) {
+        return deletedKeys.contains(key(repoKey, path));
+    }
+
+    public void recordDeleted(String repoKey, String path) {
+        append(DELETED, repoKey, path);
+    }
+
+    public void recordFailed(String repoKey, String path) {
+        append(FAILED, repoKey, path);
+    }
+
+    private synchronized void append(byte status, String repoKey, String path) {
+        if (closed) {
+            LOGGER.warn("Journal {} is closed, {} of {}/{} not recorded", file, status == DELETED ? "delete" : "failure",
+                    repoKey, path);
+            return;
+        }
+
+        byte[] repo = repoKey.getBytes(StandardCharsets.UTF_8);
+        byte[] name = path.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[1 + 2 + repo.length + name.length];
+        payload[0] = status;
+        payload[1] = (byte) (repo.length >>> 8);
+        payload[2] = (byte) repo.length;
+        System.arraycopy(repo, 0, payload, 3, repo.length);
+        System.arraycopy(name, 0, payload, 3 + repo.length, name.length);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        try {
+            if (region.remaining() < HEADER_SIZE + payload.length + HEADER_SIZE) {
+                region.force();
+                map(position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        region.putInt(payload.length);
+        region.putInt((int) crc.getValue());
+        region.put(payload);
+        position = regionStart + region.position();
+        dirty = true;
+
+        if (status == DELETED) {
+            deletedKeys.add(key(repoKey, path));
+        } else {
+            failedCount++;
+        }
+    }
+
+    /**
+     * Number of deleted items loaded from previous run.
+     *
+     * @return number of items deleted before
+     */
+    public int getResumed() {
+        return resumed;
+    }
+
+    /**
+     * Number of failures recorded by this run.
+     *
+     * @return number of failed deletes
+     */
+    public synchronized long getFailed() {
+        return failedCount;
+    }
+
+    private synchronized void force() {
+        if (dirty && !closed) {
+            region.force();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Force all records to disk and close journal, it will be used by the next run.
+     */
+    @Override
+    public void close() {
+        sync.shutdown();
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            force();
+            closed = true;
+
+            try {
+                channel.truncate(position);
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        LOGGER.info("Journal {} closed", file);
+    }
+
+    /**
+     * Close and remove journal when the whole work is done.
+     */
+    public void discard() {
+        close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOGGER.info("Journal {} removed, all work is done", file);
+    }
+}
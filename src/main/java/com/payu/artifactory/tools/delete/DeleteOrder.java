@@ -0,0 +1,33 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+/**
+ * Order in which selected items are deleted, it decides what is deleted when a run is capped.
+ */
+public enum DeleteOrder {
+
+    /**
+     * The oldest versions first, as they are selected.
+     */
+    VERSION,
+
+    /**
+     * Deletes freeing the most bytes first, sizes of selected folders are found by additional AQL queries.
+     */
+    SIZE
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.delete;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delete counters of one repository.
+ */
+public class DeleteStats {
+
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final long first = System.nanoTime();
+    private final AtomicLong last = new AtomicLong(first);
+
+    void success() {
+        deleted.increment();
+        last.set(System.nanoTime());
+    }
+
+    void failure() {
+        failed.increment();
+        last.set(System.nanoTime());
+    }
+
+    public long getDeleted() {
+        return deleted.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return deleted items per second from first to last finished delete
+     */
+    public double getThroughput() {
+        double seconds = (last.get() - first) / 1e9;
+        return seconds > 0 ? getDeleted() / seconds : 0;
+    }
+}
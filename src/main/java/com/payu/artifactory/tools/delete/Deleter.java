@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Destination of items selected by cleaners for deleting.
+ */
+@FunctionalInterface
+public interface Deleter {
+
+    /**
+     * Delete item from repository.
+     *
+     * @param repoKey repository of item
+     * @param path    path of item in repository
+     * @return future completed when item is deleted
+     */
+    CompletableFuture<Void> delete(String repoKey, String path);
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * File or folder found in folder by AQL query.
+ */
+@Data
+@NoArgsConstructor
+@SuppressWarnings({"PMD.UnusedPrivateField", "PMD.SingularField"}) // false positives
+public class FolderChild {
+
+    /**
+     * Path of parent folder.
+     */
+    private String path;
+
+    private String name;
+
+    /**
+     * Size of file in bytes, included only by queries of sizes.
+     */
+    private long size;
+}
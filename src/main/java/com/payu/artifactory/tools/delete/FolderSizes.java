@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.payu.artifactory.tools.aql.AqlPager;
+import com.payu.artifactory.tools.metrics.JobMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sizes of folders selected for deleting, ie. version, tag or snapshot folders, summed from their files.
+ *
+ * <p>Only files directly in the folder are counted, which covers Maven version folders and docker tag folders.
+ * Docker layers shared by other tags are counted for each tag, although Artifactory stores them once.
+ */
+@Slf4j
+public class FolderSizes {
+
+    /**
+     * Number of folders listed by one AQL query.
+     */
+    static final int FOLDERS_PER_QUERY = 50;
+
+    /**
+     * Sizes which are not found, deletes keep the order in which they were selected.
+     */
+    public static final FolderSizes NONE = new FolderSizes(null);
+
+    private static final Comparator<PlannedDelete> LARGEST_FIRST =
+            Comparator.comparingLong(PlannedDelete::getBytes).reversed();
+
+    private final AqlPager aqlPager;
+
+    public FolderSizes(AqlPager aqlPager) {
+        this.aqlPager = aqlPager;
+    }
+
+    /**
+     * Sizes found by pager when deletes are ordered by size, otherwise {@link #NONE}.
+     *
+     * @param order order of deletes of job
+     * @param aqlPager pager of extra queries finding sizes
+     * @return sizes of folders
+     */
+    public static FolderSizes of(DeleteOrder order, AqlPager aqlPager) {
+        return order == DeleteOrder.SIZE ? new FolderSizes(aqlPager) : NONE;
+    }
+
+    /**
+     * Check if sizes are found, ie. deletes are ordered by size and bytes freed by them are known.
+     *
+     * @return true when sizes are found
+     */
+    public boolean isKnown() {
+        return aqlPager != null;
+    }
+
+    /**
+     * Sum sizes of files in folders of repository.
+     *
+     * @param repoKey repository of folders
+     * @param folders paths of folders
+     * @return bytes by folder path, folders without files are missing
+     */
+    public Map<String, Long> find(String repoKey, Collection<String> folders) {
+        List<String> paths = new ArrayList<>(folders);
+        Map<String, Long> sizes = new HashMap<>();
+
+        for (int from = 0; from < paths.size(); from += FOLDERS_PER_QUERY) {
+            String query = paths.subList(from, Math.min(from + FOLDERS_PER_QUERY, paths.size())).stream()
+                    .map(folder -> "{\"path\":\"" + folder + "\"}")
+                    .collect(Collectors.joining(",",
+                            "items.find({\"repo\":\"" + repoKey + "\",\"type\":\"file\",\"$or\":[",
+                            "]}).include(\"repo\",\"path\",\"name\",\"size\")"));
+            LOGGER.debug("Finding sizes of folders with query: {}", query);
+
+            aqlPager.find(query, FolderChild.class, file -> sizes.merge(file.getPath(), file.getSize(), Long::sum));
+        }
+        return sizes;
+    }
+
+    /**
+     * Candidates up to limit, the largest ones when sizes are known, otherwise the first ones.
+     *
+     * @param <T> type of candidates
+     * @param repoKey repository of folders
+     * @param candidates candidates in their default order
+     * @param folder path of folder deleted for candidate
+     * @param limit highest number of selected candidates
+     * @return selected candidates
+     */
+    public <T> List<T> largest(String repoKey, List<T> candidates, Function<T, String> folder, int limit) {
+        if (!isKnown() || candidates.size() <= limit) {
+            return candidates.stream().limit(limit).collect(Collectors.toList());
+        }
+
+        Map<String, Long> sizes = find(repoKey, candidates.stream().map(folder).collect(Collectors.toList()));
+        return candidates.stream()
+                .sorted(Comparator.comparingLong((T candidate) -> sizes.getOrDefault(folder.apply(candidate), 0L))
+                        .reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Deletes with bytes freed by each of them, the largest first, when sizes are known, otherwise deletes as they are.
+     *
+     * @param repoKey repository of deleted items
+     * @param deletes deletes of one group
+     * @return ordered deletes
+     */
+    public List<PlannedDelete> order(String repoKey, List<PlannedDelete> deletes) {
+        if (!isKnown() || deletes.isEmpty()) {
+            return deletes;
+        }
+        return largestFirst(deletes, find(repoKey, deletes.stream()
+                .flatMap(delete -> delete.getItems().stream())
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * Record bytes freed by job, they are logged only when sizes are known.
+     *
+     * @param metrics metrics of job
+     * @param source repository or name of job in log
+     * @param bytes bytes freed by successful deletes
+     */
+    public void reportReclaimed(JobMetrics metrics, String source, long bytes) {
+        metrics.reclaimed(bytes);
+        if (isKnown()) {
+            LOGGER.info("Reclaimed {} bytes from {}", bytes, source);
+        }
+    }
+
+    /**
+     * Bytes freed by deletes which succeeded.
+     *
+     * @param deletes deletes with bytes freed by each of them
+     * @param requests results of deletes, in the same order
+     * @return sum of bytes of successful deletes
+     */
+    public static long reclaimed(List<PlannedDelete> deletes, List<CompletableFuture<Void>> requests) {
+        long reclaimed = 0;
+        for (int i = 0; i < deletes.size(); i++) {
+            reclaimed += requests.get(i).isCompletedExceptionally() ? 0 : deletes.get(i).getBytes();
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Deletes with bytes freed by each of them, the largest first, deletes of equal size keep their order.
+     *
+     * @param deletes deletes of one group
+     * @param sizes bytes by path of selected item
+     * @return ordered deletes
+     */
+    public static List<PlannedDelete> largestFirst(List<PlannedDelete> deletes, Map<String, Long> sizes) {
+        return deletes.stream()
+                .map(delete -> delete.withBytes(delete.getItems().stream()
+                        .mapToLong(item -> sizes.getOrDefault(item, 0L))
+                        .sum()))
+                .sorted(LARGEST_FIRST)
+                .collect(Collectors.toList());
+    }
+}
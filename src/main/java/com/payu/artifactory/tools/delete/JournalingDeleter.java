@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Record results of deletes in journal and skip items already deleted by previous run.
+ */
+@Slf4j
+public class JournalingDeleter implements Deleter {
+
+    private final Deleter deleter;
+    private final DeleteJournal journal;
+
+    public JournalingDeleter(Deleter deleter, DeleteJournal journal) {
+        this.deleter = deleter;
+        this.journal = journal;
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String repoKey, String path) {
+        if (journal.isDeleted(repoKey, path)) {
+            LOGGER.debug("Already deleted {}/{}", repoKey, path);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return deleter.delete(repoKey, path).whenComplete((v, e) -> {
+            if (e == null) {
+                journal.recordDeleted(repoKey, path);
+            } else if (!isCancelled(e)) {
+                journal.recordFailed(repoKey, path);
+            }
+        });
+    }
+
+    private static boolean isCancelled(Throwable e) {
+        return (e instanceof CompletionException ? e.getCause() : e) instanceof CancellationException;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * One delete request, which removes one or more items selected by cleaner.
+ */
+@Value
+@SuppressWarnings({"PMD.UnusedPrivateField", "PMD.SingularField"}) // false positives, fields are read by getters
+public class PlannedDelete {
+
+    /**
+     * Path deleted by request.
+     */
+    private final String path;
+
+    /**
+     * Paths of selected items removed by request, the path itself when it was not coalesced.
+     */
+    private final List<String> items;
+
+    /**
+     * Bytes freed by request, zero when sizes are not known.
+     */
+    private final long bytes;
+
+    public PlannedDelete(String path, List<String> items) {
+        this(path, items, 0);
+    }
+
+    public PlannedDelete(String path, List<String> items, long bytes) {
+        this.path = path;
+        this.items = items;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Delete of one selected item.
+     *
+     * @param path path of item
+     * @return delete of the item only
+     */
+    public static PlannedDelete of(String path) {
+        return new PlannedDelete(path, Collections.singletonList(path));
+    }
+
+    /**
+     * The same delete freeing given number of bytes.
+     *
+     * @param bytes bytes freed by delete
+     * @return delete of the same items
+     */
+    public PlannedDelete withBytes(long bytes) {
+        return new PlannedDelete(path, items, bytes);
+    }
+}
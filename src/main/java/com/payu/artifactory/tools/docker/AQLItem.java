@@ -14,37 +14,14 @@
  *    limitations under the License.
  *
  */
-
 package com.payu.artifactory.tools.docker;
 
+import com.payu.artifactory.tools.aql.VersionItem;
+
 import lombok.EqualsAndHashCode;
-import lombok.Getter;
 import lombok.NoArgsConstructor;
 
-@Getter
 @NoArgsConstructor
-@EqualsAndHashCode
-@SuppressWarnings({"PMD.UnusedPrivateField", "PMD.SingularField"}) // false positives
-public class AQLItem {
-
-    private String path;
-
-    private String version;
-
-    private String modified;
-
-    public void setPath(String path) {
-        int last = path.lastIndexOf('/');
-
-        if (last == -1) {
-            throw new IllegalArgumentException("no slash character in path " + path);
-        }
-
-        this.path = path.substring(0, last);
-        this.version = path.substring(last + 1);
-    }
-
-    public void setModified(String modified) {
-        this.modified = modified;
-    }
+@EqualsAndHashCode(callSuper = true)
+public class AQLItem extends VersionItem {
 }
@@ -17,48 +17,81 @@
 
 package com.payu.artifactory.tools.docker;
 
+import com.payu.artifactory.tools.aql.AqlPager;
+import com.payu.artifactory.tools.aql.AqlSearch;
+import com.payu.artifactory.tools.aql.ItemColumns;
+import com.payu.artifactory.tools.aql.PathTrie;
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.deadline.DeadlineExceededException;
+import com.payu.artifactory.tools.delete.DeleteOrder;
+import com.payu.artifactory.tools.delete.Deleter;
+import com.payu.artifactory.tools.delete.FolderSizes;
+import com.payu.artifactory.tools.delete.PlannedDelete;
+import com.payu.artifactory.tools.incremental.ItemSource;
+import com.payu.artifactory.tools.incremental.WatermarkStore;
+import com.payu.artifactory.tools.inventory.InventoryStore;
+import com.payu.artifactory.tools.metrics.JobMetrics;
+import com.payu.artifactory.tools.pipeline.CleanerPipeline;
+import com.payu.artifactory.tools.transport.ArtifactoryTransport;
+import com.payu.artifactory.tools.transport.ClientTransport;
 import io.github.resilience4j.retry.Retry;
-import io.vavr.control.Try;
 import lombok.extern.slf4j.Slf4j;
 import org.jfrog.artifactory.client.Artifactory;
-import org.jfrog.artifactory.client.ArtifactoryRequest;
-import org.jfrog.artifactory.client.impl.ArtifactoryRequestImpl;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Slf4j
 public class DockerImagesCleaner {
 
-    private final Artifactory artifactory;
+    private ArtifactoryTransport transport;
     private final Retry retry;
+    private final Deleter deleter;
+    private final int pageSize;
     private final String repoKey;
     private final int tagsToKeep;
-    private final List<Pattern> filters = new ArrayList<>();
+    private final FilterMatcher filters;
+
+    private final String job;
+
+    private WatermarkStore watermarks;
+    private InventoryStore inventories;
+    private JobMetrics metrics = JobMetrics.NONE;
+    private int pendingDeletes = CleanerPipeline.DEFAULT_PENDING_DELETES;
+    private int planningParallelism = 1;
+    private DeleteOrder deleteOrder = DeleteOrder.VERSION;
+    private Deadline deadline = Deadline.NONE;
 
     public DockerImagesCleaner(
-            Artifactory artifactory, Retry retry, String repoKey, int tagsToKeep, String filterFile
+            Artifactory artifactory, Retry retry, Deleter deleter, int pageSize,
+            String repoKey, int tagsToKeep, String filterFile
     ) {
         this.retry = retry;
+        Objects.requireNonNull(deleter, "deleter must be set");
+        this.deleter = deleter;
+        this.pageSize = pageSize;
         Objects.requireNonNull(artifactory, "artifactory must be set");
-        this.artifactory = artifactory;
+        this.transport = new ClientTransport(artifactory);
         this.repoKey = repoKey;
         this.tagsToKeep = tagsToKeep;
+        this.job = "docker:" + repoKey;
 
         LOGGER.info("Acting upon {} repo and keeping {} newest tags", repoKey, tagsToKeep);
 
+        this.filters = new FilterMatcher(readFilters(filterFile));
+    }
+
+    private static List<String> readFilters(String filterFile) {
+        List<String> lines = new ArrayList<>();
+
         if (filterFile != null) {
             LOGGER.info("Using filter file {}", filterFile);
 
@@ -66,101 +99,170 @@ public class DockerImagesCleaner {
                 stream
                         .filter(l -> !l.isEmpty())
                         .filter(l -> l.charAt(0) != '#')
-                        .map(l -> Pattern.compile(l))
-                        .forEach(filters::add);
+                        .forEach(lines::add);
             } catch (IOException e) {
                 throw new IllegalArgumentException(e);
             }
 
-            LOGGER.info("Loaded {} filters", filters.size());
+            LOGGER.info("Loaded {} filters", lines.size());
         }
+
+        return lines;
     }
 
-    @SuppressWarnings("PMD.GuardLogStatementJavaUtil") // false positive
-    public void execute() {
-        String itemsQuery = "items.find({\"$and\": [{\"repo\": \""
-                + repoKey
-                + "\"},{\"name\": \"manifest.json\"}]}).include(\"repo\",\"path\",\"name\",\"modified\")";
-
-        LOGGER.info("Finding docker items with query: {}", itemsQuery);
-
-        ArtifactoryRequest request = new ArtifactoryRequestImpl()
-                .method(ArtifactoryRequest.Method.POST)
-                .apiUrl("api/search/aql")
-                .requestType(ArtifactoryRequest.ContentType.TEXT)
-                .responseType(ArtifactoryRequest.ContentType.JSON)
-                .requestBody(itemsQuery);
-
-        AQLItems items = Try.of(
-                Retry.decorateCheckedSupplier(
-                        retry,
-                        () -> artifactory
-                                .restCall(request)
-                                .parseBody(AQLItems.class)
-                )
-        ).get();
-
-        Map<String, List<AQLItem>> pv = items.getResults().stream().collect(
-                Collectors.groupingBy(AQLItem::getPath, Collectors.toList())
-        );
-
-        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US);
-
-        pv.forEach(
-                (image, versions) -> {
-                    versions.sort(new Comparator<AQLItem>() {
-                        @Override
-                        public int compare(AQLItem i1, AQLItem i2) {
-                            try {
-                                return format.parse(i2.getModified()).compareTo(format.parse(i1.getModified()));
-                            } catch (ParseException e) {
-                                throw new IllegalArgumentException(e);
-                            }
-                        }
-                    });
-
-                    if (LOGGER.isInfoEnabled()) {
-                        LOGGER.info("Processing image {}", image);
-                        LOGGER.info(
-                                "Newest tags:{}",
-                                versions.stream()
-                                        .limit(tagsToKeep)
-                                        .map(i -> i.getVersion()).reduce("", (s, e) -> s + " " + e)
-                        );
-                    }
-
-                    versions.stream().skip(tagsToKeep).forEach(
-                            item -> {
-                                if (isFiltered(item.getPath() + "/" + item.getVersion())) {
-                                    LOGGER.info("Filtered {}", item.getVersion());
-                                } else {
-                                    deleteTag(image, item.getVersion());
-                                }
-                            }
-                    );
-                }
-        );
+    /**
+     * Enable incremental run, only images with tags modified since the previous run are evaluated.
+     *
+     * @param watermarks watermarks of jobs, {@code null} for full scan
+     */
+    public void setWatermarks(WatermarkStore watermarks) {
+        this.watermarks = watermarks;
+    }
+
+    /**
+     * Plan from local inventory of repository, kept up to date by scanning only items changed since
+     * the previous run.
+     *
+     * @param inventories inventories of jobs, {@code null} to plan from AQL results
+     */
+    public void setInventories(InventoryStore inventories) {
+        this.inventories = inventories;
+    }
+
+    public void setMetrics(JobMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Send AQL queries by other transport than Artifactory client.
+     *
+     * @param transport transport of AQL queries
+     */
+    public void setTransport(ArtifactoryTransport transport) {
+        this.transport = transport;
     }
 
-    private boolean isFiltered(String path) {
-        boolean filtered = false;
+    /**
+     * Highest number of deletes of this job queued or in flight, planning waits when it is reached.
+     *
+     * @param pendingDeletes highest number of pending deletes
+     */
+    public void setPendingDeletes(int pendingDeletes) {
+        this.pendingDeletes = pendingDeletes;
+    }
+
+    /**
+     * Number of groups planned at the same time.
+     *
+     * @param planningParallelism number of planning threads
+     */
+    public void setPlanningParallelism(int planningParallelism) {
+        this.planningParallelism = planningParallelism;
+    }
+
+    /**
+     * Stop reading and planning when deadline of job is reached, deletes already planned are finished.
+     *
+     * @param deadline deadline of job
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
 
-        for (Pattern p : filters) {
-            if (p.matcher(path).matches()) {
-                filtered = true;
-                break;
+    /**
+     * Order of deletes of each image, by size they also report bytes reclaimed.
+     *
+     * @param deleteOrder order of deletes
+     */
+    public void setDeleteOrder(DeleteOrder deleteOrder) {
+        this.deleteOrder = deleteOrder;
+    }
+
+    public void execute() {
+        AqlPager aqlPager = new AqlPager(new AqlSearch(transport, retry, metrics), pageSize, deadline);
+        ItemSource<AQLItem> items =
+                new ItemSource<>(job, aqlPager, AQLItem.class, AQLItem::new, this::getItemsQuery, watermarks, inventories);
+
+        FolderSizes sizes = FolderSizes.of(deleteOrder, aqlPager);
+        PathTrie paths = items.getPaths();
+        // each batch of groups is planned from its own store, while the next batch is read into a new one
+        AtomicReference<ItemColumns> tags = new AtomicReference<>(new ItemColumns(paths));
+
+        try (CleanerPipeline<ItemColumns.Rows> pipeline = new CleanerPipeline<>(job, repoKey, deleter, pendingDeletes,
+                planningParallelism, deadline, (image, imageTags) -> planTags(image, imageTags, sizes))) {
+            boolean read = items.forEach(item -> tags.get().add(item), () -> tags.getAndSet(new ItemColumns(paths))
+                    .groupByPath().forEach(image -> pipeline.plan(image.getPath(), image)));
+            pipeline.finish();
+            sizes.reportReclaimed(metrics, repoKey, pipeline.getReclaimed());
+
+            int failed = pipeline.getFailed();
+            boolean stopped = !read || pipeline.isStopped();
+            items.finish(pipeline.getDeleted(), failed == 0 && !stopped);
+
+            if (stopped) {
+                throw new DeadlineExceededException(job + " stopped after deleting " + pipeline.getDeleted().size()
+                        + " tags, the rest is left for the next run");
+            }
+
+            if (failed > 0) {
+                LOGGER.warn("{} of {} tags could not be deleted from {}", failed, pipeline.getSubmitted(), repoKey);
             }
         }
+    }
 
-        return filtered;
+    /**
+     * Deletes of tags of image.
+     *
+     * @param sizes sizes of tag folders, deletes are ordered by them when known
+     */
+    private List<PlannedDelete> planTags(String image, ItemColumns.Rows imageTags, FolderSizes sizes) {
+        List<String> tags = selectTagsToDelete(image, imageTags, tagsToKeep, filters).stream()
+                .map(tag -> InventoryStore.key(image, tag))
+                .collect(Collectors.toList());
+        return sizes.order(repoKey, tags.stream().map(PlannedDelete::of).collect(Collectors.toList()));
     }
 
-    private void deleteTag(String imageName, String tag) {
-        LOGGER.info("Delete tag {}", tag);
+    private String getItemsQuery(String criteria) {
+        return "items.find({\"$and\": [{\"repo\": \""
+                + repoKey
+                + "\"},{\"name\": \"manifest.json\"}"
+                + (criteria == null ? "" : "," + criteria)
+                + "]}).include(\"repo\",\"path\",\"name\",\"created\",\"modified\",\"size\")";
+    }
 
-        Try.of(Retry.decorateCheckedSupplier(retry,
-                () -> artifactory
-                        .repository(repoKey)
-                        .delete(imageName + "/" + tag)));
+    /**
+     * Select tags of one image which are neither the newest ones nor filtered.
+     *
+     * @param tags rows of image, the newest ones are moved to the beginning
+     */
+    @SuppressWarnings("PMD.GuardLogStatementJavaUtil") // false positive
+    static List<String> selectTagsToDelete(String image, ItemColumns.Rows tags, int tagsToKeep,
+            FilterMatcher filters) {
+        ItemColumns columns = tags.getColumns();
+        int newest = tags.top(tagsToKeep, (row, other) -> {
+            int result = Long.compare(columns.getModified(other), columns.getModified(row));
+            return result != 0 ? result : columns.getVersion(other).compareTo(columns.getVersion(row));
+        });
+
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Processing image {}", image);
+            StringBuilder newestTags = new StringBuilder();
+            for (int i = 0; i < newest; i++) {
+                newestTags.append(' ').append(columns.getVersion(tags.get(i)));
+            }
+            LOGGER.info("Newest tags:{}", newestTags);
+        }
+
+        List<String> result = new ArrayList<>();
+        Predicate<String> isFiltered = filters.forImage(image);
+        for (int i = newest; i < tags.size(); i++) {
+            String version = columns.getVersion(tags.get(i));
+            if (isFiltered.test(version)) {
+                LOGGER.info("Filtered {}", version);
+            } else {
+                result.add(version);
+            }
+        }
+        return result;
     }
 }
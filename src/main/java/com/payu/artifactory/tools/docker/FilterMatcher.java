@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.docker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * All filters from docker filter file compiled into one matcher.
+ *
+ * <p>Each filter must match whole path of tag, eg. {@code image/name/tag}. Filters which are plain literals
+ * or literals followed by {@code .*} are kept in a prefix trie. Other filters are joined into one alternation,
+ * only filters using group references are checked one by one.
+ */
+class FilterMatcher {
+
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+    private static final String ANY_SUFFIX = ".*";
+    private static final Pattern GROUP_REFERENCE = Pattern.compile("\\\\[1-9]|\\\\k<|\\(\\?<[a-zA-Z]");
+
+    private final Node literals = new Node();
+    private final List<Pattern> patterns = new ArrayList<>();
+
+    FilterMatcher(List<String> filters) {
+        List<String> alternatives = new ArrayList<>();
+
+        for (String filter : filters) {
+            if (!addLiteral(filter)) {
+                if (GROUP_REFERENCE.matcher(filter).find()) {
+                    patterns.add(Pattern.compile(filter));
+                } else {
+                    // fail on the broken filter itself, not on the whole alternation
+                    Pattern.compile(filter);
+                    alternatives.add(filter);
+                }
+            }
+        }
+
+        if (!alternatives.isEmpty()) {
+            patterns.add(0, Pattern.compile(alternatives.stream()
+                    .map(filter -> "(?:" + filter + ")")
+                    .collect(Collectors.joining("|"))));
+        }
+    }
+
+    boolean matches(String path) {
+        return literals.matches(path) || patterns.stream().anyMatch(p -> p.matcher(path).matches());
+    }
+
+    /**
+     * Matcher of tags of one image.
+     *
+     * <p>Filters are evaluated against image path once, filters which cannot match any tag of image are skipped
+     * for all its tags.
+     */
+    Predicate<String> forImage(String image) {
+        String imagePath = image + "/";
+
+        Node node = literals;
+        for (int i = 0; i < imagePath.length() && node != null; i++) {
+            if (node.prefix) {
+                return tag -> true;
+            }
+            node = node.children.get(imagePath.charAt(i));
+        }
+        Node tagLiterals = node;
+
+        List<Pattern> candidates = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            Matcher matcher = pattern.matcher(imagePath);
+            if (matcher.matches() || matcher.hitEnd()) {
+                candidates.add(pattern);
+            }
+        }
+
+        if (tagLiterals == null && candidates.isEmpty()) {
+            return tag -> false;
+        }
+
+        return tag -> tagLiterals != null && tagLiterals.matches(tag)
+                || candidates.stream().anyMatch(p -> p.matcher(imagePath + tag).matches());
+    }
+
+    /**
+     * Add filter to trie when it is a literal, optionally followed by {@code .*}.
+     */
+    private boolean addLiteral(String filter) {
+        boolean prefix = filter.endsWith(ANY_SUFFIX) && !filter.endsWith("\\" + ANY_SUFFIX);
+        String body = prefix ? filter.substring(0, filter.length() - ANY_SUFFIX.length()) : filter;
+
+        StringBuilder literal = new StringBuilder(body.length());
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\\' && i + 1 < body.length() && !Character.isLetterOrDigit(body.charAt(i + 1))) {
+                literal.append(body.charAt(++i));
+            } else if (METACHARACTERS.indexOf(c) >= 0) {
+                return false;
+            } else {
+                literal.append(c);
+            }
+        }
+
+        Node node = literals;
+        for (int i = 0; i < literal.length(); i++) {
+            node = node.child(literal.charAt(i));
+        }
+        if (prefix) {
+            node.prefix = true;
+        } else {
+            node.exact = true;
+        }
+        return true;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private boolean prefix;
+        private boolean exact;
+
+        private Node child(char c) {
+            return children.computeIfAbsent(c, k -> new Node());
+        }
+
+        private boolean matches(String path) {
+            Node node = this;
+            for (int i = 0; i < path.length(); i++) {
+                if (node.prefix) {
+                    return true;
+                }
+                node = node.children.get(path.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.prefix || node.exact;
+        }
+    }
+}
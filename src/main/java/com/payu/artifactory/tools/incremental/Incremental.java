@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.incremental;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import com.payu.artifactory.tools.aql.AqlDates;
+
+/**
+ * Helpers for querying only the groups of items changed since the last run.
+ */
+public final class Incremental {
+
+    /**
+     * Number of changed groups re-read by one AQL query.
+     */
+    public static final int GROUPS_PER_QUERY = 50;
+
+    /**
+     * Items modified shortly before watermark are queried again, so items which were not visible
+     * yet when the watermark was taken are not missed.
+     */
+    public static final long OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private Incremental() {
+    }
+
+    /**
+     * AQL criteria of items modified since watermark.
+     *
+     * @param watermark watermark of the previous run
+     * @return AQL criteria
+     */
+    public static String modifiedSince(Watermark watermark) {
+        return "{\"modified\":{\"$gt\":\"" + AqlDates.format(watermark.getModified() - OVERLAP_MILLIS) + "\"}}";
+    }
+
+    /**
+     * AQL criteria matching all items under any of given paths.
+     *
+     * @param paths paths of folders
+     * @return AQL criteria
+     */
+    public static String underAnyPath(List<String> paths) {
+        return paths.stream()
+                .map(path -> "{\"path\":{\"$match\":\"" + path + "/*\"}}")
+                .collect(Collectors.joining(",", "{\"$or\":[", "]}"));
+    }
+
+    /**
+     * Watermark of run which started at {@code run} and saw items modified up to {@code newestSeen}.
+     *
+     * <p>The older of both times is used, so neither clock skew nor items added while the run was reading
+     * are skipped by the next run.
+     *
+     * @param previous watermark of the previous run
+     * @param run start time of the run in epoch millis
+     * @param newestSeen the newest modification time seen by the run, {@link Long#MIN_VALUE} when nothing was seen
+     * @return watermark of the next run
+     */
+    public static Watermark next(Optional<Watermark> previous, long run, long newestSeen) {
+        if (newestSeen == Long.MIN_VALUE) {
+            return new Watermark(previous.map(Watermark::getModified).orElse(run), run);
+        }
+        return new Watermark(Math.min(newestSeen, run), run);
+    }
+
+    /**
+     * Call action for consecutive batches of {@link #GROUPS_PER_QUERY} groups.
+     *
+     * @param groups paths of groups
+     * @param action called with each batch
+     */
+    public static void forEachBatch(Collection<String> groups, Consumer<List<String>> action) {
+        List<String> all = new ArrayList<>(groups);
+        for (int from = 0; from < all.size(); from += GROUPS_PER_QUERY) {
+            action.accept(all.subList(from, Math.min(from + GROUPS_PER_QUERY, all.size())));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.incremental;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.payu.artifactory.tools.aql.AqlPager;
+import com.payu.artifactory.tools.aql.PathTrie;
+import com.payu.artifactory.tools.aql.VersionItem;
+import com.payu.artifactory.tools.deadline.DeadlineExceededException;
+import com.payu.artifactory.tools.inventory.InventoryReader;
+import com.payu.artifactory.tools.inventory.InventoryStore;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Items of one cleaner job, grouped by path, eg. tags by image.
+ *
+ * <p>Items are read from local inventory refreshed with items changed since watermark when inventories are enabled.
+ * Otherwise all items of groups changed since watermark are read, or all items of repository when there is
+ * no watermark. Paths of all passed items are interned in one {@link PathTrie} of the job.
+ */
+@Slf4j
+public class ItemSource<T extends VersionItem> {
+
+    private final String job;
+    private final AqlPager aqlPager;
+    private final Class<T> itemType;
+    private final Supplier<T> factory;
+    private final Function<String, String> query;
+    private final WatermarkStore watermarks;
+    private final InventoryStore inventories;
+
+    private final long run = System.currentTimeMillis();
+    private final Optional<Watermark> watermark;
+    private final LongAccumulator newestSeen = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    private final PathTrie paths = new PathTrie();
+    private InventoryReader inventory;
+
+    /**
+     * @param job name of job
+     * @param aqlPager pager of AQL queries
+     * @param itemType class items are parsed to
+     * @param factory creates items read from inventory
+     * @param query AQL query of items matching additional criteria, criteria are {@code null} for all items
+     * @param watermarks watermarks of incremental runs, {@code null} when disabled
+     * @param inventories inventories of jobs, {@code null} when disabled
+     */
+    public ItemSource(String job, AqlPager aqlPager, Class<T> itemType, Supplier<T> factory,
+            Function<String, String> query, WatermarkStore watermarks, InventoryStore inventories) {
+        this.job = job;
+        this.aqlPager = aqlPager;
+        this.itemType = itemType;
+        this.factory = factory;
+        this.query = query;
+        this.watermarks = watermarks;
+        this.inventories = inventories;
+        this.watermark = watermarks == null ? Optional.empty() : watermarks.get(job);
+    }
+
+    /**
+     * Pass each item to consumer and tell when all items of groups passed so far were read, it may be called only once.
+     *
+     * <p>Groups are complete after each batch of changed groups in incremental run, otherwise only after all items.
+     * Order of AQL results is given by collation of Artifactory database, so it can't tell when a group is complete.
+     * Even sorted pages don't: items of nested groups, eg. image {@code app/base} under image {@code app}, sort between
+     * items of the outer group, and collation may ignore case or punctuation. Group planned before all its items are
+     * read could lose items kept by its rules, eg. snapshot folder coalesced with snapshots not read yet, so a full
+     * scan is read whole before its groups are planned.
+     *
+     * @param consumer consumer of items
+     * @param groupsComplete called when no more items of groups passed so far will follow
+     * @return false when reading was stopped by deadline of job, groups passed since the last call
+     *         of {@code groupsComplete} are incomplete then and must not be planned
+     */
+    public boolean forEach(Consumer<T> consumer, Runnable groupsComplete) {
+        try {
+            read(consumer, groupsComplete);
+            return true;
+        } catch (DeadlineExceededException e) {
+            LOGGER.warn("Reading items of {} stopped: {}", job, e.getMessage());
+            return false;
+        }
+    }
+
+    private void read(Consumer<T> consumer, Runnable groupsComplete) {
+        if (inventories != null) {
+            inventory = inventories.refresh(job, watermark, (criteria, writer) -> find(criteria,
+                    item -> writer.add(item.getPath(), item.getVersion(), item.getCreated(), item.getModified(),
+                            item.getSize())));
+            for (int row = 0; row < inventory.size(); row++) {
+                consumer.accept(item(row));
+            }
+            groupsComplete.run();
+        } else if (watermark.isPresent()) {
+            Set<String> groups = new HashSet<>();
+            find(Incremental.modifiedSince(watermark.get()), item -> groups.add(item.getPath()));
+            LOGGER.info("{} groups of {} changed since last run", groups.size(), job);
+
+            Incremental.forEachBatch(groups, batch -> {
+                findGroups(batch, consumer);
+                groupsComplete.run();
+            });
+        } else {
+            find(null, consumer);
+            groupsComplete.run();
+        }
+    }
+
+    /**
+     * Folders of passed items, groups of items can be indexed by their nodes.
+     *
+     * @return folder trie of job
+     */
+    public PathTrie getPaths() {
+        return paths;
+    }
+
+    private T item(int row) {
+        T item = factory.get();
+        item.set(inventory.getGroup(row), inventory.getVersion(row), inventory.getCreated(row),
+                inventory.getModified(row), inventory.getSize(row));
+        item.intern(paths);
+        return item;
+    }
+
+    private void find(String criteria, Consumer<T> consumer) {
+        String itemsQuery = query.apply(criteria);
+        LOGGER.info("Finding items of {} with query: {}", job, itemsQuery);
+
+        aqlPager.find(itemsQuery, itemType, item -> {
+            newestSeen.accumulate(item.getModified());
+            item.intern(paths);
+            consumer.accept(item);
+        });
+    }
+
+    /**
+     * Read all items of given groups, items of nested groups matched by the query are skipped.
+     */
+    private void findGroups(List<String> groups, Consumer<T> consumer) {
+        Set<String> wanted = new HashSet<>(groups);
+        String itemsQuery = query.apply(Incremental.underAnyPath(groups));
+        LOGGER.info("Finding items of {} changed groups of {} with query: {}", groups.size(), job, itemsQuery);
+
+        aqlPager.find(itemsQuery, itemType, item -> {
+            if (wanted.contains(item.getPath())) {
+                item.intern(paths);
+                consumer.accept(item);
+            }
+        });
+    }
+
+    /**
+     * Save inventory without deleted items and advance watermark when all work of job is done.
+     *
+     * @param deleted inventory keys of deleted items
+     * @param complete false when some items are left for the next run, eg. their delete failed
+     */
+    public void finish(Set<String> deleted, boolean complete) {
+        if (inventory != null) {
+            inventories.save(job, inventory, deleted);
+        }
+        if (complete && watermarks != null) {
+            watermarks.put(job, Incremental.next(watermark, run, newestSeen.get()));
+        }
+    }
+}
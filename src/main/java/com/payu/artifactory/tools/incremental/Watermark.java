@@ -1,5 +1,5 @@
 /*
- * Copyright 2023 PayU
+ * Copyright 2019 PayU
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -14,16 +14,24 @@
  *    limitations under the License.
  *
  */
+package com.payu.artifactory.tools.incremental;
 
-package com.payu.artifactory.tools.releases;
+import lombok.Value;
 
-import java.util.Set;
-
-import lombok.Getter;
-
-@Getter
+/**
+ * State of the last complete run of one cleaner job.
+ */
+@Value
 @SuppressWarnings("PMD.UnusedPrivateField") // false positive
-public class AQLItemsPath {
+public class Watermark {
+
+    /**
+     * The newest modification time of items seen by the run, in epoch millis.
+     */
+    private final long modified;
 
-    private Set<AQLItemPath> results;
+    /**
+     * Start time of the run, in epoch millis.
+     */
+    private final long run;
 }
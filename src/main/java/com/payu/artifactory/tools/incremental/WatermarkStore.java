@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.incremental;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Properties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watermarks of cleaner jobs persisted between runs.
+ *
+ * <p>Each job is stored as {@code job = modified,run}.
+ */
+@Slf4j
+public class WatermarkStore {
+
+    private final Path file;
+    private final Properties properties = new Properties();
+
+    public WatermarkStore(Path file) {
+        this.file = file;
+
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            LOGGER.info("Loaded {} watermarks from {}", properties.size(), file);
+        } else {
+            LOGGER.info("No watermarks in {}, all jobs will do full scan", file);
+        }
+    }
+
+    public synchronized Optional<Watermark> get(String job) {
+        return Optional.ofNullable(properties.getProperty(job)).map(value -> {
+            String[] parts = value.split(",");
+            return new Watermark(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        });
+    }
+
+    public synchronized void put(String job, Watermark watermark) {
+        properties.setProperty(job, watermark.getModified() + "," + watermark.getRun());
+    }
+
+    /**
+     * Write watermarks to file, the previous file is replaced atomically.
+     */
+    public synchronized void save() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "artifactory-cleaner watermarks");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOGGER.info("Saved {} watermarks to {}", properties.size(), file);
+    }
+}
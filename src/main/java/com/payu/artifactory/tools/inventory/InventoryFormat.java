@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.inventory;
+
+/**
+ * Layout of inventory file.
+ *
+ * <p>File starts with header {@code magic:int built:long rows:int groups:int versions:int}, followed by
+ * dictionary of group paths and dictionary of versions. Each dictionary is {@code offsets:int[count + 1]}
+ * and UTF-8 bytes of all entries. Columns follow, one value per row: {@code group:int[] version:int[]
+ * created:long[] modified:long[] size:long[]}, group and version are ids in their dictionaries.
+ */
+final class InventoryFormat {
+
+    static final int MAGIC = 0x41434931;
+
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + 3 * Integer.BYTES;
+
+    private InventoryFormat() {
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.inventory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Inventory file mapped to memory.
+ *
+ * <p>Columns are read in place by row number, so rows are never copied to heap. Strings are decoded
+ * on first use of each dictionary entry and shared by all rows. Reader is not thread-safe.
+ */
+public final class InventoryReader {
+
+    private final ByteBuffer buffer;
+    private final long built;
+    private final int rows;
+    private final Dictionary groups;
+    private final Dictionary versions;
+    private final int groupColumn;
+    private final int versionColumn;
+    private final int createdColumn;
+    private final int modifiedColumn;
+    private final int sizeColumn;
+
+    private InventoryReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < InventoryFormat.HEADER_SIZE || buffer.getInt(0) != InventoryFormat.MAGIC) {
+            throw new IOException("not an inventory file");
+        }
+
+        built = buffer.getLong(Integer.BYTES);
+        rows = buffer.getInt(Integer.BYTES + Long.BYTES);
+        groups = new Dictionary(buffer, InventoryFormat.HEADER_SIZE, buffer.getInt(Integer.BYTES * 2 + Long.BYTES));
+        versions = new Dictionary(buffer, groups.end(), buffer.getInt(Integer.BYTES * 3 + Long.BYTES));
+
+        groupColumn = versions.end();
+        versionColumn = groupColumn + rows * Integer.BYTES;
+        createdColumn = versionColumn + rows * Integer.BYTES;
+        modifiedColumn = createdColumn + rows * Long.BYTES;
+        sizeColumn = modifiedColumn + rows * Long.BYTES;
+
+        if (sizeColumn + rows * Long.BYTES != buffer.capacity()) {
+            throw new IOException("inventory file is truncated");
+        }
+    }
+
+    public static InventoryReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new InventoryReader(buffer);
+        }
+    }
+
+    /**
+     * Time of the full scan the inventory was built from, in epoch millis.
+     *
+     * @return time of full scan
+     */
+    public long getBuilt() {
+        return built;
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    public String getGroup(int row) {
+        return groups.get(buffer.getInt(groupColumn + row * Integer.BYTES));
+    }
+
+    public String getVersion(int row) {
+        return versions.get(buffer.getInt(versionColumn + row * Integer.BYTES));
+    }
+
+    public long getCreated(int row) {
+        return buffer.getLong(createdColumn + row * Long.BYTES);
+    }
+
+    public long getModified(int row) {
+        return buffer.getLong(modifiedColumn + row * Long.BYTES);
+    }
+
+    public long getSize(int row) {
+        return buffer.getLong(sizeColumn + row * Long.BYTES);
+    }
+
+    private static final class Dictionary {
+        private final ByteBuffer buffer;
+        private final int offsets;
+        private final int values;
+        private final String[] decoded;
+
+        private Dictionary(ByteBuffer buffer, int start, int count) throws IOException {
+            this.buffer = buffer;
+            this.offsets = start;
+            this.values = start + (count + 1) * Integer.BYTES;
+            if (count < 0 || values > buffer.capacity()) {
+                throw new IOException("inventory file is truncated");
+            }
+            this.decoded = new String[count];
+        }
+
+        private int end() {
+            return values + buffer.getInt(offsets + decoded.length * Integer.BYTES);
+        }
+
+        private String get(int id) {
+            String result = decoded[id];
+            if (result == null) {
+                int from = buffer.getInt(offsets + id * Integer.BYTES);
+                int to = buffer.getInt(offsets + (id + 1) * Integer.BYTES);
+                ByteBuffer value = buffer.duplicate();
+                value.position(values + from).limit(values + to);
+                result = StandardCharsets.UTF_8.decode(value).toString();
+                decoded[id] = result;
+            }
+            return result;
+        }
+    }
+}
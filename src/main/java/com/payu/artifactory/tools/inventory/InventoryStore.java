@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import com.payu.artifactory.tools.incremental.Incremental;
+import com.payu.artifactory.tools.incremental.Watermark;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Directory with one inventory file per cleaner job.
+ *
+ * <p>Each run builds a staged inventory used for planning. After deletes the staged inventory without
+ * deleted items replaces the inventory of the job, so the next run starts from the current state.
+ */
+@Slf4j
+public class InventoryStore {
+
+    private static final String SUFFIX = ".inventory";
+    private static final String STAGED_SUFFIX = ".staged";
+
+    private final Path directory;
+    private final boolean save;
+    private final long reconcileMillis;
+
+    /**
+     * @param directory directory of inventory files
+     * @param save false when inventories must not be changed, eg. when only plan is written
+     * @param reconcileMillis age of inventory after which the full scan is done again
+     */
+    public InventoryStore(Path directory, boolean save, long reconcileMillis) {
+        this.directory = directory;
+        this.save = save;
+        this.reconcileMillis = reconcileMillis;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Key of one row, used to find rows replaced or removed by the run.
+     *
+     * @param group path of group
+     * @param version version in group
+     * @return key of row
+     */
+    public static String key(String group, String version) {
+        return group + '/' + version;
+    }
+
+    /**
+     * Inventory of job, empty when it should be built by full scan.
+     *
+     * @param job name of job
+     * @return inventory of the previous run
+     */
+    public Optional<InventoryReader> load(String job) {
+        Path file = file(job, SUFFIX);
+        if (!Files.exists(file)) {
+            LOGGER.info("No inventory of {}, full scan is needed", job);
+            return Optional.empty();
+        }
+
+        InventoryReader reader;
+        try {
+            reader = InventoryReader.open(file);
+        } catch (IOException e) {
+            LOGGER.warn("Inventory {} cannot be read, full scan is needed", file, e);
+            return Optional.empty();
+        }
+
+        if (System.currentTimeMillis() - reader.getBuilt() > reconcileMillis) {
+            LOGGER.info("Inventory of {} is due to reconcile, full scan is needed", job);
+            return Optional.empty();
+        }
+
+        LOGGER.info("Loaded inventory of {} with {} items", job, reader.size());
+        return Optional.of(reader);
+    }
+
+    /**
+     * Build inventory used for planning of this run.
+     *
+     * <p>With watermark of the previous run and its inventory only items changed since the watermark are scanned,
+     * they replace their previous rows. Otherwise the whole repository is scanned.
+     *
+     * @param job name of job
+     * @param watermark watermark of the previous run
+     * @param scan called once with AQL criteria of changed items, {@code null} for full scan, and writer of found items
+     * @return staged inventory of this run
+     */
+    public InventoryReader refresh(String job, Optional<Watermark> watermark, BiConsumer<String, InventoryWriter> scan) {
+        Optional<InventoryReader> previous = watermark.isPresent() ? load(job) : Optional.empty();
+
+        InventoryWriter writer = new InventoryWriter();
+        scan.accept(previous.isPresent() ? Incremental.modifiedSince(watermark.get()) : null, writer);
+
+        if (previous.isPresent()) {
+            InventoryReader reader = previous.get();
+            Set<String> changed = writer.keys();
+            LOGGER.info("{} items of {} changed since last run", changed.size(), job);
+            writer.addAll(reader, row -> !changed.contains(key(reader.getGroup(row), reader.getVersion(row))));
+        }
+
+        return stage(job, writer);
+    }
+
+    /**
+     * Write inventory used for planning of this run.
+     */
+    InventoryReader stage(String job, InventoryWriter writer) {
+        Path file = file(job, STAGED_SUFFIX);
+        writer.write(file);
+        try {
+            return InventoryReader.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replace inventory of job with staged one, without deleted items.
+     *
+     * @param job name of job
+     * @param staged inventory of this run
+     * @param deleted keys of deleted rows
+     */
+    public void save(String job, InventoryReader staged, Set<String> deleted) {
+        Path stagedFile = file(job, STAGED_SUFFIX);
+
+        if (save) {
+            InventoryWriter writer = new InventoryWriter();
+            writer.addAll(staged, row -> !deleted.contains(key(staged.getGroup(row), staged.getVersion(row))));
+            writer.write(file(job, SUFFIX));
+            LOGGER.info("Saved inventory of {} with {} items", job, writer.size());
+        }
+
+        try {
+            Files.deleteIfExists(stagedFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(String job, String suffix) {
+        return directory.resolve(job.replaceAll("[^A-Za-z0-9._-]", "_") + suffix);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.inventory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Collect items of one job and write them as inventory file.
+ *
+ * <p>Group paths and versions are stored once in dictionaries, rows hold only their ids and primitive columns.
+ * Writer is not thread-safe.
+ */
+public class InventoryWriter {
+
+    private static final int INITIAL_ROWS = 1024;
+
+    private final Dictionary groups = new Dictionary();
+    private final Dictionary versions = new Dictionary();
+
+    private int[] groupColumn = new int[INITIAL_ROWS];
+    private int[] versionColumn = new int[INITIAL_ROWS];
+    private long[] createdColumn = new long[INITIAL_ROWS];
+    private long[] modifiedColumn = new long[INITIAL_ROWS];
+    private long[] sizeColumn = new long[INITIAL_ROWS];
+    private int rows;
+
+    private long built = System.currentTimeMillis();
+
+    /**
+     * @param group path of group, eg. image or artifact
+     * @param version version in group
+     * @param created creation time in epoch millis
+     * @param modified modification time in epoch millis
+     * @param size size in bytes
+     */
+    public void add(String group, String version, long created, long modified, long size) {
+        if (rows == groupColumn.length) {
+            grow();
+        }
+        groupColumn[rows] = groups.id(group);
+        versionColumn[rows] = versions.id(version);
+        createdColumn[rows] = created;
+        modifiedColumn[rows] = modified;
+        sizeColumn[rows] = size;
+        rows++;
+    }
+
+    /**
+     * Copy rows of previous inventory, time of full scan is taken over from it.
+     *
+     * @param reader previous inventory
+     * @param keep rows of reader to copy
+     */
+    public void addAll(InventoryReader reader, IntPredicate keep) {
+        built = reader.getBuilt();
+        for (int row = 0; row < reader.size(); row++) {
+            if (keep.test(row)) {
+                add(reader.getGroup(row), reader.getVersion(row), reader.getCreated(row), reader.getModified(row),
+                        reader.getSize(row));
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = rows * 2;
+        groupColumn = Arrays.copyOf(groupColumn, capacity);
+        versionColumn = Arrays.copyOf(versionColumn, capacity);
+        createdColumn = Arrays.copyOf(createdColumn, capacity);
+        modifiedColumn = Arrays.copyOf(modifiedColumn, capacity);
+        sizeColumn = Arrays.copyOf(sizeColumn, capacity);
+    }
+
+    /**
+     * Keys of all rows added so far.
+     */
+    Set<String> keys() {
+        Set<String> result = new HashSet<>(rows * 2);
+        for (int row = 0; row < rows; row++) {
+            result.add(InventoryStore.key(groups.value(groupColumn[row]), versions.value(versionColumn[row])));
+        }
+        return result;
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Write inventory, the previous file is replaced atomically.
+     *
+     * @param file inventory file
+     */
+    public void write(Path file) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(InventoryFormat.MAGIC);
+                out.writeLong(built);
+                out.writeInt(rows);
+                out.writeInt(groups.size());
+                out.writeInt(versions.size());
+                groups.write(out);
+                versions.write(out);
+                writeColumns(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeColumns(DataOutputStream out) throws IOException {
+        for (int row = 0; row < rows; row++) {
+            out.writeInt(groupColumn[row]);
+        }
+        for (int row = 0; row < rows; row++) {
+            out.writeInt(versionColumn[row]);
+        }
+        for (int row = 0; row < rows; row++) {
+            out.writeLong(createdColumn[row]);
+        }
+        for (int row = 0; row < rows; row++) {
+            out.writeLong(modifiedColumn[row]);
+        }
+        for (int row = 0; row < rows; row++) {
+            out.writeLong(sizeColumn[row]);
+        }
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+
+        private int id(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return id;
+        }
+
+        private int size() {
+            return values.size();
+        }
+
+        private String value(int id) {
+            return new String(values.get(id), StandardCharsets.UTF_8);
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] value : values) {
+                offset += value.length;
+                out.writeInt(offset);
+            }
+            for (byte[] value : values) {
+                out.write(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.event.RetryEvent;
+
+/**
+ * Metrics of one cleaner and repository, all updates are lock-free.
+ */
+public final class JobMetrics {
+
+    /**
+     * Metrics which are not exported anywhere.
+     */
+    public static final JobMetrics NONE = new Metrics().job("none", "none");
+
+    private final Metrics registry;
+    private final String cleaner;
+    private final String repo;
+
+    private final Histogram aqlLatency;
+    private final LongAdder aqlFailures;
+    private final LongAdder scanned;
+    private final Histogram deleteLatency;
+    private final LongAdder deleteFailures;
+    private final LongAdder deleted;
+    private final LongAdder reclaimed;
+    private final LongAdder retries;
+
+    JobMetrics(Metrics registry, String cleaner, String repo) {
+        this.registry = registry;
+        this.cleaner = cleaner;
+        this.repo = repo;
+
+        aqlLatency = registry.histogram(Metrics.AQL_LATENCY, cleaner, repo);
+        aqlFailures = registry.counter(Metrics.AQL_FAILURES, cleaner, repo);
+        scanned = registry.counter(Metrics.SCANNED, cleaner, repo);
+        deleteLatency = registry.histogram(Metrics.DELETE_LATENCY, cleaner, repo);
+        deleteFailures = registry.counter(Metrics.DELETE_FAILURES, cleaner, repo);
+        deleted = registry.counter(Metrics.DELETED, cleaner, repo);
+        reclaimed = registry.counter(Metrics.RECLAIMED, cleaner, repo);
+        retries = registry.counter(Metrics.RETRIES, cleaner, repo);
+    }
+
+    /**
+     * Metrics of the same cleaner for another repository.
+     *
+     * @param repoKey other repository
+     * @return metrics of repository
+     */
+    public JobMetrics forRepo(String repoKey) {
+        return repo.equals(repoKey) ? this : registry.job(cleaner, repoKey);
+    }
+
+    /**
+     * Count retries of given retry, which should be used by this job only.
+     *
+     * <p>Generic event consumer is used, as only one consumer of each event type may be registered
+     * and the retry one already logs the failure.
+     *
+     * @param retry retry of job
+     * @return the same retry
+     */
+    public Retry watch(Retry retry) {
+        retry.getEventPublisher().onEvent(e -> {
+            if (e.getEventType() == RetryEvent.Type.RETRY) {
+                retries.increment();
+            }
+        });
+        return retry;
+    }
+
+    public void aqlRequest(long startNanos, long items) {
+        aqlLatency.record(System.nanoTime() - startNanos);
+        scanned.add(items);
+    }
+
+    public void aqlFailed(long startNanos) {
+        aqlLatency.record(System.nanoTime() - startNanos);
+        aqlFailures.increment();
+    }
+
+    public void deleteRequest(long startNanos) {
+        deleteLatency.record(System.nanoTime() - startNanos);
+        deleted.increment();
+    }
+
+    public void deleteFailed(long startNanos) {
+        deleteLatency.record(System.nanoTime() - startNanos);
+        deleteFailures.increment();
+    }
+
+    public void reclaimed(long bytes) {
+        reclaimed.add(bytes);
+    }
+
+    static double seconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
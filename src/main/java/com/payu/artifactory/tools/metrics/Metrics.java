@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registry of metrics of all jobs, exported in Prometheus text format.
+ *
+ * <p>Metrics are written to a file for node exporter textfile collector at the end of run, and may be served over
+ * HTTP while the run lasts.
+ */
+@Slf4j
+public class Metrics {
+
+    static final String AQL_LATENCY = "artifactory_cleaner_aql_request_seconds";
+    static final String DELETE_LATENCY = "artifactory_cleaner_delete_request_seconds";
+    static final String RETRIES = "artifactory_cleaner_retries_total";
+    static final String AQL_FAILURES = "artifactory_cleaner_aql_failures_total";
+    static final String DELETE_FAILURES = "artifactory_cleaner_delete_failures_total";
+    static final String SCANNED = "artifactory_cleaner_items_scanned_total";
+    static final String DELETED = "artifactory_cleaner_items_deleted_total";
+    static final String RECLAIMED = "artifactory_cleaner_bytes_reclaimed_total";
+    static final String DELETE_LIMIT = "artifactory_cleaner_delete_concurrency_limit";
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private static final Map<String, String> HELP = new TreeMap<>();
+
+    static {
+        HELP.put(AQL_LATENCY, "Latency of AQL requests.");
+        HELP.put(DELETE_LATENCY, "Latency of delete requests.");
+        HELP.put(RETRIES, "Retried requests.");
+        HELP.put(AQL_FAILURES, "AQL requests failed after all retries.");
+        HELP.put(DELETE_FAILURES, "Delete requests failed after all retries.");
+        HELP.put(SCANNED, "Items returned by AQL requests.");
+        HELP.put(DELETED, "Items deleted.");
+        HELP.put(RECLAIMED, "Bytes freed by deleted items of known size.");
+        HELP.put(DELETE_LIMIT, "Current limit of delete requests in flight.");
+    }
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Histogram>> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, JobMetrics> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, IntSupplier> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Metrics of given cleaner and repository.
+     *
+     * @param cleaner name of cleaner
+     * @param repo repository
+     * @return metrics of job
+     */
+    public JobMetrics job(String cleaner, String repo) {
+        return jobs.computeIfAbsent(labels(cleaner, repo), k -> new JobMetrics(this, cleaner, repo));
+    }
+
+    /**
+     * Export current limit of delete concurrency.
+     *
+     * @param limit current limit, read when metrics are written
+     */
+    public void deleteConcurrency(IntSupplier limit) {
+        gauges.put(DELETE_LIMIT, limit);
+    }
+
+    Histogram histogram(String name, String cleaner, String repo) {
+        return histograms.computeIfAbsent(name, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(labels(cleaner, repo), k -> new Histogram());
+    }
+
+    LongAdder counter(String name, String cleaner, String repo) {
+        return counters.computeIfAbsent(name, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(labels(cleaner, repo), k -> new LongAdder());
+    }
+
+    private static String labels(String cleaner, String repo) {
+        return "cleaner=\"" + escape(cleaner) + "\",repo=\"" + escape(repo) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Write all metrics in Prometheus text format.
+     *
+     * @param writer target of metrics
+     * @throws IOException when writing fails
+     */
+    public void write(Writer writer) throws IOException {
+        for (Map.Entry<String, String> family : HELP.entrySet()) {
+            String name = family.getKey();
+            if (histograms.containsKey(name)) {
+                writeHeader(writer, name, family.getValue(), "summary");
+                writeSummaries(writer, name, histograms.get(name));
+            } else if (counters.containsKey(name)) {
+                writeHeader(writer, name, family.getValue(), "counter");
+                writeCounters(writer, name, counters.get(name));
+            } else if (gauges.containsKey(name)) {
+                writeHeader(writer, name, family.getValue(), "gauge");
+                writer.write(name + ' ' + gauges.get(name).getAsInt() + '\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private static void writeSummaries(Writer writer, String name, Map<String, Histogram> series) throws IOException {
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(series).entrySet()) {
+            writeSummary(writer, name, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void writeCounters(Writer writer, String name, Map<String, LongAdder> series) throws IOException {
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(series).entrySet()) {
+            writer.write(name + '{' + entry.getKey() + "} " + entry.getValue().sum() + '\n');
+        }
+    }
+
+    private static void writeHeader(Writer writer, String name, String help, String type) throws IOException {
+        writer.write("# HELP " + name + ' ' + help + '\n');
+        writer.write("# TYPE " + name + ' ' + type + '\n');
+    }
+
+    private static void writeSummary(Writer writer, String name, String labels, Histogram histogram)
+            throws IOException {
+        for (double quantile : QUANTILES) {
+            writer.write(name + '{' + labels + ",quantile=\"" + quantile + "\"} "
+                    + JobMetrics.seconds(histogram.getQuantile(quantile)) + '\n');
+        }
+        writer.write(name + "_sum{" + labels + "} " + JobMetrics.seconds(histogram.getSum()) + '\n');
+        writer.write(name + "_count{" + labels + "} " + histogram.getCount() + '\n');
+    }
+
+    /**
+     * Write all metrics to file, the file is replaced atomically so collector never reads a partial one.
+     *
+     * @param file textfile read by collector
+     */
+    public void writeTextFile(Path file) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                write(writer);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOGGER.info("Metrics written to {}", file);
+    }
+
+    /**
+     * Serve metrics on {@code /metrics} until returned handle is closed.
+     *
+     * @param port HTTP port
+     * @return handle stopping the server
+     * @throws IOException when the port can't be bound
+     */
+    public Closeable serve(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> {
+            StringWriter body = new StringWriter();
+            write(body);
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        LOGGER.info("Metrics served on port {}", server.getAddress().getPort());
+        return () -> server.stop(0);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.pipeline;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import com.payu.artifactory.tools.deadline.DeadlineExceededException;
+import com.payu.artifactory.tools.delete.PlannedDelete;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Planner of chunks of groups, groups of a chunk are planned in parallel by own fork/join pool
+ * when parallelism is above one.
+ *
+ * <p>Plans are returned in the order of groups, failure of planner is returned as a plan too,
+ * so the caller handles all failures in one place.
+ *
+ * @param <G> items of one group collected for planning
+ */
+@Slf4j
+class ChunkPlanner<G> implements AutoCloseable {
+
+    private final String job;
+    private final BiFunction<String, G, List<PlannedDelete>> planner;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism number of groups planned at the same time, planner must be thread safe when above one
+     * @param planner deletes of group
+     */
+    ChunkPlanner(String job, int parallelism, BiFunction<String, G, List<PlannedDelete>> planner) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.job = job;
+        this.planner = planner;
+        this.pool = parallelism > 1 ? newPool(job, parallelism) : null;
+    }
+
+    /**
+     * Plan groups of chunk, a failure which stopped the whole chunk is returned as its only plan.
+     */
+    List<Plan> plan(List<Group<G>> chunk) throws InterruptedException {
+        if (pool == null || chunk.size() < 2) {
+            return chunk.stream().map(this::planGroup).collect(Collectors.toList());
+        }
+
+        try {
+            // ordered stream keeps results in the order of groups
+            return pool.submit(() -> chunk.parallelStream()
+                    .map(this::planGroup)
+                    .collect(Collectors.toList())).get();
+        } catch (ExecutionException e) {
+            LOGGER.error("Planning of {} failed", job, e.getCause());
+            return Collections.singletonList(
+                    Plan.failed(new IllegalStateException("planning of " + job + " failed", e.getCause())));
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException") // any failure of planner stops planning of job
+    private Plan planGroup(Group<G> group) {
+        try {
+            return new Plan(planner.apply(group.getPath(), group.getItems()), null);
+        } catch (DeadlineExceededException e) {
+            return Plan.failed(e);
+        } catch (RuntimeException e) {
+            LOGGER.error("Planning of {} failed at {}", job, group.getPath(), e);
+            return Plan.failed(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ForkJoinPool newPool(String job, int parallelism) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("planner-" + job + "-" + threadNumber.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Deletes of one group, or failure of its planning.
+     */
+    static final class Plan {
+        private final List<PlannedDelete> deletes;
+        private final RuntimeException failure;
+
+        private Plan(List<PlannedDelete> deletes, RuntimeException failure) {
+            this.deletes = deletes;
+            this.failure = failure;
+        }
+
+        static Plan failed(RuntimeException failure) {
+            return new Plan(null, failure);
+        }
+
+        List<PlannedDelete> getDeletes() {
+            return deletes;
+        }
+
+        RuntimeException getFailure() {
+            return failure;
+        }
+    }
+}
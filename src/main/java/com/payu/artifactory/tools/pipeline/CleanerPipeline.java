@@ -0,0 +1,343 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.pipeline;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.delete.Deleter;
+import com.payu.artifactory.tools.delete.PlannedDelete;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Plan and delete stages of one cleaner job, running while the job is still scanning in incremental runs.
+ *
+ * <p>Groups are passed to planner thread by bounded queue as soon as all their items are read, and planned
+ * deletes are passed to deleter right away. Scanning waits when the planner is behind and the planner waits
+ * when too many deletes of the job are pending, so memory stays bounded when deletes are slower than scanning.
+ * Groups are complete only after each batch of incremental run, a full scan passes all its groups at its end,
+ * see {@code ItemSource#forEach}, so it is held whole and doesn't overlap with planning.
+ *
+ * <p>Groups waiting in the queue are planned in chunks by {@link ChunkPlanner}, in parallel when planning
+ * parallelism is above one. Deletes of a chunk are submitted in the order of its groups, so the plan is the same
+ * as planned one by one.
+ *
+ * <p>When deadline of job is reached no more groups are planned, the rest is only drained, and deletes already
+ * submitted are finished.
+ *
+ * @param <G> items of one group collected for planning
+ */
+@Slf4j
+public class CleanerPipeline<G> implements AutoCloseable {
+
+    /**
+     * Default number of deletes of one job queued or in flight.
+     */
+    public static final int DEFAULT_PENDING_DELETES = 10_000;
+
+    /**
+     * Number of groups waiting for planner.
+     */
+    static final int GROUP_QUEUE = 1024;
+
+    /**
+     * Highest number of groups planned together.
+     */
+    static final int PLAN_CHUNK = 256;
+
+    private final String job;
+    private final String repoKey;
+    private final Deleter deleter;
+    private final ChunkPlanner<G> planner;
+    private final int maxPending;
+    private final Semaphore pending;
+    private final DeadlineStop stop;
+
+    private final BlockingQueue<Group<G>> groups = new ArrayBlockingQueue<>(GROUP_QUEUE);
+    private final Thread plannerThread;
+
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong reclaimed = new AtomicLong();
+    private volatile RuntimeException planFailure;
+    private boolean closed;
+
+    /**
+     * @param job name of job
+     * @param repoKey repository of deleted items
+     * @param deleter deleter of planned items
+     * @param maxPending highest number of delete requests of job queued or in flight
+     * @param planner deletes of group, called by planner thread, paths of items are their inventory keys
+     */
+    public CleanerPipeline(String job, String repoKey, Deleter deleter, int maxPending,
+            BiFunction<String, G, List<PlannedDelete>> planner) {
+        this(job, repoKey, deleter, maxPending, 1, planner);
+    }
+
+    /**
+     * @param job name of job
+     * @param repoKey repository of deleted items
+     * @param deleter deleter of planned items
+     * @param maxPending highest number of delete requests of job queued or in flight
+     * @param parallelism number of groups planned at the same time, planner must be thread safe when above one
+     * @param planner deletes of group, paths of items are their inventory keys
+     */
+    public CleanerPipeline(String job, String repoKey, Deleter deleter, int maxPending, int parallelism,
+            BiFunction<String, G, List<PlannedDelete>> planner) {
+        this(job, repoKey, deleter, maxPending, parallelism, Deadline.NONE, planner);
+    }
+
+    /**
+     * @param job name of job
+     * @param repoKey repository of deleted items
+     * @param deleter deleter of planned items
+     * @param maxPending highest number of delete requests of job queued or in flight
+     * @param parallelism number of groups planned at the same time, planner must be thread safe when above one
+     * @param deadline deadline of job, no group is planned after it is reached
+     * @param planner deletes of group, paths of items are their inventory keys
+     */
+    public CleanerPipeline(String job, String repoKey, Deleter deleter, int maxPending, int parallelism,
+            Deadline deadline, BiFunction<String, G, List<PlannedDelete>> planner) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be positive: " + maxPending);
+        }
+        this.job = job;
+        this.repoKey = repoKey;
+        this.deleter = deleter;
+        this.planner = new ChunkPlanner<>(job, parallelism, planner);
+        this.maxPending = maxPending;
+        this.pending = new Semaphore(maxPending);
+        this.stop = new DeadlineStop(deadline);
+
+        plannerThread = new Thread(this::runPlanner, "planner-" + job);
+        plannerThread.setDaemon(true);
+        plannerThread.start();
+    }
+
+    /**
+     * Pass complete group to planner, waits while the planner queue is full.
+     *
+     * @param path path of folder of group
+     * @param group items of group
+     */
+    public void plan(String path, G group) {
+        if (closed) {
+            throw new IllegalStateException("pipeline of " + job + " is closed");
+        }
+        put(new Group<>(path, group));
+    }
+
+    /**
+     * Pass all complete groups to planner and remove them from map.
+     *
+     * @param complete groups by path of their folder
+     */
+    public void planAll(Map<String, G> complete) {
+        Iterator<Map.Entry<String, G>> entries = complete.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, G> entry = entries.next();
+            plan(entry.getKey(), entry.getValue());
+            entries.remove();
+        }
+    }
+
+    /**
+     * Wait for planning of all groups and for all planned deletes, rethrow failure of planner.
+     */
+    public void finish() {
+        close();
+        if (planFailure != null) {
+            throw planFailure;
+        }
+    }
+
+    /**
+     * Wait for planning of all groups and for all planned deletes.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        put(Group.end());
+        try {
+            plannerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for planner of " + job, e);
+        } finally {
+            planner.close();
+        }
+
+        pending.acquireUninterruptibly(maxPending);
+        pending.release(maxPending);
+
+        LOGGER.info("Planned {} deletes of {}, {} failed", submitted.get(), job, failed.get());
+        if (stop.isStopped()) {
+            LOGGER.warn("Planning of {} stopped by deadline, {} groups left for the next run", job,
+                    stop.getLeftGroups());
+        }
+    }
+
+    private void put(Group<G> group) {
+        try {
+            groups.put(group);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for planner of " + job, e);
+        }
+    }
+
+    private void runPlanner() {
+        List<Group<G>> chunk = new ArrayList<>(PLAN_CHUNK);
+        try {
+            boolean end = false;
+            while (!end) {
+                chunk.add(groups.take());
+                groups.drainTo(chunk, PLAN_CHUNK - 1);
+
+                int last = chunk.size() - 1;
+                end = chunk.get(last).isEnd();
+                List<Group<G>> planned = end ? chunk.subList(0, last) : chunk;
+                // after failure or deadline groups are only drained, so scanning is not blocked
+                if (planFailure == null && !stop.isStopped()) {
+                    planChunk(planned);
+                } else {
+                    stop.leave(planned.size());
+                }
+                chunk.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void planChunk(List<Group<G>> chunk) throws InterruptedException {
+        if (stop.stopIfReached(null, chunk.size())) {
+            return;
+        }
+
+        List<ChunkPlanner.Plan> plans = planner.plan(chunk);
+        for (int i = 0; i < plans.size(); i++) {
+            ChunkPlanner.Plan plan = plans.get(i);
+            if (stop.stopIfReached(plan.getFailure(), plans.size() - i)) {
+                return;
+            }
+            if (plan.getFailure() != null) {
+                planFailure = plan.getFailure();
+                return;
+            }
+            for (PlannedDelete delete : plan.getDeletes()) {
+                pending.acquire();
+                if (!submit(delete)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Submit delete, failure of deleter itself, eg. closed executor, stops planning like failure of planner.
+     *
+     * @return false when delete could not be submitted
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException") // planner thread must not die, scanning would block
+    private boolean submit(PlannedDelete delete) {
+        CompletableFuture<Void> request;
+        try {
+            request = deleter.delete(repoKey, delete.getPath());
+        } catch (RuntimeException e) {
+            pending.release();
+            LOGGER.error("Delete of {} could not be submitted by {}", delete.getPath(), job, e);
+            planFailure = e;
+            return false;
+        }
+        submitted.addAndGet(delete.getItems().size());
+
+        request.whenComplete((v, e) -> {
+            if (e == null) {
+                deleted.addAll(delete.getItems());
+                reclaimed.addAndGet(delete.getBytes());
+            } else {
+                failed.addAndGet(delete.getItems().size());
+            }
+            pending.release();
+        });
+        return true;
+    }
+
+    /**
+     * Inventory keys of deleted items.
+     *
+     * @return keys of deleted items
+     */
+    public Set<String> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Number of items planned for deleting, coalesced items are counted one by one.
+     *
+     * @return number of planned items
+     */
+    public int getSubmitted() {
+        return submitted.get();
+    }
+
+    /**
+     * Number of items which could not be deleted.
+     *
+     * @return number of failed items
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Check if planning was stopped by deadline and some groups were left for the next run.
+     *
+     * @return true when groups were left
+     */
+    public boolean isStopped() {
+        return stop.isStopped();
+    }
+
+    /**
+     * Bytes freed by finished deletes, counted only for deletes with known size.
+     *
+     * @return freed bytes
+     */
+    public long getReclaimed() {
+        return reclaimed.get();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.pipeline;
+
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.deadline.DeadlineExceededException;
+
+/**
+ * Stop of planning by deadline of job, counting groups left for the next run.
+ *
+ * <p>Groups are counted only by planner thread, the flag of stop is read also by the job.
+ */
+final class DeadlineStop {
+
+    private final Deadline deadline;
+    private volatile boolean stopped;
+    private int leftGroups;
+
+    DeadlineStop(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Stop planning when deadline is reached or planning of group was stopped by it.
+     *
+     * @param failure failure of planning of the next group, {@code null} when it was planned
+     * @param groups number of groups not planned when planning stops now
+     * @return true when planning is stopped
+     */
+    boolean stopIfReached(RuntimeException failure, int groups) {
+        if (failure instanceof DeadlineExceededException || deadline.isReached()) {
+            stopped = true;
+            leftGroups += groups;
+        }
+        return stopped;
+    }
+
+    /**
+     * Count groups which were only drained, after stop or failure of planning.
+     */
+    void leave(int groups) {
+        leftGroups += groups;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    int getLeftGroups() {
+        return leftGroups;
+    }
+}
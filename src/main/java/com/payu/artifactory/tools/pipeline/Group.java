@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.pipeline;
+
+/**
+ * Items of one group passed to planner, or the end of groups.
+ *
+ * @param <G> items of one group collected for planning
+ */
+final class Group<G> {
+
+    private final String path;
+    private final G items;
+
+    Group(String path, G items) {
+        this.path = path;
+        this.items = items;
+    }
+
+    static <G> Group<G> end() {
+        return new Group<>(null, null);
+    }
+
+    boolean isEnd() {
+        return path == null;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    G getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.plan;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.payu.artifactory.tools.delete.DeleteExecutor;
+import com.payu.artifactory.tools.delete.Deleter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delete all items of plan file without searching Artifactory again.
+ */
+@Slf4j
+public class PlanApplier {
+
+    private final Map<String, Deleter> deleters;
+
+    /**
+     * @param deleters deleters by client name used in plan
+     */
+    public PlanApplier(Map<String, Deleter> deleters) {
+        this.deleters = deleters;
+    }
+
+    @SuppressWarnings("PMD.GuardLogStatementJavaUtil") // false positive
+    public void apply(Path file) {
+        LOGGER.info("Applying plan {}", file);
+
+        List<CompletableFuture<Void>> deletes = new ArrayList<>();
+        try (PlanReader reader = new PlanReader(file)) {
+            while (reader.next()) {
+                Deleter deleter = deleters.get(reader.getClient());
+                if (deleter == null) {
+                    throw new IllegalStateException("Artifactory client " + reader.getClient()
+                            + " is not configured, it is needed for " + reader.getRepoKey() + "/" + reader.getPath());
+                }
+                deletes.add(deleter.delete(reader.getRepoKey(), reader.getPath()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int failed = DeleteExecutor.awaitAll(deletes);
+        LOGGER.info("Plan {} applied, {} items deleted, {} failed", file, deletes.size() - failed, failed);
+
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + deletes.size() + " items from plan could not be deleted");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.plan;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary format of deletion plan.
+ *
+ * <pre>
+ * plan    = MAGIC section* END
+ * section = SECTION client:UTF repo:UTF count:varint entry{count}
+ * entry   = dirRef:varint [dir:UTF] name:UTF
+ * </pre>
+ *
+ * <p>Each path is split into directory, including the trailing slash, and name.
+ * Directories are dictionary-encoded per section,
+ * {@code dirRef} 0 introduces a new directory which gets the next number starting from 1,
+ * other values refer to already introduced directory.
+ */
+final class PlanFormat {
+
+    static final int MAGIC = 0x41435031;
+    static final byte END = 0;
+    static final byte SECTION = 1;
+    static final int NEW_DIR = 0;
+
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = 0x7F;
+    private static final int VARINT_MORE = 0x80;
+
+    private PlanFormat() {
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        int v = value;
+        while ((v & ~VARINT_MASK) != 0) {
+            out.writeByte((v & VARINT_MASK) | VARINT_MORE);
+            v >>>= VARINT_BITS;
+        }
+        out.writeByte(v);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int result = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            result |= (b & VARINT_MASK) << shift;
+            shift += VARINT_BITS;
+        } while ((b & VARINT_MORE) != 0);
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.plan;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stream items of plan file written by {@link PlanWriter}.
+ *
+ * <pre>
+ * try (PlanReader reader = new PlanReader(file)) {
+ *     while (reader.next()) {
+ *         delete(reader.getClient(), reader.getRepoKey(), reader.getPath());
+ *     }
+ * }
+ * </pre>
+ */
+public class PlanReader implements AutoCloseable {
+
+    private final DataInputStream in;
+    private final List<String> dirs = new ArrayList<>();
+
+    private String client;
+    private String repoKey;
+    private int remaining;
+    private String path;
+    private boolean finished;
+
+    public PlanReader(Path file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        if (in.readInt() != PlanFormat.MAGIC) {
+            in.close();
+            throw new IOException("not a plan file: " + file);
+        }
+    }
+
+    /**
+     * Move to the next item.
+     *
+     * @return false when there are no more items
+     * @throws IOException when plan file can't be read
+     */
+    public boolean next() throws IOException {
+        while (remaining == 0) {
+            if (finished || !nextSection()) {
+                return false;
+            }
+        }
+
+        int ref = PlanFormat.readVarInt(in);
+        String dir;
+        if (ref == PlanFormat.NEW_DIR) {
+            dir = in.readUTF();
+            dirs.add(dir);
+        } else {
+            dir = dirs.get(ref - 1);
+        }
+
+        String name = in.readUTF();
+        path = dir + name;
+        remaining--;
+        return true;
+    }
+
+    private boolean nextSection() throws IOException {
+        byte tag = in.readByte();
+        if (tag == PlanFormat.END) {
+            finished = true;
+            return false;
+        }
+        if (tag != PlanFormat.SECTION) {
+            throw new IOException("corrupted plan file, unknown record " + tag);
+        }
+
+        client = in.readUTF();
+        repoKey = in.readUTF();
+        remaining = PlanFormat.readVarInt(in);
+        dirs.clear();
+        return true;
+    }
+
+    public String getClient() {
+        return client;
+    }
+
+    public String getRepoKey() {
+        return repoKey;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.plan;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import com.payu.artifactory.tools.delete.Deleter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collect items selected for deleting into plan file instead of deleting them.
+ *
+ * <p>Items are encoded in memory grouped by client and repository, the file is written on close.
+ */
+@Slf4j
+public class PlanWriter implements AutoCloseable {
+
+    private final Path file;
+    private final Map<String, Section> sections = new LinkedHashMap<>();
+    private long size;
+
+    public PlanWriter(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Deleter which records items of given client.
+     *
+     * @param client name of Artifactory client which will be used for deleting when plan is applied
+     * @return deleter writing to this plan
+     */
+    public Deleter forClient(String client) {
+        return (repoKey, path) -> {
+            add(client, repoKey, path);
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    public synchronized void add(String client, String repoKey, String path) {
+        Section section = sections.get(client + '\n' + repoKey);
+        if (section == null) {
+            section = new Section(client, repoKey);
+            sections.put(client + '\n' + repoKey, section);
+        }
+
+        try {
+            section.add(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size++;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(PlanFormat.MAGIC);
+            for (Section section : sections.values()) {
+                out.writeByte(PlanFormat.SECTION);
+                out.writeUTF(section.client);
+                out.writeUTF(section.repoKey);
+                PlanFormat.writeVarInt(out, section.count);
+                section.bytes.writeTo(out);
+            }
+            out.writeByte(PlanFormat.END);
+        }
+
+        LOGGER.info("Plan with {} items in {} repositories written to {}", size, sections.size(), file);
+    }
+
+    private static final class Section {
+        private final String client;
+        private final String repoKey;
+        private final Map<String, Integer> dirs = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private int count;
+
+        private Section(String client, String repoKey) {
+            this.client = Objects.requireNonNull(client, "client must be set");
+            this.repoKey = Objects.requireNonNull(repoKey, "repoKey must be set");
+        }
+
+        private void add(String path) throws IOException {
+            int last = path.lastIndexOf('/');
+            String dir = path.substring(0, last + 1);
+
+            Integer ref = dirs.get(dir);
+            if (ref == null) {
+                dirs.put(dir, dirs.size() + 1);
+                PlanFormat.writeVarInt(out, PlanFormat.NEW_DIR);
+                out.writeUTF(dir);
+            } else {
+                PlanFormat.writeVarInt(out, ref);
+            }
+            out.writeUTF(path.substring(last + 1));
+            count++;
+        }
+    }
+}
@@ -26,6 +26,8 @@ import lombok.NoArgsConstructor;
 public class AQLItemPath implements Comparable<AQLItemPath> {
     private String path;
 
+    private String name;
+
     @Override
     public int compareTo(AQLItemPath o) {
         return o.path.compareTo(path);
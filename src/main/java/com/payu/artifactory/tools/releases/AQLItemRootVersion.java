@@ -19,14 +19,23 @@ package com.payu.artifactory.tools.releases;
 
 import java.util.Date;
 
-import org.apache.maven.artifact.versioning.ComparableVersion;
+import com.payu.artifactory.tools.aql.ItemColumns;
+import com.payu.artifactory.tools.inventory.InventoryReader;
+import com.payu.artifactory.tools.version.VersionKey;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 @NoArgsConstructor
-@SuppressWarnings({"PMD.UnusedPrivateField", "PMD.SingularField"}) // false positives
+@ToString(exclude = "versionKey")
+@EqualsAndHashCode(exclude = {"modified", "size"})
+@SuppressWarnings({"PMD.UnusedPrivateField", "PMD.SingularField", "PMD.FieldDeclarationsShouldBeAtStartOfClass"}) // false positives
 public class AQLItemRootVersion implements Comparable<AQLItemRootVersion> {
 
     private String path;
@@ -35,6 +44,20 @@ public class AQLItemRootVersion implements Comparable<AQLItemRootVersion> {
 
     private Date created;
 
+    /**
+     * Modification time, used only to advance watermark of incremental run.
+     */
+    private Date modified;
+
+    private long size;
+
+    /**
+     * Parsed version, computed once instead of on each comparison.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient VersionKey versionKey;
+
     public void setPath(String path) {
         int last = path.lastIndexOf('/');
 
@@ -44,11 +67,60 @@ public class AQLItemRootVersion implements Comparable<AQLItemRootVersion> {
 
         this.path = path.substring(0, last);
         this.version = path.substring(last + 1);
+        this.versionKey = null;
+    }
+
+    /**
+     * Version of given inventory row.
+     */
+    static AQLItemRootVersion of(InventoryReader inventory, int row) {
+        AQLItemRootVersion item = new AQLItemRootVersion();
+        item.path = inventory.getGroup(row);
+        item.version = inventory.getVersion(row);
+        item.created = new Date(inventory.getCreated(row));
+        item.modified = new Date(inventory.getModified(row));
+        item.size = inventory.getSize(row);
+        return item;
+    }
+
+    /**
+     * Version of given row of columns, unknown times are {@code null}.
+     */
+    static AQLItemRootVersion of(ItemColumns columns, int row) {
+        AQLItemRootVersion item = new AQLItemRootVersion();
+        item.path = columns.getPath(row);
+        item.version = columns.getVersion(row);
+        item.created = date(columns.getCreated(row));
+        item.modified = date(columns.getModified(row));
+        item.size = columns.getSize(row);
+        return item;
+    }
+
+    private static Date date(long time) {
+        return time == Long.MIN_VALUE ? null : new Date(time);
     }
 
     @Override
     public int compareTo(AQLItemRootVersion o) {
-        return new ComparableVersion(version).compareTo(new ComparableVersion(o.version));
+        return versionKey().compareTo(o.versionKey());
+    }
+
+    private VersionKey versionKey() {
+        if (versionKey == null) {
+            versionKey = VersionKey.parse(version);
+        }
+        return versionKey;
+    }
+
+    /**
+     * Check if item was found by the per-version query of this version.
+     *
+     * @param item item found by per-version query
+     * @return true when item is pom of this version under the same parent folder
+     */
+    public boolean contains(AQLItemPath item) {
+        return item.getPath().startsWith(getParentPath() + "/")
+                && item.getName().endsWith("-" + version + ".pom");
     }
 
     public String getParentPath() {
@@ -19,26 +19,63 @@ package com.payu.artifactory.tools.releases;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.jfrog.artifactory.client.Artifactory;
-import org.jfrog.artifactory.client.ArtifactoryRequest;
-import org.jfrog.artifactory.client.impl.ArtifactoryRequestImpl;
+
+import com.payu.artifactory.tools.aql.AqlDates;
+import com.payu.artifactory.tools.aql.AqlPager;
+import com.payu.artifactory.tools.aql.AqlSearch;
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.deadline.DeadlineExceededException;
+import com.payu.artifactory.tools.delete.DeleteCoalescer;
+import com.payu.artifactory.tools.delete.DeleteExecutor;
+import com.payu.artifactory.tools.delete.DeleteOrder;
+import com.payu.artifactory.tools.delete.Deleter;
+import com.payu.artifactory.tools.delete.FolderSizes;
+import com.payu.artifactory.tools.delete.PlannedDelete;
+import com.payu.artifactory.tools.incremental.Incremental;
+import com.payu.artifactory.tools.incremental.Watermark;
+import com.payu.artifactory.tools.incremental.WatermarkStore;
+import com.payu.artifactory.tools.inventory.InventoryReader;
+import com.payu.artifactory.tools.inventory.InventoryStore;
+import com.payu.artifactory.tools.metrics.JobMetrics;
+import com.payu.artifactory.tools.transport.ArtifactoryTransport;
+import com.payu.artifactory.tools.transport.ClientTransport;
 
 import io.github.resilience4j.retry.Retry;
-import io.vavr.control.Try;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Clean old released artifacts for given root from Artifactory.
  */
 @Slf4j
+@SuppressWarnings("PMD.TooManyFields") // optional settings of job are set by setters, as in other cleaners
 public class ReleasesCleaner {
 
-    private final Artifactory artifactory;
+    /**
+     * Number of versions looked up by one AQL query.
+     */
+    private static final int VERSIONS_PER_QUERY = 50;
+
+    private ArtifactoryTransport transport;
     private final Retry retry;
+    private final int pageSize;
+    private final Deleter deleter;
     private final String repo;
 
     private final String root;
@@ -47,9 +84,22 @@ public class ReleasesCleaner {
     private final int minRemain;
     private final int limit;
 
-    public ReleasesCleaner(Artifactory artifactory, Retry retry, String config) {
-        this.artifactory = artifactory;
+    private final String job;
+    private WatermarkStore watermarks;
+    private InventoryStore inventories;
+    private JobMetrics metrics = JobMetrics.NONE;
+    private boolean coalesceDeletes;
+    private DeleteOrder deleteOrder = DeleteOrder.VERSION;
+    private Deadline deadline = Deadline.NONE;
+
+    private AqlSearch search;
+    private AqlPager aqlPager;
+
+    public ReleasesCleaner(Artifactory artifactory, Retry retry, Deleter deleter, int pageSize, String config) {
+        this.transport = new ClientTransport(artifactory);
         this.retry = retry;
+        this.pageSize = pageSize;
+        this.deleter = deleter;
 
         String[] configItems = config.split(":");
         this.repo = configItems[0];
@@ -58,84 +108,285 @@ public class ReleasesCleaner {
         this.minDays = Integer.parseInt(safeGet(configItems, 2, "365"));
         this.minRemain = Integer.parseInt(safeGet(configItems, 3, "3"));
         this.limit = Integer.parseInt(safeGet(configItems, 4, "128"));
+        this.job = "release:" + config;
+    }
+
+    /**
+     * Enable incremental run, the root is evaluated only when its versions were modified
+     * or became old enough to delete since the previous run.
+     *
+     * @param watermarks watermarks of jobs, {@code null} for full scan
+     */
+    public void setWatermarks(WatermarkStore watermarks) {
+        this.watermarks = watermarks;
     }
 
     private String safeGet(String[] array, int index, String defaultValue) {
         return index < array.length ? array[index] : defaultValue;
     }
 
+    /**
+     * Plan from local inventory of root, kept up to date by scanning only items changed since the previous run.
+     *
+     * @param inventories inventories of jobs, {@code null} to plan from AQL results
+     */
+    public void setInventories(InventoryStore inventories) {
+        this.inventories = inventories;
+    }
+
+    public void setMetrics(JobMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Send AQL queries by other transport than Artifactory client.
+     *
+     * @param transport transport of AQL queries
+     */
+    public void setTransport(ArtifactoryTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Delete folder once instead of its version folders when all of them are deleted.
+     *
+     * @param coalesceDeletes true to delete whole folders
+     */
+    public void setCoalesceDeletes(boolean coalesceDeletes) {
+        this.coalesceDeletes = coalesceDeletes;
+    }
+
+    /**
+     * Select and delete versions freeing the most bytes first, sizes of version folders are found by extra queries.
+     *
+     * @param deleteOrder order of deletes
+     */
+    public void setDeleteOrder(DeleteOrder deleteOrder) {
+        this.deleteOrder = deleteOrder;
+    }
+
+    /**
+     * Stop finding versions when deadline of job is reached, deletes already submitted are finished.
+     *
+     * @param deadline deadline of job
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
     public void execute() {
-        List<AQLItemRootVersion> items = getAllVersions();
+        search = new AqlSearch(transport, retry, metrics);
+        aqlPager = new AqlPager(search, pageSize, deadline);
 
-        // remove last remaining elements
-        for (int i = 0; i < minRemain; i++) {
-            items.remove(items.size() - 1);
+        long run = System.currentTimeMillis();
+        Date minData = Date.from(LocalDateTime.now().minusDays(minDays).atZone(ZoneId.systemDefault()).toInstant());
+        Optional<Watermark> watermark = watermarks == null ? Optional.empty() : watermarks.get(job);
+
+        if (isUnchanged(watermark, minData)) {
+            LOGGER.info("No versions changed in {}/{} since last run", repo, root);
+            watermarks.put(job, Incremental.next(watermark, run, Long.MIN_VALUE));
+            return;
         }
 
-        // remove newer items
-        Date minData = Date.from(LocalDateTime.now().minusDays(minDays).atZone(ZoneId.systemDefault()).toInstant());
-        items.removeIf(item -> minData.before(item.getCreated()));
+        LongAccumulator newestSeen = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        List<AQLItemRootVersion> items = inventories == null
+                ? cleanFromQuery(newestSeen, minData)
+                : cleanFromInventory(watermark, newestSeen, minData);
+
+        // versions over limit are left for the next run, which must evaluate the root again
+        if (items.size() <= limit) {
+            updateWatermark(watermark, run, newestSeen.get());
+        }
+    }
+
+    private List<AQLItemRootVersion> cleanFromQuery(LongAccumulator newestSeen, Date minData) {
+        List<AQLItemRootVersion> items = VersionSelector.findVersionsToDelete(
+                consumer -> findVersions(null, newestSeen, consumer), minRemain, minData);
+        deleteVersions(items, new HashSet<>());
+        return items;
+    }
 
+    /**
+     * Select versions from inventory and delete them, inventory is saved even when some deletes failed.
+     */
+    private List<AQLItemRootVersion> cleanFromInventory(
+            Optional<Watermark> watermark, LongAccumulator newestSeen, Date minData
+    ) {
+        InventoryReader inventory = refreshInventory(watermark, newestSeen);
+        List<AQLItemRootVersion> items = VersionSelector.findVersionsToDelete(
+                consumer -> IntStream.range(0, inventory.size())
+                        .forEach(row -> consumer.accept(AQLItemRootVersion.of(inventory, row))), minRemain, minData);
+
+        Set<String> deleted = new HashSet<>();
+        try {
+            deleteVersions(items, deleted);
+        } finally {
+            inventories.save(job, inventory, deleted);
+        }
+        return items;
+    }
+
+    private InventoryReader refreshInventory(Optional<Watermark> watermark, LongAccumulator newestSeen) {
+        return inventories.refresh(job, watermark, (criteria, writer) -> findVersions(criteria, newestSeen,
+                item -> writer.add(item.getPath(), item.getVersion(), time(item.getCreated()), time(item.getModified()),
+                        item.getSize())));
+    }
+
+    private void findVersions(String criteria, LongAccumulator newestSeen, Consumer<AQLItemRootVersion> consumer) {
+        String itemsQueryForAllVersion = getItemsQueryForAllVersion(criteria);
+        LOGGER.info("Finding versions items with query: {}", itemsQueryForAllVersion);
+
+        aqlPager.find(itemsQueryForAllVersion, AQLItemRootVersion.class, item -> {
+            newestSeen.accumulate(time(item.getModified()));
+            consumer.accept(item);
+        });
+    }
+
+    static long time(Date date) {
+        return date == null ? Long.MIN_VALUE : date.getTime();
+    }
+
+    /**
+     * Delete the oldest versions up to limit.
+     *
+     * @param deleted collects inventory keys of versions with all items deleted
+     */
+    private void deleteVersions(List<AQLItemRootVersion> items, Set<String> deleted) {
         if (items.isEmpty()) {
             LOGGER.info("There are no matching versions to remove for {}/{}", repo, root);
             return;
         }
 
         LOGGER.info("{} versions for deleting for: {},{}", items.size(), repo, root);
+        FolderSizes sizes = FolderSizes.of(deleteOrder, aqlPager);
+        List<AQLItemRootVersion> versions = sizes.largest(repo, items,
+                version -> InventoryStore.key(version.getPath(), version.getVersion()), limit);
+        Set<String> plannedPaths = new LinkedHashSet<>();
+        Map<AQLItemRootVersion, List<String>> versionPaths = planVersions(versions, plannedPaths);
+
+        List<PlannedDelete> planned = sizes.order(repo, coalesceDeletes
+                ? new DeleteCoalescer(aqlPager).coalesce(repo, root, plannedPaths)
+                : plannedPaths.stream().map(PlannedDelete::of).collect(Collectors.toList()));
+
+        List<CompletableFuture<Void>> deletes = new ArrayList<>();
+        Map<String, CompletableFuture<Void>> pathDeletes = new HashMap<>();
+        for (PlannedDelete delete : planned) {
+            CompletableFuture<Void> request = deleter.delete(repo, delete.getPath());
+            deletes.add(request);
+            delete.getItems().forEach(path -> pathDeletes.put(path, request));
+        }
+
+        int failed = DeleteExecutor.awaitAll(deletes);
+        sizes.reportReclaimed(metrics, repo + "/" + root, FolderSizes.reclaimed(planned, deletes));
+
+        versionPaths.forEach((version, paths) -> {
+            if (paths.stream().map(pathDeletes::get).noneMatch(CompletableFuture::isCompletedExceptionally)) {
+                deleted.add(InventoryStore.key(version.getPath(), version.getVersion()));
+            }
+        });
 
-        items.stream().limit(limit).forEach(this::deleteVersion);
+        checkFailed(failed, deletes.size());
     }
 
-    private <T> T executeQuery(String query, Class<? extends T> returnClass) {
+    /**
+     * Find items of versions by batches of queries and plan their deletes.
+     *
+     * @param plannedPaths collects paths planned for deleting
+     * @return paths of items by version
+     */
+    private Map<AQLItemRootVersion, List<String>> planVersions(List<AQLItemRootVersion> versions,
+            Set<String> plannedPaths) {
+        Map<AQLItemRootVersion, List<String>> versionPaths = new LinkedHashMap<>();
+        for (int from = 0; from < versions.size(); from += VERSIONS_PER_QUERY) {
+            List<AQLItemRootVersion> batch = versions.subList(from, Math.min(from + VERSIONS_PER_QUERY, versions.size()));
+            Map<AQLItemRootVersion, List<AQLItemPath>> itemsForVersions = getItemsForVersions(batch);
+            batch.forEach(version -> versionPaths.put(version,
+                    planVersion(version, itemsForVersions.get(version), plannedPaths)));
+        }
+        return versionPaths;
+    }
 
-        ArtifactoryRequest request = new ArtifactoryRequestImpl()
-                .method(ArtifactoryRequest.Method.POST)
-                .apiUrl("api/search/aql")
-                .requestType(ArtifactoryRequest.ContentType.TEXT)
-                .responseType(ArtifactoryRequest.ContentType.JSON)
-                .requestBody(query);
+    /**
+     * Failed deletes after deadline are left for the next run, otherwise they fail the job.
+     */
+    private void checkFailed(int failed, int total) {
+        if (failed > 0 && deadline.isReached()) {
+            throw new DeadlineExceededException(job + " stopped with " + failed + " of " + total
+                    + " items not deleted, they are left for the next run");
+        }
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + total + " items could not be deleted from " + repo);
+        }
+    }
 
-        return Try.of(
-                Retry.decorateCheckedSupplier(
-                        retry,
-                        () -> artifactory
-                                .restCall(request)
-                                .parseBody(returnClass)
-                )
-        ).get();
+    private void updateWatermark(Optional<Watermark> watermark, long run, long newestSeen) {
+        if (watermarks != null) {
+            watermarks.put(job, Incremental.next(watermark, run, newestSeen));
+        }
     }
 
-    private List<AQLItemRootVersion> getAllVersions() {
-        String itemsQueryForAllVersion = getItemsQueryForAllVersion();
-        LOGGER.info("Finding versions items with query: {}", itemsQueryForAllVersion);
+    /**
+     * Without inventory check if the root must be evaluated by this run.
+     */
+    private boolean isUnchanged(Optional<Watermark> watermark, Date minData) {
+        return inventories == null && watermark.isPresent() && !hasChanges(watermark.get(), minData);
+    }
 
-        AQLItemsRootVersion items = executeQuery(itemsQueryForAllVersion, AQLItemsRootVersion.class);
-        return items.getResults().stream().sorted().collect(Collectors.toList());
+    /**
+     * Check if any version was modified since watermark or became older than {@code minData} since the last run.
+     */
+    private boolean hasChanges(Watermark watermark, Date minData) {
+        long previousMinData = watermark.getRun() - (System.currentTimeMillis() - minData.getTime());
+        String query = "items.find({\"$and\":["
+                + "{\"repo\":\"" + repo + "\"},"
+                + "{\"path\":{\"$match\":\"" + root + "/*\"}},"
+                + "{\"name\":{\"$match\":\"*.pom\"}},"
+                + "{\"$or\":[" + Incremental.modifiedSince(watermark) + ","
+                + "{\"$and\":["
+                + "{\"created\":{\"$gt\":\"" + AqlDates.format(previousMinData - Incremental.OVERLAP_MILLIS) + "\"}},"
+                + "{\"created\":{\"$lte\":\"" + AqlDates.format(minData.getTime()) + "\"}}"
+                + "]}]}]}).include(\"repo\",\"path\",\"name\").limit(1)";
+        LOGGER.info("Finding changed versions with query: {}", query);
+
+        return !search.findAll(query, AQLItemRootVersion.class).isEmpty();
     }
 
     @SuppressWarnings("PMD")
-    private String getItemsQueryForAllVersion() {
+    private String getItemsQueryForAllVersion(String criteria) {
         StringBuilder result = new StringBuilder();
         result.append("items.find(");
 
         result.append("{\"repo\":\"").append(repo).append("\"},");
         result.append("{\"path\": {\"$match\":\"").append(root).append("/*\"}},");
         result.append("{\"name\" : {\"$match\":\"*.pom\"}}");
+        if (criteria != null) {
+            result.append(',').append(criteria);
+        }
 
         result.append(")");
-        result.append(".include(\"repo\", \"path\", \"name\", \"created\")");
+        result.append(".include(\"repo\", \"path\", \"name\", \"created\", \"modified\", \"size\")");
 
         return result.toString();
     }
 
     @SuppressWarnings("PMD")
-    private String getItemsQueryForVersion(AQLItemRootVersion version) {
+    private String getItemsQueryForVersions(List<AQLItemRootVersion> versions) {
         StringBuilder result = new StringBuilder();
         result.append("items.find(");
 
         result.append("{\"repo\":\"").append(repo).append("\"},");
-        result.append("{\"path\": {\"$match\":\"").append(version.getParentPath()).append("/*\"}},");
-        result.append("{\"name\" : {\"$match\":\"*-").append(version.getVersion()).append(".pom\"}}");
+        result.append("{\"$or\":[");
+        for (int i = 0; i < versions.size(); i++) {
+            AQLItemRootVersion version = versions.get(i);
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append("{\"$and\":[");
+            result.append("{\"path\": {\"$match\":\"").append(version.getParentPath()).append("/*\"}},");
+            result.append("{\"name\" : {\"$match\":\"*-").append(version.getVersion()).append(".pom\"}}");
+            result.append("]}");
+        }
+        result.append("]}");
 
         result.append(")");
         result.append(".include(\"repo\", \"path\", \"name\", \"created\")");
@@ -143,29 +394,44 @@ public class ReleasesCleaner {
         return result.toString();
     }
 
-    private void deleteVersion(AQLItemRootVersion version) {
+    /**
+     * Plan deletes of items of version, items shared with versions planned before are planned only once.
+     *
+     * @return paths of items of version
+     */
+    private List<String> planVersion(AQLItemRootVersion version, List<AQLItemPath> itemPaths, Set<String> plannedPaths) {
 
         LOGGER.info("");
         LOGGER.info("*****");
         LOGGER.info("Delete items from {}/{} for version {} created at {}",
                 repo, version.getParentPath(), version.getVersion(), version.getCreated());
 
-        List<AQLItemPath> itemPaths = getItemsForVersion(version);
-        itemPaths.forEach(this::deletePath);
+        List<String> result = itemPaths.stream()
+                .map(AQLItemPath::getPath)
+                .collect(Collectors.toList());
+        plannedPaths.addAll(result);
 
         LOGGER.info("*****");
+        return result;
     }
 
-    private List<AQLItemPath> getItemsForVersion(AQLItemRootVersion version) {
-        String itemsQueryForVersion = getItemsQueryForVersion(version);
-        LOGGER.info("Finding items with query: {}", itemsQueryForVersion);
+    /**
+     * Find items of many versions with one query and split them back by version.
+     */
+    private Map<AQLItemRootVersion, List<AQLItemPath>> getItemsForVersions(List<AQLItemRootVersion> versions) {
+        String itemsQueryForVersions = getItemsQueryForVersions(versions);
+        LOGGER.info("Finding items with query: {}", itemsQueryForVersions);
 
-        AQLItemsPath itemsPath = executeQuery(itemsQueryForVersion, AQLItemsPath.class);
-        return itemsPath.getResults().stream().sorted().collect(Collectors.toList());
-    }
+        Map<AQLItemRootVersion, Set<AQLItemPath>> found = new LinkedHashMap<>();
+        versions.forEach(version -> found.put(version, new HashSet<>()));
+
+        aqlPager.find(itemsQueryForVersions, AQLItemPath.class,
+                item -> versions.stream()
+                        .filter(version -> version.contains(item))
+                        .forEach(version -> found.get(version).add(item)));
 
-    private void deletePath(AQLItemPath path) {
-        LOGGER.info("Delete {}/{}", repo, path.getPath());
-        artifactory.repository(repo).delete(path.getPath());
+        Map<AQLItemRootVersion, List<AQLItemPath>> result = new LinkedHashMap<>();
+        found.forEach((version, items) -> result.put(version, items.stream().sorted().collect(Collectors.toList())));
+        return result;
     }
 }
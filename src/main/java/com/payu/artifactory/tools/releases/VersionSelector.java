@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.releases;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.payu.artifactory.tools.aql.ItemColumns;
+import com.payu.artifactory.tools.aql.PathTrie;
+import com.payu.artifactory.tools.version.VersionKey;
+
+/**
+ * Selection of released versions to delete from all versions of root.
+ */
+final class VersionSelector {
+
+    private VersionSelector() {
+    }
+
+    /**
+     * Sort found versions and select the oldest ones, except the newest {@code minRemain} versions
+     * and versions created after {@code minData}.
+     *
+     * <p>Versions are stored by columns and sorted by rank of their version, items are created only for
+     * the selected ones. The same version found more than once, with the same path and creation time, eg. by
+     * overlapping pages or by query and inventory, is counted once, so it doesn't push out one of the newest.
+     *
+     * @param versions source of versions, called once with consumer of all versions
+     * @return versions to delete, the oldest first
+     */
+    static List<AQLItemRootVersion> findVersionsToDelete(
+            Consumer<Consumer<AQLItemRootVersion>> versions, int minRemain, Date minData
+    ) {
+        PathTrie paths = new PathTrie();
+        ItemColumns columns = new ItemColumns(paths);
+        versions.accept(version -> columns.add(paths.intern(version.getPath()), version.getVersion(),
+                ReleasesCleaner.time(version.getCreated()), ReleasesCleaner.time(version.getModified()), version.getSize()));
+
+        int[] ranks = columns.rankVersions(VersionKey::parse);
+        ItemColumns.Rows rows = columns.rows();
+        rows.sort((row, other) -> compareVersions(columns, ranks, row, other));
+        int[] unique = uniqueVersions(columns, rows);
+
+        // keep the newest ones and the ones created after min date
+        List<AQLItemRootVersion> items = new ArrayList<>();
+        for (int i = 0; i < unique.length - minRemain; i++) {
+            int row = unique[i];
+            if (columns.getCreated(row) <= minData.getTime()) {
+                items.add(AQLItemRootVersion.of(columns, row));
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Order by rank of version, then by path, version and creation time, so the same version is next to each other.
+     */
+    private static int compareVersions(ItemColumns columns, int[] ranks, int row, int other) {
+        int result = Integer.compare(ranks[columns.getVersionId(row)], ranks[columns.getVersionId(other)]);
+        if (result == 0) {
+            result = Integer.compare(columns.getNode(row), columns.getNode(other));
+        }
+        if (result == 0) {
+            result = Integer.compare(columns.getVersionId(row), columns.getVersionId(other));
+        }
+        return result != 0 ? result : Long.compare(columns.getCreated(row), columns.getCreated(other));
+    }
+
+    /**
+     * Sorted rows without repeated versions.
+     */
+    private static int[] uniqueVersions(ItemColumns columns, ItemColumns.Rows rows) {
+        int[] unique = new int[rows.size()];
+        int count = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            if (count == 0 || !isSameVersion(columns, unique[count - 1], row)) {
+                unique[count++] = row;
+            }
+        }
+        return Arrays.copyOf(unique, count);
+    }
+
+    private static boolean isSameVersion(ItemColumns columns, int row, int other) {
+        return columns.getNode(row) == columns.getNode(other)
+                && columns.getVersionId(row) == columns.getVersionId(other)
+                && columns.getCreated(row) == columns.getCreated(other);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker shared by all requests to Artifactory.
+ *
+ * <p>After {@code failureThreshold} unhealthy failures in a row the circuit opens and all callers wait, instead of
+ * failing, until the open period is over. Then one probe request is let through, its success closes the circuit
+ * and releases all callers, its failure opens the circuit again for a doubled period, up to ten times the first one.
+ * Only failures which show the server is unhealthy are counted, see {@link #isUnhealthy(Throwable)}.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int MAX_OPEN_FACTOR = 10;
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long currentOpenNanos;
+    private long openUntil;
+    private boolean probing;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be positive: " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.currentOpenNanos = openNanos;
+    }
+
+    /**
+     * Wait until request may be sent.
+     *
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!mayPass()) {
+                if (state == State.OPEN) {
+                    changed.awaitNanos(openUntil - System.nanoTime());
+                } else {
+                    changed.await();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean mayPass() {
+        if (state == State.OPEN && System.nanoTime() - openUntil >= 0) {
+            state = State.HALF_OPEN;
+            probing = false;
+            LOGGER.info("Circuit half-open, probing Artifactory");
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) {
+                return false;
+            }
+            probing = true;
+        }
+        return state != State.OPEN;
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            failures = 0;
+            if (state != State.CLOSED) {
+                LOGGER.info("Circuit closed, Artifactory is healthy again");
+                state = State.CLOSED;
+                currentOpenNanos = openNanos;
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onError(Throwable error) {
+        if (!isUnhealthy(error)) {
+            onSuccess();
+            return;
+        }
+
+        lock.lock();
+        try {
+            failures++;
+            if (state == State.HALF_OPEN) {
+                currentOpenNanos = Math.min(currentOpenNanos * 2, openNanos * MAX_OPEN_FACTOR);
+                open();
+            } else if (state == State.CLOSED && failures >= failureThreshold) {
+                open();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        probing = false;
+        openUntil = System.nanoTime() + currentOpenNanos;
+        LOGGER.warn("Circuit opened after {} failures, all requests paused for {} s",
+                failures, TimeUnit.NANOSECONDS.toSeconds(currentOpenNanos));
+        changed.signalAll();
+    }
+
+    /**
+     * Failure which shows server is unhealthy, eg. connection failure or 429 and 5xx responses.
+     */
+    static boolean isUnhealthy(Throwable error) {
+        if (error instanceof HttpResponseException) {
+            int status = ((HttpResponseException) error).getStatusCode();
+            return status == TOO_MANY_REQUESTS || status >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+        }
+        return error instanceof IOException;
+    }
+
+    boolean isOpen() {
+        lock.lock();
+        try {
+            return state != State.CLOSED;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
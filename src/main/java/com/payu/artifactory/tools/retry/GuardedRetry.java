@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.retry;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+
+/**
+ * Retry which lets each attempt through circuit breaker and reports its result back.
+ *
+ * <p>Retry context is created just before the first attempt, so waiting for the breaker there pauses also new
+ * requests, not only retried ones.
+ */
+class GuardedRetry implements Retry {
+
+    private final Retry delegate;
+    private final CircuitBreaker circuitBreaker;
+
+    GuardedRetry(Retry delegate, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Context context() {
+        awaitCircuit();
+        return new GuardedContext(delegate.context());
+    }
+
+    private void awaitCircuit() {
+        try {
+            circuitBreaker.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while circuit is open", e);
+        }
+    }
+
+    @Override
+    public RetryConfig getRetryConfig() {
+        return delegate.getRetryConfig();
+    }
+
+    @Override
+    public EventPublisher getEventPublisher() {
+        return delegate.getEventPublisher();
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return delegate.getMetrics();
+    }
+
+    private final class GuardedContext<T> implements Context<T> {
+
+        private final Context<T> context;
+
+        private GuardedContext(Context<T> context) {
+            this.context = context;
+        }
+
+        @Override
+        public void onSuccess() {
+            circuitBreaker.onSuccess();
+            context.onSuccess();
+        }
+
+        @Override
+        public boolean onResult(T result) {
+            return context.onResult(result);
+        }
+
+        @Override
+        public void onError(Exception exception) throws Throwable {
+            circuitBreaker.onError(exception);
+            context.onError(exception);
+            awaitCircuit();
+        }
+
+        @Override
+        public void onRuntimeError(RuntimeException runtimeException) {
+            circuitBreaker.onError(runtimeException);
+            context.onRuntimeError(runtimeException);
+            awaitCircuit();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.payu.artifactory.tools.deadline.Deadline;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retries of requests to Artifactory shared by all jobs of one run.
+ *
+ * <p>Waits grow exponentially from {@code initialWait} up to {@code maxWait} with full jitter, each wait is random
+ * between zero and its exponential value, so retries of parallel workers don't hit the server at the same time.
+ * Every failed attempt of the run takes one from the shared budget, when it is spent failed requests are not retried
+ * anymore. Failed requests are not retried either after deadline of job is reached.
+ * Each attempt passes through the shared {@link CircuitBreaker}.
+ */
+@Slf4j
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialWaitMillis;
+    private final long maxWaitMillis;
+    private final AtomicInteger budget;
+    private final CircuitBreaker circuitBreaker;
+
+    public RetryPolicy(int maxAttempts, Duration initialWait, Duration maxWait, int budget,
+            CircuitBreaker circuitBreaker) {
+        this.maxAttempts = maxAttempts;
+        this.initialWaitMillis = Math.max(1, initialWait.toMillis());
+        this.maxWaitMillis = Math.max(initialWaitMillis, maxWait.toMillis());
+        this.budget = new AtomicInteger(budget);
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * New retry, which should be used by one job only.
+     *
+     * @param name name of retry in logs and metrics
+     * @return new retry
+     */
+    public Retry newRetry(String name) {
+        return newRetry(name, Deadline.NONE);
+    }
+
+    /**
+     * New retry, which should be used by one job only, failed requests are not retried after its deadline.
+     *
+     * @param name name of retry in logs and metrics
+     * @param deadline deadline of job
+     * @return new retry
+     */
+    public Retry newRetry(String name, Deadline deadline) {
+        RetryConfig retryConfig = RetryConfig.custom()
+                .maxAttempts(maxAttempts)
+                .intervalFunction(this::fullJitter)
+                .retryOnException(e -> !deadline.isReached() && takeFromBudget())
+                .build();
+
+        Retry retry = Retry.of(name, retryConfig);
+
+        retry.getEventPublisher()
+                .onRetry(e -> LOGGER.warn("Retry attempt: #" + e.getNumberOfRetryAttempts(), e.getLastThrowable()));
+
+        return new GuardedRetry(retry, circuitBreaker);
+    }
+
+    /**
+     * Wait before given retry attempt, starting from 1.
+     */
+    long fullJitter(int attempt) {
+        long exponential = initialWaitMillis << Math.min(attempt - 1, Long.numberOfLeadingZeros(initialWaitMillis) - 1);
+        // IntervalFunction rejects zero wait
+        return 1 + ThreadLocalRandom.current().nextLong(Math.min(exponential, maxWaitMillis));
+    }
+
+    private boolean takeFromBudget() {
+        int left = budget.getAndDecrement();
+        if (left == 0) {
+            LOGGER.warn("Retry budget of the run is spent, failed requests are not retried anymore");
+        }
+        return left > 0;
+    }
+
+    public int getBudgetLeft() {
+        return Math.max(0, budget.get());
+    }
+}
@@ -17,90 +17,215 @@
 
 package com.payu.artifactory.tools.snapshot;
 
+import com.payu.artifactory.tools.aql.AqlPager;
+import com.payu.artifactory.tools.aql.AqlSearch;
+import com.payu.artifactory.tools.aql.PathGroups;
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.deadline.DeadlineExceededException;
+import com.payu.artifactory.tools.delete.DeleteCoalescer;
+import com.payu.artifactory.tools.delete.DeleteOrder;
+import com.payu.artifactory.tools.delete.Deleter;
+import com.payu.artifactory.tools.delete.FolderSizes;
+import com.payu.artifactory.tools.delete.PlannedDelete;
+import com.payu.artifactory.tools.incremental.ItemSource;
+import com.payu.artifactory.tools.incremental.WatermarkStore;
+import com.payu.artifactory.tools.inventory.InventoryStore;
+import com.payu.artifactory.tools.metrics.JobMetrics;
+import com.payu.artifactory.tools.pipeline.CleanerPipeline;
+import com.payu.artifactory.tools.transport.ArtifactoryTransport;
+import com.payu.artifactory.tools.transport.ClientTransport;
+import com.payu.artifactory.tools.version.VersionKeyCache;
 import io.github.resilience4j.retry.Retry;
-import io.vavr.control.Try;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.jfrog.artifactory.client.Artifactory;
-import org.jfrog.artifactory.client.ArtifactoryRequest;
-import org.jfrog.artifactory.client.impl.ArtifactoryRequestImpl;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class SnapshotCleaner {
 
-    private static final String SNAPSHOT = "-SNAPSHOT";
-
-    private final Artifactory artifactory;
+    private ArtifactoryTransport transport;
     private final Retry retry;
+    private final Deleter deleter;
+    private final int pageSize;
     private final String snapshotRepo;
     private final String releaseRepo;
 
-    public SnapshotCleaner(Artifactory artifactory, Retry retry, String snapshotRepo, String releaseRepo) {
+    private final String job;
+
+    private WatermarkStore watermarks;
+    private InventoryStore inventories;
+    private JobMetrics metrics = JobMetrics.NONE;
+    private int pendingDeletes = CleanerPipeline.DEFAULT_PENDING_DELETES;
+    private int planningParallelism = 1;
+    private boolean coalesceDeletes;
+    private DeleteOrder deleteOrder = DeleteOrder.VERSION;
+    private Deadline deadline = Deadline.NONE;
+
+    public SnapshotCleaner(
+            Artifactory artifactory, Retry retry, Deleter deleter, int pageSize,
+            String snapshotRepo, String releaseRepo
+    ) {
         Objects.requireNonNull(artifactory, "artifactory must be set");
         Objects.requireNonNull(retry, "retry must be set");
-        this.artifactory = artifactory;
+        Objects.requireNonNull(deleter, "deleter must be set");
+        this.transport = new ClientTransport(artifactory);
         this.retry = retry;
+        this.deleter = deleter;
+        this.pageSize = pageSize;
         this.snapshotRepo = snapshotRepo;
         this.releaseRepo = releaseRepo;
+        this.job = "snapshot:" + snapshotRepo;
+    }
+
+    /**
+     * Send AQL queries by other transport than Artifactory client.
+     *
+     * @param transport transport of AQL queries
+     */
+    public void setTransport(ArtifactoryTransport transport) {
+        this.transport = transport;
+    }
+
+    public void setMetrics(JobMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Enable incremental run, only artifacts with versions modified since the previous run are evaluated.
+     *
+     * @param watermarks watermarks of jobs, {@code null} for full scan
+     */
+    public void setWatermarks(WatermarkStore watermarks) {
+        this.watermarks = watermarks;
+    }
+
+    /**
+     * Plan from local inventory of repositories, kept up to date by scanning only items changed since
+     * the previous run.
+     *
+     * @param inventories inventories of jobs, {@code null} to plan from AQL results
+     */
+    public void setInventories(InventoryStore inventories) {
+        this.inventories = inventories;
+    }
+
+    /**
+     * Highest number of deletes of this job queued or in flight, planning waits when it is reached.
+     *
+     * @param pendingDeletes highest number of pending deletes
+     */
+    public void setPendingDeletes(int pendingDeletes) {
+        this.pendingDeletes = pendingDeletes;
+    }
+
+    /**
+     * Number of groups planned at the same time.
+     *
+     * @param planningParallelism number of planning threads
+     */
+    public void setPlanningParallelism(int planningParallelism) {
+        this.planningParallelism = planningParallelism;
+    }
+
+    /**
+     * Stop reading and planning when deadline of job is reached, deletes already planned are finished.
+     *
+     * @param deadline deadline of job
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Delete artifact folder once instead of its snapshots when all of them are deleted.
+     *
+     * @param coalesceDeletes true to delete whole folders
+     */
+    public void setCoalesceDeletes(boolean coalesceDeletes) {
+        this.coalesceDeletes = coalesceDeletes;
+    }
+
+    /**
+     * Order of deletes of each artifact, by size they also report bytes reclaimed.
+     *
+     * @param deleteOrder order of deletes
+     */
+    public void setDeleteOrder(DeleteOrder deleteOrder) {
+        this.deleteOrder = deleteOrder;
     }
 
     public void execute() {
-        String itemsQuery = getItemsQuery();
-
-        LOGGER.info("Finding maven items with query: {}", itemsQuery);
-
-        ArtifactoryRequest request = new ArtifactoryRequestImpl()
-                .method(ArtifactoryRequest.Method.POST)
-                .apiUrl("api/search/aql")
-                .requestType(ArtifactoryRequest.ContentType.TEXT)
-                .responseType(ArtifactoryRequest.ContentType.JSON)
-                .requestBody(itemsQuery);
-
-        AQLItems items = Try.of(
-            Retry.decorateCheckedSupplier(
-                retry,
-                () -> artifactory
-                    .restCall(request)
-                    .parseBody(AQLItems.class)
-            )
-        ).get();
-
-        Map<String, List<String>> pv = items.getResults().stream().collect(
-            Collectors.groupingBy(AQLItem::getPath, Collectors.mapping(AQLItem::getVersion, Collectors.toList()))
-        );
-        pv.replaceAll((k, v) -> getSnapshotsToDelete(v));
-        pv.entrySet().stream().forEach(e -> deleteSnapshots(e.getKey(), e.getValue()));
+        AqlPager aqlPager = new AqlPager(new AqlSearch(transport, retry, metrics), pageSize, deadline);
+        DeleteCoalescer coalescer = coalesceDeletes ? new DeleteCoalescer(aqlPager) : null;
+        FolderSizes sizes = FolderSizes.of(deleteOrder, aqlPager);
+        ItemSource<AQLItem> items =
+                new ItemSource<>(job, aqlPager, AQLItem.class, AQLItem::new, this::getItemsQuery, watermarks, inventories);
+
+        VersionKeyCache versionKeys = new VersionKeyCache();
+        PathGroups<SnapshotGroup> pv = new PathGroups<>(items.getPaths());
+
+        try (CleanerPipeline<SnapshotGroup> pipeline = new CleanerPipeline<>(job, snapshotRepo, deleter, pendingDeletes,
+                planningParallelism, deadline, (path, group) -> planSnapshots(path, group, coalescer, sizes))) {
+            boolean read = items.forEach(item -> pv.computeIfAbsent(item, () -> new SnapshotGroup(versionKeys))
+                    .add(item.getVersion()), () -> pv.drain(pipeline::plan));
+            pipeline.finish();
+            sizes.reportReclaimed(metrics, snapshotRepo, pipeline.getReclaimed());
+            finish(items, pipeline, read);
+        }
     }
 
-    private static List<String> getSnapshotsToDelete(List<String> input) {
-        List<String> result = null;
+    /**
+     * Save progress of job and fail it when some snapshots were not deleted.
+     *
+     * <p>Deletes failed after the deadline, eg. queued deletes which were not sent, stop the job like unread groups,
+     * their snapshots are left for the next run.
+     *
+     * @param read false when reading of items was stopped by deadline
+     */
+    private void finish(ItemSource<AQLItem> items, CleanerPipeline<SnapshotGroup> pipeline, boolean read) {
+        int failed = pipeline.getFailed();
+        boolean stopped = !read || pipeline.isStopped() || failed > 0 && deadline.isReached();
+        items.finish(pipeline.getDeleted(), failed == 0 && !stopped);
+
+        if (stopped) {
+            throw new DeadlineExceededException(job + " stopped after deleting " + pipeline.getDeleted().size()
+                    + " snapshots, the rest is left for the next run");
+        }
 
-        Optional<ComparableVersion> newestRelease = input.stream()
-                .filter(c -> !c.endsWith(SNAPSHOT))
-                .max((v1, v2) -> new ComparableVersion(v1).compareTo(new ComparableVersion(v2)))
-                .map(s -> new ComparableVersion(s));
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + pipeline.getSubmitted()
+                    + " snapshots could not be deleted from " + snapshotRepo);
+        }
+    }
 
-        if (newestRelease.isPresent()) {
-            ComparableVersion newest = newestRelease.get();
-            result = input.stream()
-                        .filter(c -> c.endsWith(SNAPSHOT) && newest.compareTo(new ComparableVersion(c)) > 0)
-                        .collect(Collectors.toList());
+    /**
+     * Deletes of old snapshots of artifact.
+     *
+     * @param coalescer coalescer of deletes, {@code null} when disabled
+     * @param sizes sizes of snapshot folders, deletes are ordered by them when known
+     */
+    private List<PlannedDelete> planSnapshots(String path, SnapshotGroup group, DeleteCoalescer coalescer,
+            FolderSizes sizes) {
+        List<String> snapshots = group.getSnapshotsToDelete().stream()
+                .map(version -> InventoryStore.key(path, version))
+                .collect(Collectors.toList());
+
+        List<PlannedDelete> deletes;
+        // with releases in the same repository artifact folder is never emptied
+        if (coalescer != null && !snapshotRepo.equals(releaseRepo) && snapshots.size() == group.getSnapshotCount()) {
+            deletes = coalescer.coalesce(snapshotRepo, DeleteCoalescer.parent(path), snapshots);
         } else {
-            result = Collections.emptyList();
+            deletes = snapshots.stream().map(PlannedDelete::of).collect(Collectors.toList());
         }
 
-        return result;
+        return sizes.order(snapshotRepo, deletes);
     }
 
-    private String getItemsQuery() {
-        StringBuilder result = new StringBuilder(100);
+    private String getItemsQuery(String criteria) {
+        StringBuilder result = new StringBuilder(256);
         result.append("items.find({");
 
         if (snapshotRepo.equals(releaseRepo)) {
@@ -111,15 +236,11 @@ public class SnapshotCleaner {
             result.append("\"}]");
         }
 
-        result.append(",\"name\":{\"$match\":\"*.pom\"}}).include(\"repo\",\"path\",\"name\")");
-        return result.toString();
-    }
-
-    private void deleteSnapshots(String path, List<String> versions) {
-        for (String version: versions) {
-            String fp = path + "/" + version;
-            LOGGER.info("Delete: {}/{}", snapshotRepo, fp);
-            artifactory.repository(snapshotRepo).delete(fp);
+        result.append(",\"name\":{\"$match\":\"*.pom\"}");
+        if (criteria != null) {
+            result.append(",\"$and\":[").append(criteria).append(']');
         }
+        result.append("}).include(\"repo\",\"path\",\"name\",\"created\",\"modified\",\"size\")");
+        return result.toString();
     }
 }
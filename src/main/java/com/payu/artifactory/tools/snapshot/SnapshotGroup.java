@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.snapshot;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.payu.artifactory.tools.version.VersionKey;
+import com.payu.artifactory.tools.version.VersionKeyCache;
+
+/**
+ * Versions of one artifact collected while AQL result is read.
+ *
+ * <p>Only the newest release is remembered, snapshots are kept until the newest release is known.
+ */
+class SnapshotGroup {
+
+    private static final String SNAPSHOT = "-SNAPSHOT";
+
+    private final VersionKeyCache versionKeys;
+    private final Set<String> snapshots = new HashSet<>();
+    private VersionKey newestRelease;
+
+    SnapshotGroup(VersionKeyCache versionKeys) {
+        this.versionKeys = versionKeys;
+    }
+
+    void add(String version) {
+        if (version.endsWith(SNAPSHOT)) {
+            snapshots.add(version);
+        } else {
+            VersionKey release = versionKeys.get(version);
+            if (newestRelease == null || newestRelease.compareTo(release) < 0) {
+                newestRelease = release;
+            }
+        }
+    }
+
+    int getSnapshotCount() {
+        return snapshots.size();
+    }
+
+    List<String> getSnapshotsToDelete() {
+        if (newestRelease == null) {
+            return Collections.emptyList();
+        }
+
+        return snapshots.stream()
+                .filter(c -> newestRelease.compareTo(versionKeys.get(c)) > 0)
+                .collect(Collectors.toList());
+    }
+}
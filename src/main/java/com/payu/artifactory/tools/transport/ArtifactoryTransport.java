@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Requests to Artifactory used by cleaners.
+ *
+ * <p>Failed requests complete futures with {@link org.apache.http.client.HttpResponseException} carrying status of
+ * response, or with {@link java.io.IOException} when no response was received.
+ */
+public interface ArtifactoryTransport {
+
+    /**
+     * Execute AQL query.
+     *
+     * @param query AQL query
+     * @return future of response body, which must be closed by caller
+     */
+    CompletableFuture<InputStream> aql(String query);
+
+    /**
+     * Delete item from repository.
+     *
+     * @param repoKey repository of item
+     * @param path path of item
+     * @return future of delete
+     */
+    CompletableFuture<Void> delete(String repoKey, String path);
+
+    /**
+     * Wait for request and rethrow its failure as it was thrown by blocking call.
+     *
+     * @param <T> type of result
+     * @param request request in flight
+     * @return result of request
+     * @throws IOException when request failed or waiting was interrupted
+     */
+    @SuppressWarnings("PMD.PreserveStackTrace") // failure of request is thrown instead of its wrapper
+    static <T> T await(CompletableFuture<T> request) throws IOException {
+        try {
+            return request.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.cancel(true);
+            throw (InterruptedIOException) new InterruptedIOException("interrupted while waiting for request")
+                    .initCause(e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * Failure of request as checked {@link IOException}, unchecked failures are thrown as they are.
+     *
+     * @param cause failure of request, without wrapper of future
+     * @return failure as checked exception
+     */
+    static IOException unwrap(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.URIBuilder;
+import org.apache.http.client.HttpResponseException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-blocking transport over HTTP/2, all requests are multiplexed on one connection per host.
+ *
+ * <p>HTTP/2 is negotiated by TLS ALPN for {@code https} and used with prior knowledge for {@code http}, so
+ * Artifactory or proxy in front of it must support HTTP/2. Responses are handled by a few I/O threads of client,
+ * AQL responses are buffered whole, so AQL paging should be enabled. Callers which wait for the returned future,
+ * like workers of {@code DeleteExecutor}, still hold their own threads.
+ */
+@Slf4j
+public class AsyncTransport implements ArtifactoryTransport, Closeable {
+
+    private final URI base;
+    private final List<String> basePath;
+    private final CloseableHttpAsyncClient client;
+
+    public AsyncTransport(String url, String user, String password, int maxConcurrentStreams) {
+        try {
+            URIBuilder builder = new URIBuilder(url);
+            this.basePath = builder.getPathSegments();
+            this.base = builder.build();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("invalid Artifactory URL: " + url, e);
+        }
+
+        String credentials = user + ':' + password;
+        client = HttpAsyncClients.customHttp2()
+                .setH2Config(H2Config.custom().setMaxConcurrentStreams(maxConcurrentStreams).build())
+                .setDefaultHeaders(Collections.singletonList(new BasicHeader(HttpHeaders.AUTHORIZATION,
+                        "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)))))
+                .disableAutomaticRetries()
+                .build();
+        client.start();
+
+        LOGGER.info("HTTP/2 transport to {} started", base);
+    }
+
+    @Override
+    public CompletableFuture<InputStream> aql(String query) {
+        SimpleHttpRequest request = SimpleHttpRequest.create("POST", uri(Arrays.asList(ClientTransport.AQL_API.split("/"))));
+        request.setBody(query, ContentType.TEXT_PLAIN);
+        return execute(request, response -> new ByteArrayInputStream(response.getBodyBytes()));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String repoKey, String path) {
+        List<String> segments = new ArrayList<>();
+        segments.add(repoKey);
+        segments.addAll(Arrays.asList(path.split("/")));
+        return execute(SimpleHttpRequest.create("DELETE", uri(segments)), response -> null);
+    }
+
+    private URI uri(List<String> segments) {
+        List<String> path = new ArrayList<>(basePath);
+        path.addAll(segments);
+        try {
+            return new URIBuilder(base).setPathSegments(path).build();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("invalid path: " + path, e);
+        }
+    }
+
+    private <T> CompletableFuture<T> execute(SimpleHttpRequest request, Function<SimpleHttpResponse, T> body) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        client.execute(request, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                int status = response.getCode();
+                if (status < 200 || status >= 300) {
+                    result.completeExceptionally(new HttpResponseException(status,
+                            response.getReasonPhrase() + ": " + response.getBodyText()));
+                } else {
+                    result.complete(body.apply(response));
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                result.completeExceptionally(new IOException("request cancelled: " + request));
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public void close() {
+        client.close(CloseMode.GRACEFUL);
+    }
+}
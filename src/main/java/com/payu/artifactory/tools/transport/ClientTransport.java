@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.jfrog.artifactory.client.Artifactory;
+import org.jfrog.artifactory.client.ArtifactoryRequest;
+import org.jfrog.artifactory.client.ArtifactoryResponse;
+import org.jfrog.artifactory.client.impl.ArtifactoryImpl;
+import org.jfrog.artifactory.client.impl.ArtifactoryRequestImpl;
+
+import io.vavr.CheckedFunction0;
+import io.vavr.control.Try;
+
+/**
+ * Transport by blocking Artifactory client, requests are executed by calling thread.
+ *
+ * <p>AQL response is streamed when the default client implementation is used.
+ */
+public class ClientTransport implements ArtifactoryTransport {
+
+    static final String AQL_API = "api/search/aql";
+
+    private final Artifactory artifactory;
+
+    public ClientTransport(Artifactory artifactory) {
+        this.artifactory = artifactory;
+    }
+
+    @Override
+    public CompletableFuture<InputStream> aql(String query) {
+        return execute(() -> artifactory instanceof ArtifactoryImpl
+                ? openStream((ArtifactoryImpl) artifactory, query)
+                : restCall(query));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String repoKey, String path) {
+        return execute(() -> {
+            artifactory.repository(repoKey).delete(path);
+            return null;
+        });
+    }
+
+    private static <T> CompletableFuture<T> execute(CheckedFunction0<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Try.of(request)
+                .onSuccess(result::complete)
+                .onFailure(result::completeExceptionally);
+        return result;
+    }
+
+    private InputStream restCall(String query) throws IOException {
+        ArtifactoryRequest request = new ArtifactoryRequestImpl()
+                .method(ArtifactoryRequest.Method.POST)
+                .apiUrl(AQL_API)
+                .requestType(ArtifactoryRequest.ContentType.TEXT)
+                .responseType(ArtifactoryRequest.ContentType.JSON)
+                .requestBody(query);
+
+        ArtifactoryResponse response = artifactory.restCall(request);
+        if (!response.isSuccessResponse()) {
+            throw new HttpResponseException(response.getStatusLine().getStatusCode(), response.getRawBody());
+        }
+
+        return new ByteArrayInputStream(response.getRawBody().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream openStream(ArtifactoryImpl artifactory, String query) throws IOException {
+        HttpPost post = new HttpPost(artifactory.getUri() + "/" + AQL_API);
+        post.setEntity(new StringEntity(query, ContentType.TEXT_PLAIN));
+
+        HttpResponse response = artifactory.execute(post);
+        HttpEntity entity = response.getEntity();
+        int status = response.getStatusLine().getStatusCode();
+
+        if (status < 200 || status >= 300) {
+            String body = entity == null ? "" : EntityUtils.toString(entity);
+            throw new HttpResponseException(status, response.getStatusLine().getReasonPhrase() + ": " + body);
+        }
+
+        if (entity == null) {
+            throw new IOException("empty response for AQL query");
+        }
+
+        return entity.getContent();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.version;
+
+import java.util.Arrays;
+
+import com.payu.artifactory.tools.version.VersionParser.Item;
+
+/**
+ * Version parsed once into flat token arrays, ordered exactly like Maven {@code ComparableVersion}.
+ *
+ * <p>Parsing follows {@code ComparableVersion} of maven-artifact 3.0.4, nested lists are stored in
+ * pre-order with the end index of each list, so comparing two keys doesn't allocate anything.
+ */
+public final class VersionKey implements Comparable<VersionKey> {
+
+    private static final byte INT = VersionParser.INT;
+    private static final byte BIG_INT = VersionParser.BIG_INT;
+    private static final byte STRING = VersionParser.STRING;
+    private static final byte LIST = VersionParser.LIST;
+
+    private final String value;
+    private final byte[] kinds;
+    /**
+     * Value of integer, rank of qualifier or end index of list.
+     */
+    private final long[] numbers;
+    /**
+     * Digits of big integer or unknown qualifier.
+     */
+    private final String[] strings;
+    private final int hash;
+
+    private VersionKey(String value, Item root) {
+        this.value = value;
+
+        int size = root.count() - 1;
+        kinds = new byte[size];
+        numbers = new long[size];
+        strings = new String[size];
+
+        int end = flatten(root, 0);
+        if (end != size) {
+            throw new IllegalStateException("wrong size of version " + value);
+        }
+
+        hash = 31 * (31 * Arrays.hashCode(kinds) + Arrays.hashCode(numbers)) + Arrays.hashCode(strings);
+    }
+
+    public static VersionKey parse(String version) {
+        return new VersionKey(version, VersionParser.parse(version));
+    }
+
+    private int flatten(Item list, int from) {
+        int pos = from;
+        for (Item item : list.getChildren()) {
+            int index = pos++;
+            kinds[index] = item.getKind();
+            strings[index] = item.getString();
+            if (item.getKind() == LIST) {
+                pos = flatten(item, pos);
+                numbers[index] = pos;
+            } else {
+                numbers[index] = item.getNumber();
+            }
+        }
+        return pos;
+    }
+
+    @Override
+    public int compareTo(VersionKey o) {
+        return compareLists(this, 0, kinds.length, o, 0, o.kinds.length);
+    }
+
+    private int next(int index) {
+        return kinds[index] == LIST ? (int) numbers[index] : index + 1;
+    }
+
+    private static int compareLists(VersionKey a, int aFrom, int aTo, VersionKey b, int bFrom, int bTo) {
+        int ai = aFrom;
+        int bi = bFrom;
+
+        while (ai < aTo || bi < bTo) {
+            int result;
+            if (ai >= aTo) {
+                result = -b.compareToNull(bi);
+            } else if (bi >= bTo) {
+                result = a.compareToNull(ai);
+            } else {
+                result = compareItems(a, ai, b, bi);
+            }
+
+            if (result != 0) {
+                return result;
+            }
+
+            ai = ai < aTo ? a.next(ai) : ai;
+            bi = bi < bTo ? b.next(bi) : bi;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Compare item with missing item, eg. {@code 1-rc < 1}, {@code 1-sp > 1}.
+     */
+    private int compareToNull(int index) {
+        switch (kinds[index]) {
+            case INT:
+                return numbers[index] == 0 ? 0 : 1;
+            case STRING:
+                return numbers[index] == VersionParser.UNKNOWN ? 1 : Long.compare(numbers[index], VersionParser.RELEASE);
+            case LIST:
+                return numbers[index] == index + 1 ? 0 : compareToNull(index + 1);
+            default:
+                return 1;
+        }
+    }
+
+    private static int compareItems(VersionKey a, int ai, VersionKey b, int bi) {
+        byte aKind = a.kinds[ai];
+        byte bKind = b.kinds[bi];
+
+        int result = Integer.compare(typeOrder(aKind), typeOrder(bKind));
+        if (result != 0) {
+            return result;
+        }
+
+        if (aKind == LIST) {
+            return compareLists(a, ai + 1, (int) a.numbers[ai], b, bi + 1, (int) b.numbers[bi]);
+        }
+        return aKind == STRING ? compareQualifiers(a, ai, b, bi) : compareNumbers(a, ai, b, bi);
+    }
+
+    /**
+     * Order of items with different types, eg. {@code 1-sp < 1-1 < 1.1}.
+     */
+    private static int typeOrder(byte kind) {
+        if (kind == STRING) {
+            return 0;
+        }
+        return kind == LIST ? 1 : 2;
+    }
+
+    private static int compareNumbers(VersionKey a, int ai, VersionKey b, int bi) {
+        boolean aBig = a.kinds[ai] == BIG_INT;
+        boolean bBig = b.kinds[bi] == BIG_INT;
+
+        if (!aBig && !bBig) {
+            return Long.compare(a.numbers[ai], b.numbers[bi]);
+        }
+        if (aBig != bBig) {
+            return aBig ? 1 : -1;
+        }
+
+        String aDigits = a.strings[ai];
+        String bDigits = b.strings[bi];
+        int result = Integer.compare(aDigits.length(), bDigits.length());
+        return result != 0 ? result : aDigits.compareTo(bDigits);
+    }
+
+    private static int compareQualifiers(VersionKey a, int ai, VersionKey b, int bi) {
+        long aRank = a.numbers[ai];
+        long bRank = b.numbers[bi];
+
+        if (aRank == VersionParser.UNKNOWN && bRank == VersionParser.UNKNOWN) {
+            return a.strings[ai].compareTo(b.strings[bi]);
+        }
+        return Long.compare(aRank, bRank);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof VersionKey)) {
+            return false;
+        }
+        VersionKey other = (VersionKey) o;
+        return hash == other.hash
+                && Arrays.equals(kinds, other.kinds)
+                && Arrays.equals(numbers, other.numbers)
+                && Arrays.equals(strings, other.strings);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
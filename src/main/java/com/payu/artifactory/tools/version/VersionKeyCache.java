@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.version;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Intern cache of parsed versions, each distinct version string is parsed only once per run.
+ */
+public class VersionKeyCache {
+
+    private final Map<String, VersionKey> keys = new ConcurrentHashMap<>();
+
+    public VersionKey get(String version) {
+        return keys.computeIfAbsent(version, VersionKey::parse);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+}
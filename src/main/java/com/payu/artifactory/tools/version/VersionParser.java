@@ -0,0 +1,226 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.version;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parser of versions, same as {@code ComparableVersion.parseVersion} of maven-artifact 3.0.4.
+ */
+final class VersionParser {
+
+    static final byte INT = 0;
+    static final byte BIG_INT = 1;
+    static final byte STRING = 2;
+    static final byte LIST = 3;
+
+    private static final List<String> QUALIFIERS = Arrays.asList("alpha", "beta", "milestone", "rc", "snapshot", "", "sp");
+    static final int RELEASE = QUALIFIERS.indexOf("");
+    static final int UNKNOWN = QUALIFIERS.size();
+
+    private static final Map<String, String> SHORT_QUALIFIERS = new HashMap<>();
+    private static final Map<String, String> ALIASES = new HashMap<>();
+
+    static {
+        SHORT_QUALIFIERS.put("a", "alpha");
+        SHORT_QUALIFIERS.put("b", "beta");
+        SHORT_QUALIFIERS.put("m", "milestone");
+
+        ALIASES.put("ga", "");
+        ALIASES.put("final", "");
+        ALIASES.put("cr", "rc");
+    }
+
+    /**
+     * Longest decimal number which always fits in long.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private VersionParser() {
+    }
+
+    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.ModifiedCyclomaticComplexity", "PMD.StdCyclomaticComplexity",
+            "PMD.NPathComplexity"}) // mirrors ComparableVersion.parseVersion
+    static Item parse(String original) {
+        String version = original.toLowerCase(Locale.ENGLISH);
+
+        Item root = list();
+        Item list = root;
+        Deque<Item> stack = new ArrayDeque<>();
+        stack.push(list);
+
+        boolean isDigit = false;
+        int startIndex = 0;
+
+        for (int i = 0; i < version.length(); i++) {
+            char c = version.charAt(i);
+
+            if (c == '.' || c == '-') {
+                if (i == startIndex) {
+                    list.add(zero());
+                } else {
+                    list.add(item(isDigit, version.substring(startIndex, i)));
+                }
+                startIndex = i + 1;
+
+                if (c == '-' && isDigit) {
+                    list.normalize();
+                    if (i + 1 < version.length() && Character.isDigit(version.charAt(i + 1))) {
+                        Item sublist = list();
+                        list.add(sublist);
+                        list = sublist;
+                        stack.push(list);
+                    }
+                }
+            } else if (Character.isDigit(c)) {
+                if (!isDigit && i > startIndex) {
+                    list.add(qualifier(version.substring(startIndex, i), true));
+                    startIndex = i;
+                }
+                isDigit = true;
+            } else {
+                if (isDigit && i > startIndex) {
+                    list.add(item(true, version.substring(startIndex, i)));
+                    startIndex = i;
+                }
+                isDigit = false;
+            }
+        }
+
+        if (version.length() > startIndex) {
+            list.add(item(isDigit, version.substring(startIndex)));
+        }
+
+        while (!stack.isEmpty()) {
+            stack.pop().normalize();
+        }
+
+        return root;
+    }
+
+    private static Item list() {
+        return new Item(LIST, 0, null);
+    }
+
+    private static Item zero() {
+        return new Item(INT, 0, null);
+    }
+
+    private static Item item(boolean isDigit, String buf) {
+        return isDigit ? number(buf) : qualifier(buf, false);
+    }
+
+    private static Item number(String buf) {
+        StringBuilder digits = new StringBuilder(buf.length());
+        for (int i = 0; i < buf.length(); i++) {
+            int digit = Character.digit(buf.charAt(i), 10);
+            if (digits.length() > 0 || digit != 0) {
+                digits.append((char) ('0' + digit));
+            }
+        }
+
+        if (digits.length() > MAX_LONG_DIGITS) {
+            return new Item(BIG_INT, 0, digits.toString());
+        }
+        return new Item(INT, digits.length() == 0 ? 0 : Long.parseLong(digits.toString()), null);
+    }
+
+    private static Item qualifier(String buf, boolean followedByDigit) {
+        String name = followedByDigit ? SHORT_QUALIFIERS.getOrDefault(buf, buf) : buf;
+        name = ALIASES.getOrDefault(name, name);
+
+        int rank = QUALIFIERS.indexOf(name);
+        return rank == -1 ? new Item(STRING, UNKNOWN, name) : new Item(STRING, rank, null);
+    }
+
+    /**
+     * Node of parsed version.
+     */
+    static final class Item {
+        private final byte kind;
+        private final long number;
+        private final String string;
+        private final List<Item> children;
+
+        private Item(byte kind, long number, String string) {
+            this.kind = kind;
+            this.number = number;
+            this.string = string;
+            this.children = kind == LIST ? new ArrayList<>() : null;
+        }
+
+        byte getKind() {
+            return kind;
+        }
+
+        long getNumber() {
+            return number;
+        }
+
+        String getString() {
+            return string;
+        }
+
+        List<Item> getChildren() {
+            return children;
+        }
+
+        private void add(Item child) {
+            children.add(child);
+        }
+
+        private boolean isNull() {
+            switch (kind) {
+                case INT:
+                    return number == 0;
+                case STRING:
+                    return number == RELEASE;
+                case LIST:
+                    return children.isEmpty();
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Remove trailing null items.
+         */
+        private void normalize() {
+            for (int i = children.size() - 1; i >= 0 && children.get(i).isNull(); i--) {
+                children.remove(i);
+            }
+        }
+
+        int count() {
+            int result = 1;
+            if (children != null) {
+                for (Item child : children) {
+                    result += child.count();
+                }
+            }
+            return result;
+        }
+    }
+}
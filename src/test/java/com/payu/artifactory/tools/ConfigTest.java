@@ -98,11 +98,19 @@ class ConfigTest {
 
         Config config = new Config();
 
-        Retry retry = config.getRetry();
+        Retry retry = config.getRetryPolicy().newRetry("test");
 
         assertEquals(12, retry.getRetryConfig().getMaxAttempts());
     }
 
+    @Test
+    void coalescingOfDeletesShouldBeDisabledByDefault() {
+
+        Config config = new Config(new Properties());
+
+        assertFalse(config.isDeleteCoalesce());
+    }
+
     @Test
     void emptyReleaseConfig() {
         Properties properties = new Properties();
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.payu.artifactory.tools.deadline.Deadline;
+
+class JobSchedulerTest {
+
+    @Test
+    void jobsShouldRunInParallel() {
+
+        // given
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        JobScheduler scheduler = new JobScheduler(2);
+        scheduler.add("first", () -> awaitOther(bothStarted));
+        scheduler.add("second", () -> awaitOther(bothStarted));
+
+        // when
+        List<JobScheduler.JobResult> results = scheduler.runAll();
+
+        // then
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(JobScheduler.JobResult::isSuccess));
+    }
+
+    @Test
+    void failedJobShouldNotStopOthers() {
+
+        // given
+        JobScheduler scheduler = new JobScheduler(1);
+        scheduler.add("failing", () -> {
+            throw new IllegalStateException("test");
+        });
+        scheduler.add("ok", () -> { });
+
+        // when
+        List<JobScheduler.JobResult> results = scheduler.runAll();
+
+        // then
+        assertEquals("failing", results.get(0).getName());
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(0).getFailure().isPresent());
+        assertEquals("ok", results.get(1).getName());
+        assertTrue(results.get(1).isSuccess());
+    }
+
+    @Test
+    void duplicateJobNameShouldBeRejected() {
+        JobScheduler scheduler = new JobScheduler(1);
+        scheduler.add("job", () -> { });
+
+        assertThrows(IllegalArgumentException.class, () -> scheduler.add("job", () -> { }));
+    }
+
+    @Test
+    void jobsShouldNotStartAfterDeadline() {
+
+        // given
+        AtomicBoolean started = new AtomicBoolean();
+        JobScheduler scheduler = new JobScheduler(1, Deadline.after(Duration.ofMinutes(10), Duration.ofMinutes(10)));
+        scheduler.add("late", () -> started.set(true));
+
+        // when
+        List<JobScheduler.JobResult> results = scheduler.runAll();
+
+        // then
+        assertFalse(started.get());
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(0).isTimedOut());
+    }
+
+    @Test
+    void jobStoppedByItsBudgetShouldBeTimedOut() {
+
+        // given
+        JobScheduler scheduler = new JobScheduler(2, Deadline.after(Duration.ofHours(1), Duration.ofMinutes(30)));
+        scheduler.add("limited", 50, deadline -> deadline.check("work"));
+        scheduler.add("wrapped", 50, deadline -> CompletableFuture.runAsync(() -> deadline.check("work")).join());
+        scheduler.add("unlimited", 100, deadline -> deadline.check("work"));
+
+        // when
+        List<JobScheduler.JobResult> results = scheduler.runAll();
+
+        // then
+        assertTrue(results.get(0).isTimedOut());
+        assertTrue(results.get(1).isTimedOut());
+        assertTrue(results.get(2).isSuccess());
+    }
+
+    @Test
+    void otherFailureAfterDeadlineShouldNotBeTimedOut() {
+
+        // given
+        JobScheduler scheduler = new JobScheduler(1, Deadline.after(Duration.ofHours(1), Duration.ofMinutes(30)));
+        scheduler.add("failing", 50, deadline -> {
+            throw new IllegalStateException("deadline reached: " + deadline.isReached());
+        });
+
+        // when
+        List<JobScheduler.JobResult> results = scheduler.runAll();
+
+        // then
+        assertFalse(results.get(0).isSuccess());
+        assertFalse(results.get(0).isTimedOut());
+        assertEquals("deadline reached: true", results.get(0).getFailure().get().getMessage());
+    }
+
+    private static void awaitOther(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("jobs are not running in parallel");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
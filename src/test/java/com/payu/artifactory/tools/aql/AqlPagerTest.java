@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.aql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.jfrog.artifactory.client.Artifactory;
+import org.jfrog.artifactory.client.ArtifactoryRequest;
+import org.jfrog.artifactory.client.ArtifactoryResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.deadline.DeadlineExceededException;
+
+import io.github.resilience4j.retry.Retry;
+import lombok.Data;
+
+@ExtendWith(MockitoExtension.class)
+class AqlPagerTest {
+
+    private static final String QUERY = "items.find().include(\"repo\",\"path\",\"name\")";
+
+    private static final List<String> PATHS = Arrays.asList("a", "b", "c", "d", "e");
+
+    @Mock
+    private Artifactory artifactory;
+
+    private Retry retry = Retry.ofDefaults("test");
+
+    @Test
+    void allPagesShouldBeRead() throws IOException {
+
+        // given
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).then(i -> page(i.getArgument(0)));
+        List<String> result = new ArrayList<>();
+
+        // when
+        long count = new AqlPager(new AqlSearch(artifactory, retry), 2).find(QUERY, Item.class, i -> result.add(i.getPath()));
+
+        // then
+        assertEquals(5, count);
+        assertEquals(PATHS, result);
+        verify(artifactory, times(3)).restCall(any(ArtifactoryRequest.class));
+    }
+
+    @Test
+    void queryShouldNotBeSentAfterDeadline() throws IOException {
+
+        // given
+        AqlPager pager = new AqlPager(new AqlSearch(artifactory, retry), 2,
+                Deadline.after(Duration.ofMinutes(10), Duration.ofMinutes(10)));
+
+        // when
+        assertThrows(DeadlineExceededException.class, () -> pager.find(QUERY, Item.class, i -> { }));
+
+        // then
+        verify(artifactory, never()).restCall(any(ArtifactoryRequest.class));
+    }
+
+    @Test
+    void failedPageShouldBeRetried() throws IOException {
+
+        // given
+        AtomicBoolean failed = new AtomicBoolean();
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).then(i -> {
+            ArtifactoryRequest request = i.getArgument(0);
+            if (request.<String>getBody().contains(".offset(2)") && failed.compareAndSet(false, true)) {
+                throw new IOException("test");
+            }
+            return page(request);
+        });
+        List<String> result = new ArrayList<>();
+
+        // when
+        new AqlPager(new AqlSearch(artifactory, retry), 2).find(QUERY, Item.class, i -> result.add(i.getPath()));
+
+        // then
+        assertEquals(PATHS, result);
+        verify(artifactory, times(4)).restCall(any(ArtifactoryRequest.class));
+    }
+
+    @Test
+    void exceptionShouldStopPaging() throws IOException {
+
+        // given
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).thenThrow(new IOException("test"));
+
+        // when
+        assertThrows(IOException.class,
+                () -> new AqlPager(new AqlSearch(artifactory, retry), 2).find(QUERY, Item.class, i -> { }));
+
+        // then
+        verify(artifactory, times(3)).restCall(any(ArtifactoryRequest.class));
+    }
+
+    @Test
+    void pageQueryShouldBeSorted() {
+        AqlPager pager = new AqlPager(new AqlSearch(artifactory, retry), 100);
+
+        assertEquals(QUERY + ".sort({\"$asc\":[\"repo\",\"path\",\"name\"]}).offset(200).limit(100)",
+                pager.pageQuery(QUERY, 200));
+    }
+
+    private static ArtifactoryResponse page(ArtifactoryRequest request) {
+        String query = request.getBody();
+        int offset = Integer.parseInt(query.replaceAll(".*\\.offset\\((\\d+)\\).*", "$1"));
+        int limit = Integer.parseInt(query.replaceAll(".*\\.limit\\((\\d+)\\).*", "$1"));
+
+        String results = IntStream.range(offset, Math.min(offset + limit, PATHS.size()))
+                .mapToObj(i -> "{\"path\":\"" + PATHS.get(i) + "\"}")
+                .collect(Collectors.joining(","));
+
+        ArtifactoryResponse response = mock(ArtifactoryResponse.class);
+        when(response.isSuccessResponse()).thenReturn(true);
+        when(response.getRawBody()).thenReturn("{\"results\":[" + results + "]}");
+        return response;
+    }
+
+    @Data
+    private static class Item {
+        private String path;
+    }
+}
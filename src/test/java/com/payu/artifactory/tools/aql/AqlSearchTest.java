@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.aql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
+import org.jfrog.artifactory.client.Artifactory;
+import org.jfrog.artifactory.client.ArtifactoryRequest;
+import org.jfrog.artifactory.client.ArtifactoryResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.github.resilience4j.retry.Retry;
+import lombok.Data;
+
+@ExtendWith(MockitoExtension.class)
+class AqlSearchTest {
+
+    @Mock
+    private Artifactory artifactory;
+
+    @Mock
+    private ArtifactoryResponse response;
+
+    @Mock
+    private StatusLine statusLine;
+
+    private Retry retry = Retry.ofDefaults("test");
+
+    @Test
+    void itemsShouldBeStreamedFromResults() throws IOException {
+
+        // given
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).thenReturn(response);
+        when(response.isSuccessResponse()).thenReturn(true);
+        when(response.getRawBody()).thenReturn("{\"results\":["
+                + "{\"repo\":\"r\",\"path\":\"a/b\",\"name\":\"x.pom\",\"extra\":{\"nested\":[1,2]}},"
+                + "{\"repo\":\"r\",\"path\":\"a/c\",\"name\":\"y.pom\"}"
+                + "],\"range\":{\"start_pos\":0,\"end_pos\":2,\"total\":2}}");
+
+        List<Item> items = new ArrayList<>();
+
+        // when
+        long count = new AqlSearch(artifactory, retry).find("items.find()", Item.class, items::add);
+
+        // then
+        assertEquals(2, count);
+        assertEquals(Arrays.asList(item("a/b", "x.pom"), item("a/c", "y.pom")), items);
+
+        ArgumentCaptor<ArtifactoryRequest> request = ArgumentCaptor.forClass(ArtifactoryRequest.class);
+        verify(artifactory).restCall(request.capture());
+        assertEquals("api/search/aql", request.getValue().getApiUrl());
+        assertEquals("items.find()", request.getValue().getBody());
+    }
+
+    @Test
+    void errorResponseShouldFail() throws IOException {
+
+        // given
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).thenReturn(response);
+        when(response.isSuccessResponse()).thenReturn(false);
+        when(response.getStatusLine()).thenReturn(statusLine);
+        when(statusLine.getStatusCode()).thenReturn(400);
+        when(response.getRawBody()).thenReturn("{\"errors\":[]}");
+
+        // when
+        HttpResponseException e = assertThrows(HttpResponseException.class,
+                () -> new AqlSearch(artifactory, retry).find("items.find()", Item.class, i -> { }));
+
+        // then
+        assertEquals(400, e.getStatusCode());
+    }
+
+    private static Item item(String path, String name) {
+        Item item = new Item();
+        item.setPath(path);
+        item.setName(name);
+        return item;
+    }
+
+    @Data
+    private static class Item {
+        private String path;
+        private String name;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.aql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ItemColumnsTest {
+
+    private final PathTrie paths = new PathTrie();
+
+    private final ItemColumns columns = new ItemColumns(paths);
+
+    @Test
+    void rowsShouldBeGroupedByPathInOrderOfFirstRows() {
+
+        // given
+        add("docker/web", "1.0", 1);
+        add("docker/app", "1.0", 2);
+        add("docker/web", "1.1", 3);
+
+        // when
+        List<ItemColumns.Rows> groups = columns.groupByPath();
+
+        // then
+        assertEquals(2, groups.size());
+        assertEquals("docker/web", groups.get(0).getPath());
+        assertEquals(Arrays.asList("1.0", "1.1"), versions(groups.get(0)));
+        assertEquals("docker/app", groups.get(1).getPath());
+        assertEquals(Arrays.asList("1.0"), versions(groups.get(1)));
+    }
+
+    @Test
+    void sortShouldBeStable() {
+
+        // given
+        for (int i = 0; i < 100; i++) {
+            add("com/example/app", Integer.toString(i), i % 3);
+        }
+        ItemColumns.Rows rows = columns.rows();
+
+        // when
+        rows.sort((row, other) -> Long.compare(columns.getModified(row), columns.getModified(other)));
+
+        // then
+        for (int i = 1; i < rows.size(); i++) {
+            int previous = rows.get(i - 1);
+            int row = rows.get(i);
+            long order = Long.compare(columns.getModified(previous), columns.getModified(row));
+            assertTrue(order < 0 || order == 0 && previous < row, "rows " + previous + ", " + row);
+        }
+    }
+
+    @Test
+    void topRowsShouldBeMovedToBeginning() {
+
+        // given
+        long[] modified = {5, 9, 1, 7, 3};
+        for (int i = 0; i < modified.length; i++) {
+            add("docker/app", "tag" + i, modified[i]);
+        }
+        ItemColumns.Rows rows = columns.rows();
+
+        // when
+        int top = rows.top(2, (row, other) -> Long.compare(columns.getModified(other), columns.getModified(row)));
+
+        // then
+        assertEquals(2, top);
+        assertEquals(Arrays.asList("tag1", "tag3", "tag0", "tag2", "tag4"), versions(rows));
+    }
+
+    @Test
+    void equalVersionsShouldHaveEqualRank() {
+
+        // given
+        add("com/example/app", "1.10", 0);
+        add("com/example/app", "1.9", 0);
+        add("com/example/lib", "1.9", 0);
+        add("com/example/lib", "2.0", 0);
+
+        // when
+        int[] ranks = columns.rankVersions(version -> Arrays.stream(version.split("\\."))
+                .mapToInt(Integer::parseInt)
+                .reduce(0, (major, minor) -> major * 100 + minor));
+
+        // then
+        assertEquals(3, columns.rankVersions(version -> version).length);
+        assertEquals(1, ranks[columns.getVersionId(0)]);
+        assertEquals(0, ranks[columns.getVersionId(1)]);
+        assertEquals(ranks[columns.getVersionId(1)], ranks[columns.getVersionId(2)]);
+        assertEquals(2, ranks[columns.getVersionId(3)]);
+    }
+
+    private void add(String path, String version, long modified) {
+        columns.add(paths.intern(path), version, 0, modified, 0);
+    }
+
+    private List<String> versions(ItemColumns.Rows rows) {
+        List<String> versions = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            versions.add(columns.getVersion(rows.get(i)));
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.aql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class PathTrieTest {
+
+    @Test
+    void sameFolderShouldBeOneNode() {
+
+        // given
+        PathTrie paths = new PathTrie();
+
+        // when
+        int app = paths.intern(String.join("/", "com", "example", "app"));
+        int again = paths.intern(String.join("/", "com", "example", "app"));
+        int lib = paths.intern("com/example/lib");
+
+        // then
+        assertEquals(app, again);
+        assertNotEquals(app, lib);
+        assertEquals(paths.parent(app), paths.parent(lib));
+        assertEquals("com/example", paths.path(paths.parent(app)));
+        assertEquals("app", paths.name(app));
+        assertEquals(5, paths.size());
+    }
+
+    @Test
+    void manyFoldersShouldKeepTheirPaths() {
+
+        // given
+        PathTrie paths = new PathTrie();
+        List<Integer> nodes = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            nodes.add(paths.intern("com/example/group" + (i % 100) + "/artifact" + i));
+        }
+
+        // then
+        Set<Integer> distinct = new HashSet<>(nodes);
+        assertEquals(10_000, distinct.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals("com/example/group" + (i % 100) + "/artifact" + i, paths.path(nodes.get(i)));
+            assertEquals(nodes.get(i).intValue(), paths.intern("com/example/group" + (i % 100) + "/artifact" + i));
+        }
+    }
+
+    @Test
+    void itemsOfFolderShouldShareItsPath() {
+
+        // given
+        PathTrie paths = new PathTrie();
+        VersionItem first = new VersionItem();
+        first.setPath("docker/app/1.0");
+        VersionItem second = new VersionItem();
+        second.setPath("docker/app/1.1");
+        VersionItem other = new VersionItem();
+        other.setPath("docker/web/1.0");
+
+        // when
+        first.intern(paths);
+        second.intern(paths);
+        other.intern(paths);
+
+        // then
+        assertSame(first.getPath(), second.getPath());
+        assertEquals(first.getNode(), second.getNode());
+        assertEquals("1.1", second.getVersion());
+    }
+
+    @Test
+    void groupsShouldBeDrainedInOrderOfFirstItems() {
+
+        // given
+        PathTrie paths = new PathTrie();
+        PathGroups<List<String>> groups = new PathGroups<>(paths);
+        for (String path : new String[] {"docker/web/1.0", "docker/app/1.0", "docker/web/1.1"}) {
+            VersionItem item = new VersionItem();
+            item.setPath(path);
+            item.intern(paths);
+            groups.computeIfAbsent(item, ArrayList::new).add(item.getVersion());
+        }
+        List<String> drained = new ArrayList<>();
+
+        // when
+        groups.drain((path, versions) -> drained.add(path + ":" + versions));
+
+        // then
+        assertEquals(2, drained.size());
+        assertEquals("docker/web:[1.0, 1.1]", drained.get(0));
+        assertEquals("docker/app:[1.0]", drained.get(1));
+        assertEquals(0, groups.size());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.deadline;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class DeadlineTest {
+
+    @Test
+    void noDeadlineShouldNeverBeReached() {
+        assertFalse(Deadline.NONE.isReached());
+        assertFalse(Deadline.NONE.share(10).isReached());
+    }
+
+    @Test
+    void deadlineShouldBeReachedGraceBeforeEnd() {
+
+        // when
+        Deadline open = Deadline.after(Duration.ofMinutes(10), Duration.ofMinutes(5));
+        Deadline reached = Deadline.after(Duration.ofMinutes(10), Duration.ofMinutes(10));
+
+        // then
+        assertFalse(open.isReached());
+        open.check("test");
+        assertTrue(reached.isReached());
+        assertThrows(DeadlineExceededException.class, () -> reached.check("test"));
+    }
+
+    @Test
+    void shareShouldShortenDeadlineOfJob() {
+
+        // given
+        Deadline run = Deadline.after(Duration.ofHours(1), Duration.ofMinutes(30));
+
+        // when
+        Deadline half = run.share(50);
+        Deadline more = run.share(60);
+
+        // then
+        assertFalse(run.isReached());
+        assertTrue(half.isReached());
+        assertFalse(more.isReached());
+    }
+
+    @Test
+    void shareOutOfRangeShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Deadline.NONE.share(0));
+        assertThrows(IllegalArgumentException.class, () -> Deadline.NONE.share(101));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jfrog.artifactory.client.Artifactory;
+import org.jfrog.artifactory.client.ArtifactoryClientBuilder;
+import org.junit.jupiter.api.Test;
+
+import com.payu.artifactory.tools.metrics.JobMetrics;
+import com.payu.artifactory.tools.transport.ArtifactoryTransport;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+
+class ConcurrencyLimiterTest {
+
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void limitShouldGrowOnlyWhenReachedAndLatencyIsStable() throws InterruptedException {
+
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 3);
+
+        // when
+        sequentialWindow(limiter, LATENCY);
+        int afterSaturatedWindow = limiter.getLimit();
+        sequentialWindow(limiter, LATENCY);
+        int afterIdleWindow = limiter.getLimit();
+
+        // then
+        assertEquals(2, afterSaturatedWindow);
+        assertEquals(2, afterIdleWindow);
+    }
+
+    @Test
+    void limitShouldBeCutOnceByBurstOfOverloads() throws InterruptedException {
+
+        // given
+        ConcurrencyLimiter limiter = grownTo(8);
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            limiter.onOverload();
+        }
+        int afterBurst = limiter.getLimit();
+        for (int i = 0; i < 4; i++) {
+            limiter.onOverload();
+        }
+
+        // then
+        assertEquals(4, afterBurst);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void limitShouldBeCutWhenLatencyRises() throws InterruptedException {
+
+        // given
+        ConcurrencyLimiter limiter = grownTo(8);
+
+        // when
+        for (int i = 0; i < ConcurrencyLimiter.WINDOW; i++) {
+            limiter.onResponse((long) (LATENCY * ConcurrencyLimiter.TOLERANCE * 2));
+        }
+
+        // then
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void limitShouldStayWithinBounds() throws InterruptedException {
+
+        // given
+        ConcurrencyLimiter limiter = grownTo(3);
+
+        // when
+        saturatedWindow(limiter, 3);
+        int max = limiter.getLimit();
+        for (int i = 0; i < 100; i++) {
+            limiter.onOverload();
+        }
+
+        // then
+        assertEquals(3, max);
+        assertEquals(1, limiter.getLimit());
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(2, 1));
+    }
+
+    @Test
+    void adaptiveLimitShouldOverloadStandInServerLessThanFixedOne() throws IOException {
+
+        // given
+        ConcurrencyLimiter adaptive = new ConcurrencyLimiter(1, 16);
+        ConcurrencyLimiter fixed = ConcurrencyLimiter.fixed(16);
+
+        // when
+        int rejectedAdaptive = deleteFromStandIn(adaptive);
+        int rejectedFixed = deleteFromStandIn(fixed);
+
+        // then
+        assertTrue(rejectedAdaptive * 2 < rejectedFixed, "rejected " + rejectedAdaptive + " vs " + rejectedFixed);
+        assertTrue(adaptive.getLimit() < fixed.getLimit(), "limit " + adaptive.getLimit());
+    }
+
+    @Test
+    void waitBeforeRetryShouldNotHoldPermit() throws Exception {
+
+        // given
+        ArtifactoryTransport transport = mock(ArtifactoryTransport.class);
+        CompletableFuture<Void> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new IOException("test"));
+        when(transport.delete("repo", "retried")).thenReturn(rejected, CompletableFuture.completedFuture(null));
+        when(transport.delete("repo", "other")).thenReturn(CompletableFuture.completedFuture(null));
+        Retry retry = Retry.of("test", RetryConfig.custom().maxAttempts(2).waitDuration(Duration.ofSeconds(2)).build());
+
+        // limit of one request with two workers
+        try (DeleteExecutor executor = new DeleteExecutor(new ConcurrencyLimiter(1, 2))) {
+            ArtifactoryDeleter deleter = new ArtifactoryDeleter(transport, retry, executor, JobMetrics.NONE);
+
+            // when
+            CompletableFuture<Void> retried = deleter.delete("repo", "retried");
+            verify(transport, timeout(1000)).delete("repo", "retried");
+            CompletableFuture<Void> other = deleter.delete("repo", "other");
+
+            // then
+            other.get(1, TimeUnit.SECONDS);
+            assertFalse(retried.isDone());
+            retried.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Delete items from stand-in server slowed down over 2 requests and rejecting over 4 requests in flight.
+     *
+     * @return number of rejected requests
+     */
+    private static int deleteFromStandIn(ConcurrencyLimiter limiter) throws IOException {
+        Retry retry = Retry.of("test", RetryConfig.custom().maxAttempts(50).waitDuration(Duration.ofMillis(10)).build());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try (StandInArtifactory server = new StandInArtifactory(2, 4, 10);
+             DeleteExecutor executor = new DeleteExecutor(limiter)) {
+            Artifactory artifactory = ArtifactoryClientBuilder.create().setUrl(server.getUrl()).build();
+            ArtifactoryDeleter deleter = new ArtifactoryDeleter(artifactory, retry, executor);
+
+            for (int i = 0; i < 200; i++) {
+                futures.add(deleter.delete("repo", "item/" + i));
+            }
+            assertEquals(0, DeleteExecutor.awaitAll(futures));
+            return server.getRejected();
+        }
+    }
+
+    private static ConcurrencyLimiter grownTo(int limit) throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, limit);
+        for (int i = 1; i < limit; i++) {
+            saturatedWindow(limiter, i);
+        }
+        assertEquals(limit, limiter.getLimit());
+        return limiter;
+    }
+
+    /**
+     * Window of responses while all permits are taken.
+     */
+    private static void saturatedWindow(ConcurrencyLimiter limiter, int permits) throws InterruptedException {
+        for (int i = 0; i < permits; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < ConcurrencyLimiter.WINDOW; i++) {
+            limiter.onResponse(LATENCY);
+        }
+        for (int i = 0; i < permits; i++) {
+            limiter.release();
+        }
+    }
+
+    /**
+     * Window of responses to requests sent one by one.
+     */
+    private static void sequentialWindow(ConcurrencyLimiter limiter, long latency) throws InterruptedException {
+        for (int i = 0; i < ConcurrencyLimiter.WINDOW; i++) {
+            limiter.acquire();
+            limiter.onResponse(latency);
+            limiter.release();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.jfrog.artifactory.client.Artifactory;
+import org.jfrog.artifactory.client.ArtifactoryRequest;
+import org.jfrog.artifactory.client.ArtifactoryResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.payu.artifactory.tools.aql.AqlPager;
+import com.payu.artifactory.tools.aql.AqlSearch;
+
+import io.github.resilience4j.retry.Retry;
+
+@ExtendWith(MockitoExtension.class)
+class DeleteCoalescerTest {
+
+    private static final String REPO = "libs-release";
+
+    @Mock
+    private Artifactory artifactory;
+
+    private final Map<String, List<String>> folders = new HashMap<>();
+
+    @Test
+    void fullyPlannedFoldersShouldBeCoalescedUpToTop() throws IOException {
+
+        // given
+        folders.put("com/example/old", Arrays.asList("1.0", "1.1", "maven-metadata.xml", "maven-metadata.xml.sha1"));
+        folders.put("com/example/other", Arrays.asList("1.0", "1.1"));
+        folders.put("com/example", Arrays.asList("old", "other"));
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).then(i -> list(i.getArgument(0)));
+
+        // when
+        List<PlannedDelete> deletes = coalescer().coalesce(REPO, "com", Arrays.asList(
+                "com/example/old/1.0", "com/example/old/1.1", "com/example/other/1.0", "com/example/other/1.1"));
+
+        // then
+        assertEquals(1, deletes.size());
+        assertEquals("com/example", deletes.get(0).getPath());
+        assertEquals(4, deletes.get(0).getItems().size());
+        verify(artifactory, times(2)).restCall(any(ArtifactoryRequest.class));
+    }
+
+    @Test
+    void subfoldersShouldBeCoalescedBeforeTheirParent() throws IOException {
+
+        // given
+        folders.put("com/app", Arrays.asList("1.0", "1.1", "sub"));
+        folders.put("com/app/sub", Arrays.asList("1.0", "1.1"));
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).then(i -> list(i.getArgument(0)));
+
+        // when
+        List<PlannedDelete> deletes = coalescer().coalesce(REPO, "com", Arrays.asList(
+                "com/app/1.0", "com/app/1.1", "com/app/sub/1.0", "com/app/sub/1.1"));
+
+        // then
+        assertEquals(1, deletes.size());
+        assertEquals("com/app", deletes.get(0).getPath());
+        assertEquals(4, deletes.get(0).getItems().size());
+    }
+
+    @Test
+    void folderWithOtherChildrenShouldBeKept() throws IOException {
+
+        // given
+        folders.put("com/example/app", Arrays.asList("1.0-SNAPSHOT", "1.1-SNAPSHOT", "2.0"));
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).then(i -> list(i.getArgument(0)));
+
+        // when
+        List<PlannedDelete> deletes = coalescer().coalesce(REPO, "com/example",
+                Arrays.asList("com/example/app/1.0-SNAPSHOT", "com/example/app/1.1-SNAPSHOT"));
+
+        // then
+        assertEquals(Arrays.asList(PlannedDelete.of("com/example/app/1.0-SNAPSHOT"),
+                PlannedDelete.of("com/example/app/1.1-SNAPSHOT")), deletes);
+    }
+
+    @Test
+    void topAndSingleChildrenShouldNotBeListed() {
+
+        // when
+        List<PlannedDelete> deletes = coalescer().coalesce(REPO, "com/example/app",
+                Arrays.asList("com/example/app/1.0", "com/example/lib/1.0"));
+
+        // then
+        assertEquals(Arrays.asList(PlannedDelete.of("com/example/app/1.0"), PlannedDelete.of("com/example/lib/1.0")),
+                deletes);
+    }
+
+    private DeleteCoalescer coalescer() {
+        return new DeleteCoalescer(new AqlPager(new AqlSearch(artifactory, Retry.ofDefaults("test")), 0));
+    }
+
+    private ArtifactoryResponse list(ArtifactoryRequest request) {
+        String query = request.getBody();
+        String results = folders.entrySet().stream()
+                .filter(folder -> query.contains("{\"path\":\"" + folder.getKey() + "\"}"))
+                .flatMap(folder -> folder.getValue().stream()
+                        .map(name -> "{\"repo\":\"" + REPO + "\",\"path\":\"" + folder.getKey()
+                                + "\",\"name\":\"" + name + "\"}"))
+                .collect(Collectors.joining(","));
+
+        ArtifactoryResponse response = mock(ArtifactoryResponse.class);
+        when(response.isSuccessResponse()).thenReturn(true);
+        when(response.getRawBody()).thenReturn("{\"results\":[" + results + "]}");
+        return response;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.delete;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class DeleteExecutorTest {
+
+    @Test
+    void repositoriesShouldBeServedInRoundRobin() throws InterruptedException {
+
+        // given
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try (DeleteExecutor executor = new DeleteExecutor(1)) {
+            // keep worker busy until all tasks are queued
+            futures.add(executor.submit("big", () -> {
+                started.countDown();
+                awaitQuietly(blocker);
+            }));
+            started.await();
+
+            for (int i = 0; i < 3; i++) {
+                String n = String.valueOf(i);
+                futures.add(executor.submit("big", () -> order.add("big" + n)));
+            }
+            futures.add(executor.submit("small", () -> order.add("small0")));
+
+            // when
+            blocker.countDown();
+            DeleteExecutor.awaitAll(futures);
+        }
+
+        // then
+        assertEquals(Arrays.asList("big0", "small0", "big1", "big2"), order);
+    }
+
+    @Test
+    void failuresShouldBeCounted() {
+
+        try (DeleteExecutor executor = new DeleteExecutor(2)) {
+
+            // when
+            List<CompletableFuture<Void>> futures = Arrays.asList(
+                    executor.submit("repo", () -> { }),
+                    executor.submit("repo", () -> {
+                        throw new IllegalStateException("test");
+                    })
+            );
+
+            // then
+            assertEquals(1, DeleteExecutor.awaitAll(futures));
+            assertEquals(1, executor.getStats().get("repo").getDeleted());
+            assertEquals(1, executor.getStats().get("repo").getFailed());
+        }
+    }
+
+    @Test
+    void closedExecutorShouldRejectTasks() {
+
+        DeleteExecutor executor = new DeleteExecutor(1);
+        executor.close();
+
+        assertThrows(IllegalStateException.class, () -> executor.submit("repo", () -> { }));
+    }
+
+    @Test
+    void pendingTasksShouldBeCancelledAndRunningFinished() throws InterruptedException {
+
+        // given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        DeleteExecutor executor = new DeleteExecutor(1);
+
+        CompletableFuture<Void> running = executor.submit("repo", () -> {
+            started.countDown();
+            awaitQuietly(blocker);
+        });
+        started.await();
+        CompletableFuture<Void> pending = executor.submit("repo", () -> { });
+
+        // when
+        executor.cancelPending();
+        blocker.countDown();
+        executor.close();
+
+        // then
+        assertTrue(running.isDone() && !running.isCompletedExceptionally());
+        assertThrows(CancellationException.class, pending::join);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeleteJournalTest {
+
+    private Path file;
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        file = Files.createTempFile("cleaner", ".journal");
+    }
+
+    @AfterEach
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void deletedItemsShouldBeResumed() throws IOException {
+
+        // given
+        try (DeleteJournal journal = new DeleteJournal(file)) {
+            journal.recordDeleted("repo", "a/b/1.0");
+            journal.recordFailed("repo", "a/b/1.1");
+            journal.recordDeleted("other", "a/b/1.1");
+            assertEquals(1, journal.getFailed());
+        }
+
+        // when
+        try (DeleteJournal journal = new DeleteJournal(file)) {
+
+            // then
+            assertEquals(2, journal.getResumed());
+            assertTrue(journal.isDeleted("repo", "a/b/1.0"));
+            assertTrue(journal.isDeleted("other", "a/b/1.1"));
+            assertFalse(journal.isDeleted("repo", "a/b/1.1"));
+            assertEquals(0, journal.getFailed());
+        }
+    }
+
+    @Test
+    public void brokenTailShouldBeIgnored() throws IOException {
+
+        // given
+        try (DeleteJournal journal = new DeleteJournal(file)) {
+            journal.recordDeleted("repo", "a/1.0");
+        }
+        Files.write(file, new byte[] {0, 0, 0, 5, 1, 2, 3, 4, 1, 'x'}, StandardOpenOption.APPEND);
+
+        // when
+        try (DeleteJournal journal = new DeleteJournal(file)) {
+            journal.recordDeleted("repo", "a/1.1");
+        }
+
+        // then
+        try (DeleteJournal journal = new DeleteJournal(file)) {
+            assertEquals(2, journal.getResumed());
+            assertTrue(journal.isDeleted("repo", "a/1.0"));
+            assertTrue(journal.isDeleted("repo", "a/1.1"));
+        }
+    }
+
+    @Test
+    public void journalShouldGrowOverManyRegions() throws IOException {
+
+        // given
+        int count = 100_000;
+
+        // when
+        try (DeleteJournal journal = new DeleteJournal(file)) {
+            for (int i = 0; i < count; i++) {
+                journal.recordDeleted("repo", "com/payu/some/long/group/artifact/" + i);
+            }
+        }
+
+        // then
+        try (DeleteJournal journal = new DeleteJournal(file)) {
+            assertEquals(count, journal.getResumed());
+        }
+    }
+
+    @Test
+    public void discardedJournalShouldBeRemoved() throws IOException {
+
+        // given
+        DeleteJournal journal = new DeleteJournal(file);
+        journal.recordDeleted("repo", "a/1.0");
+
+        // when
+        journal.discard();
+
+        // then
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void journalingDeleterShouldSkipDeletedAndRecordResults() throws IOException {
+
+        // given
+        try (DeleteJournal journal = new DeleteJournal(file)) {
+            journal.recordDeleted("repo", "done");
+        }
+
+        List<String> called = new ArrayList<>();
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new IOException("test"));
+        CompletableFuture<Void> cancelled = new CompletableFuture<>();
+        cancelled.completeExceptionally(new CancellationException("test"));
+
+        try (DeleteJournal journal = new DeleteJournal(file)) {
+            Deleter deleter = new JournalingDeleter((repoKey, path) -> {
+                called.add(path);
+                if ("failed".equals(path)) {
+                    return failure;
+                }
+                return "cancelled".equals(path) ? cancelled : CompletableFuture.completedFuture(null);
+            }, journal);
+
+            // when
+            deleter.delete("repo", "done");
+            deleter.delete("repo", "new");
+            deleter.delete("repo", "failed");
+            deleter.delete("repo", "cancelled");
+
+            // then
+            assertEquals(1, journal.getFailed());
+            assertTrue(journal.isDeleted("repo", "new"));
+        }
+
+        assertEquals(3, called.size());
+        assertFalse(called.contains("done"));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jfrog.artifactory.client.Artifactory;
+import org.jfrog.artifactory.client.ArtifactoryRequest;
+import org.jfrog.artifactory.client.ArtifactoryResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.payu.artifactory.tools.aql.AqlPager;
+import com.payu.artifactory.tools.aql.AqlSearch;
+
+import io.github.resilience4j.retry.Retry;
+
+@ExtendWith(MockitoExtension.class)
+class FolderSizesTest {
+
+    private static final String REPO = "libs-release";
+
+    @Mock
+    private Artifactory artifactory;
+
+    @Test
+    void sizesOfFilesShouldBeSummedByFolder() throws IOException {
+
+        // given
+        ArtifactoryResponse response = mock(ArtifactoryResponse.class);
+        when(response.isSuccessResponse()).thenReturn(true);
+        when(response.getRawBody()).thenReturn("{\"results\":["
+                + "{\"repo\":\"" + REPO + "\",\"path\":\"com/example/app/1.0\",\"name\":\"app-1.0.jar\",\"size\":1000},"
+                + "{\"repo\":\"" + REPO + "\",\"path\":\"com/example/app/1.0\",\"name\":\"app-1.0.pom\",\"size\":24},"
+                + "{\"repo\":\"" + REPO + "\",\"path\":\"com/example/app/1.1\",\"name\":\"app-1.1.pom\",\"size\":30}]}");
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).thenReturn(response);
+
+        // when
+        Map<String, Long> sizes = new FolderSizes(new AqlPager(new AqlSearch(artifactory, Retry.ofDefaults("test")), 0))
+                .find(REPO, Arrays.asList("com/example/app/1.0", "com/example/app/1.1", "com/example/app/1.2"));
+
+        // then
+        Map<String, Long> expected = new HashMap<>();
+        expected.put("com/example/app/1.0", 1024L);
+        expected.put("com/example/app/1.1", 30L);
+        assertEquals(expected, sizes);
+    }
+
+    @Test
+    void largestDeletesShouldBeFirst() {
+
+        // given
+        Map<String, Long> sizes = new HashMap<>();
+        sizes.put("com/example/app/1.0", 10L);
+        sizes.put("com/example/lib/1.0", 20L);
+        sizes.put("com/example/lib/1.1", 5L);
+        sizes.put("com/example/old/1.0", 30L);
+
+        // when
+        List<PlannedDelete> deletes = FolderSizes.largestFirst(Arrays.asList(
+                PlannedDelete.of("com/example/app/1.0"),
+                PlannedDelete.of("com/example/other/1.0"),
+                new PlannedDelete("com/example/lib", Arrays.asList("com/example/lib/1.0", "com/example/lib/1.1")),
+                PlannedDelete.of("com/example/old/1.0"),
+                PlannedDelete.of("com/example/other/1.1")), sizes);
+
+        // then
+        assertEquals(Arrays.asList(
+                new PlannedDelete("com/example/old/1.0", Collections.singletonList("com/example/old/1.0"), 30),
+                new PlannedDelete("com/example/lib", Arrays.asList("com/example/lib/1.0", "com/example/lib/1.1"), 25),
+                new PlannedDelete("com/example/app/1.0", Collections.singletonList("com/example/app/1.0"), 10),
+                new PlannedDelete("com/example/other/1.0", Collections.singletonList("com/example/other/1.0"), 0),
+                new PlannedDelete("com/example/other/1.1", Collections.singletonList("com/example/other/1.1"), 0)),
+                deletes);
+    }
+
+    @Test
+    void unknownSizesShouldKeepOrderOfSelection() {
+
+        // given
+        List<PlannedDelete> selected = Arrays.asList(
+                PlannedDelete.of("com/example/app/1.0"),
+                PlannedDelete.of("com/example/app/1.1"),
+                PlannedDelete.of("com/example/app/1.2"));
+
+        // when
+        List<PlannedDelete> deletes = FolderSizes.NONE.order(REPO, selected);
+        List<PlannedDelete> largest = FolderSizes.NONE.largest(REPO, selected, PlannedDelete::getPath, 2);
+
+        // then
+        assertEquals(selected, deletes);
+        assertEquals(selected.subList(0, 2), largest);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.delete;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in of Artifactory which accepts any delete.
+ *
+ * <p>Requests over capacity are slowed down like they would wait in a queue of the server, requests over
+ * the hard limit are rejected with 429.
+ */
+class StandInArtifactory implements AutoCloseable {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final int capacity;
+    private final int hardLimit;
+    private final long latencyMillis;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    StandInArtifactory(int capacity, int hardLimit, long latencyMillis) throws IOException {
+        this.capacity = capacity;
+        this.hardLimit = hardLimit;
+        this.latencyMillis = latencyMillis;
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        try {
+            if (current > hardLimit) {
+                rejected.incrementAndGet();
+                respond(exchange, TOO_MANY_REQUESTS, "Too Many Requests");
+            } else {
+                Thread.sleep(latencyMillis * Math.max(capacity, current) / capacity);
+                respond(exchange, 200, "deleted");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/artifactory";
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    int getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -17,21 +17,33 @@
 
 package com.payu.artifactory.tools.docker;
 
+import com.payu.artifactory.tools.delete.ArtifactoryDeleter;
+import com.payu.artifactory.tools.delete.DeleteExecutor;
+import com.payu.artifactory.tools.delete.Deleter;
+import com.payu.artifactory.tools.incremental.Watermark;
+import com.payu.artifactory.tools.incremental.WatermarkStore;
 import io.github.resilience4j.retry.Retry;
 import org.jfrog.artifactory.client.Artifactory;
 import org.jfrog.artifactory.client.ArtifactoryRequest;
 import org.jfrog.artifactory.client.ArtifactoryResponse;
 import org.jfrog.artifactory.client.RepositoryHandle;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -54,18 +66,30 @@ class DockerImagesCleanerTest {
 
     private Retry retry = Retry.ofDefaults("id");
 
+    private DeleteExecutor deleteExecutor = new DeleteExecutor(2);
+
+    @AfterEach
+    public void closeExecutor() {
+        deleteExecutor.close();
+    }
+
+    private Deleter deleter() {
+        return new ArtifactoryDeleter(artifactory, retry, deleteExecutor);
+    }
+
     @Test
     public void snapshotShouldBeDeletedForExistingReleaseVersion() throws IOException {
 
         // given
-        doReturn(aqlItemsSupplier()).when(response).parseBody(AQLItems.class);
+        when(response.isSuccessResponse()).thenReturn(true);
+        when(response.getRawBody()).thenReturn(aqlItemsResponse());
 
         when(artifactory.restCall(any(ArtifactoryRequest.class))).thenReturn(response);
 
         when(artifactory.repository(TEST_REPO)).thenReturn(repository);
 
         // when
-        new DockerImagesCleaner(artifactory, retry, TEST_REPO, 2, null).execute();
+        new DockerImagesCleaner(artifactory, retry, deleter(), 100, TEST_REPO, 2, null).execute();
 
         // then
         verify(repository).delete(PAYU_TEST_IMAGE + "/1.1");
@@ -75,6 +99,68 @@ class DockerImagesCleanerTest {
         verifyNoMoreInteractions(repository);
     }
 
+    @Test
+    public void newestTagsShouldBeKeptByModificationInstant() throws IOException {
+
+        // given
+        when(response.isSuccessResponse()).thenReturn(true);
+        when(response.getRawBody()).thenReturn("{\"results\":["
+                + getItem(PAYU_TEST_IMAGE + "/2.0", "2010-01-01T09:00:00.000Z") + ","
+                + getItem(PAYU_TEST_IMAGE + "/1.0", "2010-01-01T10:00:00.000+02:00") + ","
+                + getItem(PAYU_TEST_IMAGE + "/1.5", "2010-01-01T08:30:00.000+00:00")
+                + "]}");
+
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).thenReturn(response);
+
+        when(artifactory.repository(TEST_REPO)).thenReturn(repository);
+
+        // when
+        new DockerImagesCleaner(artifactory, retry, deleter(), 100, TEST_REPO, 2, null).execute();
+
+        // then
+        verify(repository).delete(PAYU_TEST_IMAGE + "/1.0");
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    public void onlyChangedImagesShouldBeEvaluatedByIncrementalRun() throws IOException {
+
+        // given
+        Path file = Files.createTempFile("cleaner", ".watermarks");
+        Files.delete(file);
+        WatermarkStore watermarks = new WatermarkStore(file);
+        long mark = OffsetDateTime.parse("2003-01-01T00:00:00.000Z").toInstant().toEpochMilli();
+        watermarks.put("docker:" + TEST_REPO, new Watermark(mark, mark));
+
+        when(response.isSuccessResponse()).thenReturn(true);
+        when(response.getRawBody()).thenReturn(
+                "{\"results\":[" + getItem(PAYU_TEST_IMAGE + "/1.4", "2003-05-05T16:44:30.629+02:00") + "]}",
+                aqlItemsResponse());
+
+        ArgumentCaptor<ArtifactoryRequest> requests = ArgumentCaptor.forClass(ArtifactoryRequest.class);
+        when(artifactory.restCall(requests.capture())).thenReturn(response);
+
+        when(artifactory.repository(TEST_REPO)).thenReturn(repository);
+
+        // when
+        DockerImagesCleaner cleaner = new DockerImagesCleaner(artifactory, retry, deleter(), 100, TEST_REPO, 2, null);
+        cleaner.setWatermarks(watermarks);
+        cleaner.execute();
+
+        // then
+        List<ArtifactoryRequest> queries = requests.getAllValues();
+        assertEquals(2, queries.size());
+        assertTrue(queries.get(0).getBody().toString().contains("{\"modified\":{\"$gt\":\"2002-12-31T23:50:00.000Z\"}}"));
+        assertTrue(queries.get(1).getBody().toString().contains("{\"path\":{\"$match\":\"" + PAYU_TEST_IMAGE + "/*\"}}"));
+
+        verify(repository).delete(PAYU_TEST_IMAGE + "/1.1");
+        verify(repository).delete(PAYU_TEST_IMAGE + "/1.2");
+        verifyNoMoreInteractions(repository);
+
+        long newest = OffsetDateTime.parse("2003-05-05T16:44:30.629+02:00").toInstant().toEpochMilli();
+        assertEquals(newest, watermarks.get("docker:" + TEST_REPO).get().getModified());
+    }
+
     @Test
     public void exceptionStopProcessing() throws IOException {
 
@@ -83,7 +169,7 @@ class DockerImagesCleanerTest {
 
         //when
         Assertions.assertThrows(IOException.class,
-                () -> new DockerImagesCleaner(artifactory, retry, TEST_REPO, 4, null).execute());
+                () -> new DockerImagesCleaner(artifactory, retry, deleter(), 100, TEST_REPO, 4, null).execute());
 
         // then
         verify(artifactory, times(3)).restCall(any(ArtifactoryRequest.class));
@@ -92,21 +178,19 @@ class DockerImagesCleanerTest {
         verifyNoMoreInteractions(repository);
     }
 
-    private AQLItems aqlItemsSupplier() {
-        AQLItems items = new AQLItems();
-        items.getResults().add(getItem(PAYU_TEST_IMAGE + "/1.1", "2000-05-05T16:44:30.629+02:00"));
-        items.getResults().add(getItem(PAYU_TEST_IMAGE + "/1.2", "2001-05-05T16:44:30.629+02:00"));
-        items.getResults().add(getItem(PAYU_TEST_IMAGE + "/1.3", "2002-05-05T16:44:30.629+02:00"));
-        items.getResults().add(getItem(PAYU_TEST_IMAGE + "/1.4", "2003-05-05T16:44:30.629+02:00"));
-        items.getResults().add(getItem("abcd/1.1", "1998-05-05T16:44:30.629+02:00"));
-        items.getResults().add(getItem("abcd/1.2", "1999-05-05T16:44:30.629+02:00"));
-        return items;
+    private String aqlItemsResponse() {
+        return "{\"results\":["
+                + getItem(PAYU_TEST_IMAGE + "/1.1", "2000-05-05T16:44:30.629+02:00") + ","
+                + getItem(PAYU_TEST_IMAGE + "/1.2", "2001-05-05T16:44:30.629+02:00") + ","
+                + getItem(PAYU_TEST_IMAGE + "/1.3", "2002-05-05T16:44:30.629+02:00") + ","
+                + getItem(PAYU_TEST_IMAGE + "/1.4", "2003-05-05T16:44:30.629+02:00") + ","
+                + getItem("abcd/1.1", "1998-05-05T16:44:30.629+02:00") + ","
+                + getItem("abcd/1.2", "1999-05-05T16:44:30.629+02:00")
+                + "],\"range\":{\"start_pos\":0,\"end_pos\":6,\"total\":6}}";
     }
 
-    private AQLItem getItem(String path, String modified) {
-        AQLItem item = new AQLItem();
-        item.setPath(path);
-        item.setModified(modified);
-        return item;
+    private String getItem(String path, String modified) {
+        return "{\"repo\":\"" + TEST_REPO + "\",\"path\":\"" + path
+                + "\",\"name\":\"manifest.json\",\"modified\":\"" + modified + "\"}";
     }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.docker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FilterMatcherTest {
+
+    private static final List<String> FILTERS = Arrays.asList(
+            "payu/keep/.*",
+            "payu/exact/1\\.0",
+            "payu/exact-dot/1.0",
+            "payu/prefix\\.dot.*",
+            ".*/release-\\d+",
+            "(?i)payu/CaseInsensitive/.*",
+            "other/(a|b)/latest",
+            "(\\w+)/\\1/.*",
+            "payu/img/v[0-9]+"
+    );
+
+    private static final List<String> IMAGES = Arrays.asList(
+            "payu/keep", "payu/keep/sub", "payu/exact", "payu/exact-dot", "payu/prefix.dot", "payu/prefixxdot",
+            "payu/caseinsensitive", "other/a", "other/c", "same/same", "same/other", "payu/img", "payu/other", "p");
+
+    private static final List<String> TAGS = Arrays.asList(
+            "1.0", "1x0", "latest", "release-12", "release-x", "v1", "v", "");
+
+    @Test
+    public void matcherShouldBeSameAsEachFilterChecked() {
+
+        // given
+        List<Pattern> patterns = Arrays.asList(FILTERS.stream().map(Pattern::compile).toArray(Pattern[]::new));
+
+        // when
+        FilterMatcher matcher = new FilterMatcher(FILTERS);
+
+        // then
+        for (String image : IMAGES) {
+            Predicate<String> forImage = matcher.forImage(image);
+            for (String tag : TAGS) {
+                String path = image + "/" + tag;
+                boolean expected = patterns.stream().anyMatch(p -> p.matcher(path).matches());
+
+                assertEquals(expected, matcher.matches(path), path);
+                assertEquals(expected, forImage.test(tag), path);
+            }
+        }
+    }
+
+    @Test
+    public void emptyFiltersShouldNotMatch() {
+
+        // when
+        FilterMatcher matcher = new FilterMatcher(Collections.emptyList());
+
+        // then
+        assertFalse(matcher.matches("payu/image/1.0"));
+        assertFalse(matcher.forImage("payu/image").test("1.0"));
+    }
+
+    @Test
+    public void brokenFilterShouldBeReported() {
+
+        // when, then
+        assertThrows(IllegalArgumentException.class, () -> new FilterMatcher(Arrays.asList("payu/.*", "payu/(")));
+    }
+}
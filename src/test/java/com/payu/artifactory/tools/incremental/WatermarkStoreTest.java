@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.incremental;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WatermarkStoreTest {
+
+    private Path file;
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        file = Files.createTempFile("cleaner", ".watermarks");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void watermarksShouldBeLoadedBySavedRun() {
+
+        // given
+        WatermarkStore store = new WatermarkStore(file);
+        store.put("docker:repo", new Watermark(1000, 2000));
+        store.put("release:repo:a/b", new Watermark(3000, 4000));
+
+        // when
+        store.save();
+        WatermarkStore loaded = new WatermarkStore(file);
+
+        // then
+        assertEquals(Optional.of(new Watermark(1000, 2000)), loaded.get("docker:repo"));
+        assertEquals(Optional.of(new Watermark(3000, 4000)), loaded.get("release:repo:a/b"));
+        assertFalse(loaded.get("snapshot:repo").isPresent());
+    }
+
+    @Test
+    public void watermarkShouldNotPassRunStartNorNewestItem() {
+
+        // when
+        Watermark clockAhead = Incremental.next(Optional.empty(), 5000, 4000);
+        Watermark clockBehind = Incremental.next(Optional.empty(), 5000, 6000);
+        Watermark nothingSeen = Incremental.next(Optional.of(new Watermark(1000, 2000)), 5000, Long.MIN_VALUE);
+
+        // then
+        assertEquals(new Watermark(4000, 5000), clockAhead);
+        assertEquals(new Watermark(5000, 5000), clockBehind);
+        assertEquals(new Watermark(1000, 5000), nothingSeen);
+    }
+
+    @Test
+    public void groupsShouldBeSplitIntoBatches() {
+
+        // given
+        List<String> groups = Arrays.asList(new String[Incremental.GROUPS_PER_QUERY * 2 + 1]);
+        int[] batches = new int[3];
+        int[] count = {0};
+
+        // when
+        Incremental.forEachBatch(groups, batch -> batches[count[0]++] = batch.size());
+
+        // then
+        assertEquals(3, count[0]);
+        assertEquals(Incremental.GROUPS_PER_QUERY, batches[0]);
+        assertEquals(1, batches[2]);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.payu.artifactory.tools.incremental.Watermark;
+
+class InventoryStoreTest {
+
+    private static final String JOB = "docker:repo";
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private Path directory;
+
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("inventory");
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void rowsShouldBeReadAsWritten() throws IOException {
+
+        // given
+        InventoryWriter writer = new InventoryWriter();
+        writer.add("payu/image", "1.0", 1, 2, 3);
+        writer.add("payu/image", "1.1", 4, 5, 6);
+        writer.add("payu/obraz-ąę", "1.0", 7, 8, 9);
+        Path file = directory.resolve("test.inventory");
+
+        // when
+        writer.write(file);
+        InventoryReader reader = InventoryReader.open(file);
+
+        // then
+        assertEquals(3, reader.size());
+        assertEquals("payu/image", reader.getGroup(1));
+        assertEquals("1.1", reader.getVersion(1));
+        assertEquals(4, reader.getCreated(1));
+        assertEquals(5, reader.getModified(1));
+        assertEquals(6, reader.getSize(1));
+        assertEquals("payu/obraz-ąę", reader.getGroup(2));
+        assertEquals("1.0", reader.getVersion(2));
+        assertEquals(9, reader.getSize(2));
+    }
+
+    @Test
+    public void brokenFileShouldNotBeLoaded() throws IOException {
+
+        // given
+        InventoryStore store = new InventoryStore(directory, true, DAY);
+        InventoryWriter writer = new InventoryWriter();
+        writer.add("payu/image", "1.0", 1, 2, 3);
+        store.save(JOB, store.stage(JOB, writer), Collections.emptySet());
+
+        Path file = directory.resolve("docker_repo.inventory");
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 1));
+
+        // when, then
+        assertFalse(store.load(JOB).isPresent());
+    }
+
+    @Test
+    public void changedItemsShouldReplacePreviousRows() {
+
+        // given
+        InventoryStore store = new InventoryStore(directory, true, DAY);
+        store.save(JOB, store.refresh(JOB, Optional.empty(), (criteria, writer) -> {
+            assertNull(criteria);
+            writer.add("payu/image", "1.0", 1, 1, 10);
+            writer.add("payu/image", "1.1", 2, 2, 20);
+            writer.add("payu/other", "2.0", 3, 3, 30);
+        }), Collections.singleton(InventoryStore.key("payu/other", "2.0")));
+
+        // when
+        InventoryReader inventory = store.refresh(JOB, Optional.of(new Watermark(3, 3)), (criteria, writer) -> {
+            assertTrue(criteria.contains("modified"));
+            writer.add("payu/image", "1.1", 2, 4, 21);
+            writer.add("payu/image", "1.2", 5, 5, 50);
+        });
+
+        // then
+        Map<String, Long> sizes = new HashMap<>();
+        for (int row = 0; row < inventory.size(); row++) {
+            sizes.put(InventoryStore.key(inventory.getGroup(row), inventory.getVersion(row)), inventory.getSize(row));
+        }
+        Map<String, Long> expected = new HashMap<>();
+        expected.put("payu/image/1.0", 10L);
+        expected.put("payu/image/1.1", 21L);
+        expected.put("payu/image/1.2", 50L);
+        assertEquals(expected, sizes);
+    }
+
+    @Test
+    public void oldInventoryShouldBeReconciled() {
+
+        // given
+        InventoryStore store = new InventoryStore(directory, true, -1);
+        InventoryWriter writer = new InventoryWriter();
+        writer.add("payu/image", "1.0", 1, 2, 3);
+        store.save(JOB, store.stage(JOB, writer), Collections.emptySet());
+
+        // when, then
+        assertFalse(store.load(JOB).isPresent());
+    }
+
+    @Test
+    public void inventoryShouldNotBeSavedWhenDisabled() {
+
+        // given
+        InventoryStore store = new InventoryStore(directory, false, DAY);
+        InventoryWriter writer = new InventoryWriter();
+        writer.add("payu/image", "1.0", 1, 2, 3);
+
+        // when
+        store.save(JOB, store.stage(JOB, writer), Collections.emptySet());
+
+        // then
+        assertFalse(store.load(JOB).isPresent());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+    @Test
+    public void quantilesShouldBeWithinBucketError() {
+
+        // given
+        Histogram histogram = new Histogram();
+
+        // when
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        // then
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000L * 100_001 / 2 * 1000, histogram.getSum());
+        assertWithin(50_000_000, histogram.getQuantile(0.5));
+        assertWithin(99_000_000, histogram.getQuantile(0.99));
+        assertWithin(99_900_000, histogram.getQuantile(0.999));
+        assertEquals(0, new Histogram().getQuantile(0.5));
+    }
+
+    @Test
+    public void bucketsShouldCoverAllValuesInOrder() {
+
+        // given
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+
+        // then
+        int previous = -1;
+        for (long value : values) {
+            int index = Histogram.index(value);
+            assertTrue(index >= previous, "index of " + value);
+            assertTrue(Histogram.highestValue(index) >= value, "highest value of " + value);
+            assertTrue(Histogram.highestValue(index) - value <= value / Histogram.SUB_BUCKETS, "error of " + value);
+            previous = index;
+        }
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / Histogram.SUB_BUCKETS,
+                () -> "expected about " + expected + " but was " + actual);
+    }
+}
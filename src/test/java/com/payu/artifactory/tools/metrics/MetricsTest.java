@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.vavr.control.Try;
+
+class MetricsTest {
+
+    @Test
+    public void metricsShouldBeWrittenInPrometheusFormat() throws IOException {
+
+        // given
+        Metrics metrics = new Metrics();
+        JobMetrics job = metrics.job("docker", "repo");
+        Retry retry = job.watch(Retry.of("test", RetryConfig.custom()
+                .maxAttempts(3).waitDuration(Duration.ofMillis(10)).build()));
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        job.aqlRequest(System.nanoTime(), 10);
+        job.aqlRequest(System.nanoTime(), 5);
+        job.forRepo("other").deleteRequest(System.nanoTime());
+        job.deleteFailed(System.nanoTime());
+        assertThrows(IllegalStateException.class, () -> Try.of(Retry.decorateCheckedSupplier(retry, () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("failed");
+        })).get());
+
+        StringWriter writer = new StringWriter();
+        metrics.write(writer);
+        String text = writer.toString();
+
+        // then
+        assertEquals(3, calls.get());
+        assertTrue(text.contains("# TYPE artifactory_cleaner_aql_request_seconds summary\n"), text);
+        assertTrue(text.contains("artifactory_cleaner_aql_request_seconds_count{cleaner=\"docker\",repo=\"repo\"} 2\n"), text);
+        assertTrue(text.contains("artifactory_cleaner_aql_request_seconds{cleaner=\"docker\",repo=\"repo\",quantile=\"0.999\"} "), text);
+        assertTrue(text.contains("artifactory_cleaner_items_scanned_total{cleaner=\"docker\",repo=\"repo\"} 15\n"), text);
+        assertTrue(text.contains("artifactory_cleaner_items_deleted_total{cleaner=\"docker\",repo=\"other\"} 1\n"), text);
+        assertTrue(text.contains("artifactory_cleaner_delete_failures_total{cleaner=\"docker\",repo=\"repo\"} 1\n"), text);
+        assertTrue(text.contains("artifactory_cleaner_retries_total{cleaner=\"docker\",repo=\"repo\"} 2\n"), text);
+    }
+
+    @Test
+    public void labelsShouldBeEscapedInTextFile() throws IOException {
+
+        // given
+        Metrics metrics = new Metrics();
+        metrics.job("release", "repo\"with\\quote").deleteRequest(System.nanoTime());
+        Path file = Files.createTempFile("cleaner", ".prom");
+
+        // when
+        try {
+            metrics.writeTextFile(file);
+
+            // then
+            String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            assertTrue(text.contains("{cleaner=\"release\",repo=\"repo\\\"with\\\\quote\"} 1\n"), text);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
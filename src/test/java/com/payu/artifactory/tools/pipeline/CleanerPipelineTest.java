@@ -0,0 +1,250 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.payu.artifactory.tools.deadline.Deadline;
+import com.payu.artifactory.tools.delete.PlannedDelete;
+
+class CleanerPipelineTest {
+
+    @Test
+    void plannedVersionsShouldBeDeleted() {
+
+        // given
+        List<String> deletes = Collections.synchronizedList(new ArrayList<>());
+        Map<String, List<String>> groups = new HashMap<>();
+        groups.put("com/example/app", Arrays.asList("1.0", "1.1"));
+        groups.put("com/example/lib", Collections.singletonList("2.0"));
+
+        // when
+        try (CleanerPipeline<List<String>> pipeline = new CleanerPipeline<>("test", "repo", (repo, path) -> {
+            deletes.add(repo + ":" + path);
+            return CompletableFuture.completedFuture(null);
+        }, 10, CleanerPipelineTest::deletes)) {
+            pipeline.planAll(groups);
+            pipeline.finish();
+
+            // then
+            assertEquals(new HashSet<>(Arrays.asList("com/example/app/1.0", "com/example/app/1.1", "com/example/lib/2.0")),
+                    pipeline.getDeleted());
+            assertEquals(3, pipeline.getSubmitted());
+            assertEquals(0, pipeline.getFailed());
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList("repo:com/example/app/1.0", "repo:com/example/app/1.1",
+                "repo:com/example/lib/2.0")), new HashSet<>(deletes));
+        assertTrue(groups.isEmpty());
+    }
+
+    @Test
+    void pendingDeletesShouldBeBounded() {
+
+        // given
+        List<CompletableFuture<Void>> pending = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger highest = new AtomicInteger();
+        CleanerPipeline<Integer> pipeline = new CleanerPipeline<>("test", "repo", (repo, path) -> {
+            CompletableFuture<Void> delete = new CompletableFuture<>();
+            pending.add(delete);
+            highest.accumulateAndGet((int) pending.stream().filter(f -> !f.isDone()).count(), Math::max);
+            return delete;
+        }, 3, (path, count) -> deletes(path, versions(count)));
+
+        // when
+        pipeline.plan("image", 10);
+        Thread completer = new Thread(() -> {
+            int completed = 0;
+            while (completed < 10) {
+                if (pending.size() > completed) {
+                    pending.get(completed++).complete(null);
+                } else {
+                    Thread.yield();
+                }
+            }
+        });
+        completer.start();
+        pipeline.finish();
+
+        // then
+        assertEquals(10, pipeline.getDeleted().size());
+        assertTrue(highest.get() <= 3, "pending deletes: " + highest.get());
+    }
+
+    @Test
+    void failedDeletesShouldBeCounted() {
+
+        // given
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("test"));
+
+        try (CleanerPipeline<Integer> pipeline = new CleanerPipeline<>("test", "repo",
+                (repo, path) -> path.endsWith("/1") ? failed : CompletableFuture.completedFuture(null), 10,
+                (path, count) -> deletes(path, versions(count)))) {
+
+            // when
+            pipeline.plan("image", 3);
+            pipeline.finish();
+
+            // then
+            assertEquals(3, pipeline.getSubmitted());
+            assertEquals(1, pipeline.getFailed());
+            assertEquals(new HashSet<>(Arrays.asList("image/0", "image/2")), pipeline.getDeleted());
+        }
+    }
+
+    @Test
+    void failureOfPlannerShouldBeRethrown() {
+
+        // given
+        CleanerPipeline<Integer> pipeline = new CleanerPipeline<>("test", "repo",
+                (repo, path) -> CompletableFuture.completedFuture(null), 10, (path, count) -> {
+                    throw new IllegalArgumentException("test");
+                });
+
+        // when
+        pipeline.plan("image", 1);
+        pipeline.plan("other", 1);
+
+        // then
+        assertThrows(IllegalArgumentException.class, pipeline::finish);
+        assertEquals(0, pipeline.getSubmitted());
+    }
+
+    @Test
+    void failureOfDeleterShouldNotBlockScanning() {
+
+        // given
+        CleanerPipeline<Integer> pipeline = new CleanerPipeline<>("test", "repo", (repo, path) -> {
+            throw new IllegalStateException("delete executor is closed");
+        }, 10, (path, count) -> deletes(path, versions(count)));
+
+        // when
+        for (int i = 0; i < 3 * CleanerPipeline.GROUP_QUEUE; i++) {
+            pipeline.plan("image" + i, 1);
+        }
+
+        // then
+        IllegalStateException e = assertThrows(IllegalStateException.class, pipeline::finish);
+        assertEquals("delete executor is closed", e.getMessage());
+        assertEquals(0, pipeline.getSubmitted());
+    }
+
+    @Test
+    void coalescedDeleteShouldCoverItsItems() {
+
+        // given
+        List<String> deletes = Collections.synchronizedList(new ArrayList<>());
+
+        try (CleanerPipeline<Integer> pipeline = new CleanerPipeline<>("test", "repo", (repo, path) -> {
+            deletes.add(path);
+            return CompletableFuture.completedFuture(null);
+        }, 10, (path, count) -> Collections.singletonList(
+                new PlannedDelete(path, Arrays.asList(path + "/1.0-SNAPSHOT", path + "/1.1-SNAPSHOT"))))) {
+
+            // when
+            pipeline.plan("com/example/app", 2);
+            pipeline.finish();
+
+            // then
+            assertEquals(Collections.singletonList("com/example/app"), deletes);
+            assertEquals(2, pipeline.getSubmitted());
+            assertEquals(new HashSet<>(Arrays.asList("com/example/app/1.0-SNAPSHOT", "com/example/app/1.1-SNAPSHOT")),
+                    pipeline.getDeleted());
+        }
+    }
+
+    @Test
+    void parallelPlanShouldKeepOrderOfGroups() {
+
+        // given
+        List<String> deletes = Collections.synchronizedList(new ArrayList<>());
+        List<String> expected = new ArrayList<>();
+
+        try (CleanerPipeline<Integer> pipeline = new CleanerPipeline<>("test", "repo", (repo, path) -> {
+            deletes.add(path);
+            return CompletableFuture.completedFuture(null);
+        }, 10, 4, (path, count) -> deletes(path, versions(count)))) {
+
+            // when
+            for (int i = 0; i < 1000; i++) {
+                pipeline.plan("image" + i, i % 3);
+                expected.addAll(deletes("image" + i, versions(i % 3)).stream()
+                        .map(PlannedDelete::getPath)
+                        .collect(Collectors.toList()));
+            }
+            pipeline.finish();
+        }
+
+        // then
+        assertEquals(expected, deletes);
+    }
+
+    @Test
+    void groupsShouldNotBePlannedAfterDeadline() {
+
+        // given
+        List<String> deletes = Collections.synchronizedList(new ArrayList<>());
+        Deadline reached = Deadline.after(Duration.ofMinutes(10), Duration.ofMinutes(10));
+
+        try (CleanerPipeline<Integer> pipeline = new CleanerPipeline<>("test", "repo", (repo, path) -> {
+            deletes.add(path);
+            return CompletableFuture.completedFuture(null);
+        }, 10, 1, reached, (path, count) -> deletes(path, versions(count)))) {
+
+            // when
+            pipeline.plan("image", 2);
+            pipeline.plan("other", 1);
+            pipeline.finish();
+
+            // then
+            assertTrue(pipeline.isStopped());
+            assertEquals(0, pipeline.getSubmitted());
+        }
+        assertTrue(deletes.isEmpty());
+    }
+
+    private static List<PlannedDelete> deletes(String path, List<String> versions) {
+        List<PlannedDelete> deletes = new ArrayList<>();
+        versions.forEach(version -> deletes.add(PlannedDelete.of(path + "/" + version)));
+        return deletes;
+    }
+
+    private static List<String> versions(int count) {
+        List<String> versions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            versions.add(Integer.toString(i));
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.plan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.payu.artifactory.tools.delete.Deleter;
+
+class PlanApplierTest {
+
+    private Path file;
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        file = Files.createTempFile("cleaner", ".plan");
+        try (PlanWriter writer = new PlanWriter(file)) {
+            writer.add("default", "docker", "payu/image/1.0");
+            writer.add("release", "releases", "com/payu/app/1.0");
+        }
+    }
+
+    @AfterEach
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void itemsShouldBeDeletedByClientFromPlan() {
+
+        // given
+        List<String> deleted = new ArrayList<>();
+        Map<String, Deleter> deleters = new HashMap<>();
+        deleters.put("default", recording("default", deleted));
+        deleters.put("release", recording("release", deleted));
+
+        // when
+        new PlanApplier(deleters).apply(file);
+
+        // then
+        assertEquals(Arrays.asList("default:docker/payu/image/1.0", "release:releases/com/payu/app/1.0"), deleted);
+    }
+
+    @Test
+    public void failedDeletesShouldBeReported() {
+
+        // given
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new IOException("test"));
+
+        Map<String, Deleter> deleters = new HashMap<>();
+        deleters.put("default", (repoKey, path) -> CompletableFuture.completedFuture(null));
+        deleters.put("release", (repoKey, path) -> failure);
+
+        // when, then
+        assertThrows(IllegalStateException.class, () -> new PlanApplier(deleters).apply(file));
+    }
+
+    @Test
+    public void missingClientShouldBeReported() {
+
+        // given
+        Map<String, Deleter> deleters = Collections.singletonMap("default",
+                (repoKey, path) -> CompletableFuture.completedFuture(null));
+
+        // when, then
+        assertThrows(IllegalStateException.class, () -> new PlanApplier(deleters).apply(file));
+    }
+
+    private static Deleter recording(String client, List<String> deleted) {
+        return (repoKey, path) -> {
+            deleted.add(client + ":" + repoKey + "/" + path);
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.plan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PlanWriterTest {
+
+    private Path file;
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        file = Files.createTempFile("cleaner", ".plan");
+    }
+
+    @AfterEach
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void itemsShouldBeReadGroupedByClientAndRepository() throws IOException {
+
+        // given
+        try (PlanWriter writer = new PlanWriter(file)) {
+            writer.forClient("default").delete("docker", "payu/image/1.0");
+            writer.forClient("default").delete("snapshots", "/com/payu/app/1.0-SNAPSHOT");
+            writer.forClient("release").delete("releases", "com/payu/app/1.0");
+            writer.forClient("default").delete("docker", "payu/image/1.1");
+            writer.forClient("default").delete("docker", "top-level");
+            writer.forClient("default").delete("snapshots", "/com/payu/app/1.1-SNAPSHOT");
+
+            assertEquals(6, writer.size());
+        }
+
+        // when
+        List<String> items = new ArrayList<>();
+        try (PlanReader reader = new PlanReader(file)) {
+            while (reader.next()) {
+                items.add(reader.getClient() + ":" + reader.getRepoKey() + ":" + reader.getPath());
+            }
+        }
+
+        // then
+        assertEquals(Arrays.asList(
+                "default:docker:payu/image/1.0",
+                "default:docker:payu/image/1.1",
+                "default:docker:top-level",
+                "default:snapshots:/com/payu/app/1.0-SNAPSHOT",
+                "default:snapshots:/com/payu/app/1.1-SNAPSHOT",
+                "release:releases:com/payu/app/1.0"
+        ), items);
+    }
+
+    @Test
+    public void directoriesShouldBeStoredOnce() throws IOException {
+
+        // given
+        String dir = "com/payu/some/long/group/artifact/";
+
+        // when
+        try (PlanWriter writer = new PlanWriter(file)) {
+            for (int i = 0; i < 1000; i++) {
+                writer.add("default", "repo", dir + i);
+            }
+        }
+
+        // then
+        long size = Files.size(file);
+        assertTrue(size < 1000 * 8L, "plan file too big: " + size);
+    }
+
+    @Test
+    public void otherFileShouldBeRejected() throws IOException {
+
+        // given
+        Files.write(file, "not a plan".getBytes("UTF-8"));
+
+        // when, then
+        assertThrows(IOException.class, () -> new PlanReader(file));
+    }
+}
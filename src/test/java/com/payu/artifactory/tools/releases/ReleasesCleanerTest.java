@@ -17,23 +17,112 @@
 
 package com.payu.artifactory.tools.releases;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import org.jfrog.artifactory.client.Artifactory;
 import org.jfrog.artifactory.client.ArtifactoryClientBuilder;
+import org.jfrog.artifactory.client.ArtifactoryRequest;
+import org.jfrog.artifactory.client.ArtifactoryResponse;
+import org.jfrog.artifactory.client.RepositoryHandle;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.payu.artifactory.tools.delete.ArtifactoryDeleter;
+import com.payu.artifactory.tools.delete.DeleteExecutor;
+import com.payu.artifactory.tools.delete.Deleter;
 
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
+@ExtendWith(MockitoExtension.class)
 class ReleasesCleanerTest {
 
+    private static final String REPO = "releases-local";
+    private static final String ROOT = "com/example/app1";
+
+    @Mock
+    private Artifactory artifactory;
+
+    @Mock
+    private RepositoryHandle repository;
+
+    private Retry retry = Retry.ofDefaults("test");
+
+    private DeleteExecutor deleteExecutor = new DeleteExecutor(2);
+
+    @AfterEach
+    public void closeExecutor() {
+        deleteExecutor.close();
+    }
+
+    private Deleter deleter() {
+        return new ArtifactoryDeleter(artifactory, retry, deleteExecutor);
+    }
+
+    @Test
+    void itemsOfAllVersionsShouldBeFoundByOneQuery() throws IOException {
+
+        // given
+        when(artifactory.restCall(any(ArtifactoryRequest.class))).then(i -> {
+            ArtifactoryRequest request = i.getArgument(0);
+            String query = request.getBody();
+            return aResponse(query.contains("$or") ? versionItems() : allVersions());
+        });
+        when(artifactory.repository(REPO)).thenReturn(repository);
+
+        // when
+        new ReleasesCleaner(artifactory, retry, deleter(), 100, REPO + ":" + ROOT + ":365:2").execute();
+
+        // then
+        verify(artifactory, times(2)).restCall(any(ArtifactoryRequest.class));
+        verify(repository).delete(ROOT + "/1.0");
+        verify(repository).delete(ROOT + "/1.1");
+        verify(repository).delete(ROOT + "/module/1.1");
+        verifyNoMoreInteractions(repository);
+    }
+
+    private static String allVersions() {
+        return Stream.of("1.0", "1.1", "1.2", "1.3")
+                .map(v -> "{\"path\":\"" + ROOT + "/" + v + "\",\"name\":\"app1-" + v + ".pom\","
+                        + "\"created\":\"2000-05-05T16:44:30.629+02:00\"}")
+                .collect(Collectors.joining(",", "{\"results\":[", "]}"));
+    }
+
+    private static String versionItems() {
+        return Stream.of(
+                "{\"path\":\"" + ROOT + "/1.0\",\"name\":\"app1-1.0.pom\"}",
+                "{\"path\":\"" + ROOT + "/1.1\",\"name\":\"app1-1.1.pom\"}",
+                "{\"path\":\"" + ROOT + "/module/1.1\",\"name\":\"module-1.1.pom\"}"
+        ).collect(Collectors.joining(",", "{\"results\":[", "]}"));
+    }
+
+    private static ArtifactoryResponse aResponse(String body) {
+        ArtifactoryResponse response = mock(ArtifactoryResponse.class);
+        when(response.isSuccessResponse()).thenReturn(true);
+        when(response.getRawBody()).thenReturn(body);
+        return response;
+    }
+
     @Test
     @Disabled("for manual testing")
     void manual() {
 
-        Artifactory artifactory = ArtifactoryClientBuilder.create()
+        Artifactory client = ArtifactoryClientBuilder.create()
                 .setUrl("https://artifactory....")
                 .setUsername("uuu")
                 .setPassword("ppp")
@@ -43,14 +132,16 @@ class ReleasesCleanerTest {
                 .maxAttempts(1)
                 .build();
 
-        Retry retry = Retry.of("id", retryConfig);
+        Retry manualRetry = Retry.of("id", retryConfig);
 
-        retry.getEventPublisher()
+        manualRetry.getEventPublisher()
                 .onRetry(e -> LOGGER.warn("Retry attempt: #" + e.getNumberOfRetryAttempts(), e.getLastThrowable()));
 
-        ReleasesCleaner releasesCleaner = new ReleasesCleaner(artifactory, retry,
-                "releases-local:com/example/app1");
-        releasesCleaner.execute();
+        try (DeleteExecutor executor = new DeleteExecutor(1)) {
+            ReleasesCleaner releasesCleaner = new ReleasesCleaner(client, manualRetry,
+                    new ArtifactoryDeleter(client, manualRetry, executor), 1000, "releases-local:com/example/app1");
+            releasesCleaner.execute();
+        }
 
     }
 }
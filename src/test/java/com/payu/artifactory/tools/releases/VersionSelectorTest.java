@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.releases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class VersionSelectorTest {
+
+    private static final String ROOT = "com/example/app1";
+
+    private static final Date CREATED = new Date(957_000_000_000L);
+
+    @Test
+    void oldestVersionsShouldBeSelectedExceptTheNewest() {
+
+        // given
+        List<AQLItemRootVersion> found = versions("1.10", "1.2", "1.0", "1.9");
+
+        // when
+        List<AQLItemRootVersion> versions = VersionSelector.findVersionsToDelete(found::forEach, 2, new Date());
+
+        // then
+        assertEquals(Arrays.asList("1.0", "1.2"), names(versions));
+    }
+
+    @Test
+    void sameVersionFoundTwiceShouldBeCountedOnce() {
+
+        // given
+        List<AQLItemRootVersion> found = versions("1.0", "1.1", "1.0", "1.2");
+
+        // when
+        List<AQLItemRootVersion> versions = VersionSelector.findVersionsToDelete(found::forEach, 2, new Date());
+
+        // then
+        assertEquals(Collections.singletonList("1.0"), names(versions));
+    }
+
+    private static List<AQLItemRootVersion> versions(String... versions) {
+        return Stream.of(versions).map(v -> {
+            AQLItemRootVersion version = new AQLItemRootVersion();
+            version.setPath(ROOT + "/" + v);
+            version.setCreated(CREATED);
+            return version;
+        }).collect(Collectors.toList());
+    }
+
+    private static List<String> names(List<AQLItemRootVersion> versions) {
+        return versions.stream().map(AQLItemRootVersion::getVersion).collect(Collectors.toList());
+    }
+}
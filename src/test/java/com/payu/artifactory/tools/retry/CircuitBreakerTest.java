@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.retry;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.client.HttpResponseException;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    @Test
+    void onlyUnhealthyFailuresShouldOpenCircuit() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(10));
+
+        // when
+        breaker.onError(new HttpResponseException(404, "Not Found"));
+        breaker.onError(new HttpResponseException(503, "Service Unavailable"));
+        breaker.onError(new HttpResponseException(404, "Not Found"));
+        breaker.onError(new IOException("connection reset"));
+        boolean openAfterInterleaved = breaker.isOpen();
+        breaker.onError(new HttpResponseException(429, "Too Many Requests"));
+
+        // then
+        assertFalse(openAfterInterleaved);
+        assertTrue(breaker.isOpen());
+        assertFalse(CircuitBreaker.isUnhealthy(new IllegalStateException("bug")));
+    }
+
+    @Test
+    void onlyOneProbeShouldPassHalfOpenCircuit() throws Exception {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMillis(100));
+        long start = System.nanoTime();
+        breaker.onError(new IOException("connection refused"));
+
+        // when
+        breaker.acquire();
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+            try {
+                breaker.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        boolean otherPassedDuringProbe = passes(other);
+        breaker.onSuccess();
+
+        // then
+        assertTrue(waited >= 100, "waited " + waited);
+        assertFalse(otherPassedDuringProbe);
+        other.get(1, TimeUnit.SECONDS);
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void failedProbeShouldOpenCircuitAgain() throws InterruptedException {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMillis(50));
+        breaker.onError(new IOException("connection refused"));
+
+        // when
+        breaker.acquire();
+        long start = System.nanoTime();
+        breaker.onError(new HttpResponseException(502, "Bad Gateway"));
+        breaker.acquire();
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // then
+        assertTrue(waited >= 100, "doubled open period, waited " + waited);
+        assertTrue(breaker.isOpen());
+    }
+
+    private static boolean passes(CompletableFuture<Void> future) throws InterruptedException, ExecutionException {
+        try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+}
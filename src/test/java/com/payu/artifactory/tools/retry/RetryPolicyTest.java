@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.retry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.resilience4j.retry.Retry;
+import io.vavr.control.Try;
+
+class RetryPolicyTest {
+
+    @Test
+    void waitsShouldBeRandomUpToExponentialCap() {
+
+        // given
+        RetryPolicy policy = new RetryPolicy(12, Duration.ofMillis(100), Duration.ofSeconds(1), 10, breaker(10, 1));
+
+        // then
+        for (int i = 0; i < 1000; i++) {
+            long first = policy.fullJitter(1);
+            long third = policy.fullJitter(3);
+            long late = policy.fullJitter(Integer.MAX_VALUE);
+
+            assertTrue(first >= 1 && first <= 100, "first " + first);
+            assertTrue(third >= 1 && third <= 400, "third " + third);
+            assertTrue(late >= 1 && late <= 1000, "late " + late);
+        }
+    }
+
+    @Test
+    void retriesShouldStopWhenBudgetIsSpent() {
+
+        // given
+        RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(1), Duration.ofMillis(1), 2, breaker(10, 1));
+        Retry retry = policy.newRetry("test");
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        assertThrows(IllegalStateException.class, () -> failing(retry, calls));
+        int firstCalls = calls.getAndSet(0);
+        assertThrows(IllegalStateException.class, () -> failing(retry, calls));
+
+        // then
+        assertEquals(3, firstCalls);
+        assertEquals(1, calls.get());
+        assertEquals(0, policy.getBudgetLeft());
+    }
+
+    @Test
+    void requestsShouldWaitWhileCircuitIsOpen() {
+
+        // given
+        CircuitBreaker breaker = breaker(1, 200);
+        RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(1), 10, breaker);
+        Retry retry = policy.newRetry("test");
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        long start = System.nanoTime();
+        String result = Try.of(Retry.decorateCheckedSupplier(retry, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IOException("connection refused");
+            }
+            return "ok";
+        })).get();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // then
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertTrue(elapsed >= 200, "elapsed " + elapsed);
+        assertTrue(!breaker.isOpen());
+    }
+
+    private static void failing(Retry retry, AtomicInteger calls) {
+        Try.of(Retry.decorateCheckedSupplier(retry, () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("failed");
+        })).get();
+    }
+
+    private static CircuitBreaker breaker(int failures, long openMillis) {
+        return new CircuitBreaker(failures, Duration.ofMillis(openMillis));
+    }
+}
@@ -31,12 +31,17 @@ import org.jfrog.artifactory.client.Artifactory;
 import org.jfrog.artifactory.client.ArtifactoryRequest;
 import org.jfrog.artifactory.client.ArtifactoryResponse;
 import org.jfrog.artifactory.client.RepositoryHandle;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.payu.artifactory.tools.delete.ArtifactoryDeleter;
+import com.payu.artifactory.tools.delete.DeleteExecutor;
+import com.payu.artifactory.tools.delete.Deleter;
+
 import io.github.resilience4j.retry.Retry;
 
 @ExtendWith(MockitoExtension.class)
@@ -53,6 +58,17 @@ class SnapshotCleanerTest {
 
     private Retry retry = Retry.ofDefaults("test");
 
+    private DeleteExecutor deleteExecutor = new DeleteExecutor(2);
+
+    @AfterEach
+    public void closeExecutor() {
+        deleteExecutor.close();
+    }
+
+    private Deleter deleter() {
+        return new ArtifactoryDeleter(artifactory, retry, deleteExecutor);
+    }
+
     @Test
     public void shouldDeleteSnapshotForExistingRelease() throws IOException {
 
@@ -66,7 +82,7 @@ class SnapshotCleanerTest {
         when(artifactory.repository(SNAPSHOT_REPO)).thenReturn(repository);
 
         //when
-        new SnapshotCleaner(artifactory, retry, SNAPSHOT_REPO, RELEASE_REPO).execute();
+        new SnapshotCleaner(artifactory, retry, deleter(), 100, SNAPSHOT_REPO, RELEASE_REPO).execute();
 
         // then
         verify(repository).delete("/a/b/c/8-SNAPSHOT");
@@ -82,14 +98,14 @@ class SnapshotCleanerTest {
 
         //when
         Assertions.assertThrows(IOException.class,
-                () -> new SnapshotCleaner(artifactory, retry, SNAPSHOT_REPO, RELEASE_REPO).execute());
+                () -> new SnapshotCleaner(artifactory, retry, deleter(), 100, SNAPSHOT_REPO, RELEASE_REPO).execute());
 
         verify(artifactory, times(3)).restCall(any(ArtifactoryRequest.class));
         verifyNoMoreInteractions(artifactory);
         verifyNoMoreInteractions(repository);
     }
 
-    private ArtifactoryResponse aResponse(String apiUrl) throws IOException {
+    private ArtifactoryResponse aResponse(String apiUrl) {
         switch (apiUrl) {
             case "api/search/aql":
                 return aqlItemsResponse(this::aqlItemsSupplier);
@@ -99,26 +115,25 @@ class SnapshotCleanerTest {
     }
 
 
-    private ArtifactoryResponse aqlItemsResponse(Supplier<AQLItems> action) throws IOException {
+    private ArtifactoryResponse aqlItemsResponse(Supplier<String> action) {
         ArtifactoryResponse response = mock(ArtifactoryResponse.class);
-        when(response.parseBody(AQLItems.class)).thenReturn(action.get());
+        when(response.isSuccessResponse()).thenReturn(true);
+        when(response.getRawBody()).thenReturn(action.get());
         return response;
     }
 
-    private AQLItems aqlItemsSupplier() {
-        AQLItems items = new AQLItems();
-        items.getResults().add(getItem("/test/1.0-SNAPSHOT"));
-        items.getResults().add(getItem("/test/1.1-SNAPSHOT"));
-        items.getResults().add(getItem("/test/1.2"));
-        items.getResults().add(getItem("/test/1.3-SNAPSHOT"));
-        items.getResults().add(getItem("/a/b/c/8-SNAPSHOT"));
-        items.getResults().add(getItem("/a/b/c/10"));
-        return items;
+    private String aqlItemsSupplier() {
+        return "{\"results\":["
+                + getItem("/test/1.0-SNAPSHOT") + ","
+                + getItem("/test/1.1-SNAPSHOT") + ","
+                + getItem("/test/1.2") + ","
+                + getItem("/test/1.3-SNAPSHOT") + ","
+                + getItem("/a/b/c/8-SNAPSHOT") + ","
+                + getItem("/a/b/c/10")
+                + "]}";
     }
 
-    private AQLItem getItem(String path) {
-        AQLItem item = new AQLItem();
-        item.setPath(path);
-        return item;
+    private String getItem(String path) {
+        return "{\"repo\":\"" + SNAPSHOT_REPO + "\",\"path\":\"" + path + "\",\"name\":\"test.pom\"}";
     }
 }
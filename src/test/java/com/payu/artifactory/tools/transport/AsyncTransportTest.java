@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.payu.artifactory.tools.transport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.http.client.HttpResponseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncTransportTest {
+
+    private static final String AQL_RESPONSE = "{\"results\":[{\"path\":\"com/example\"}]}";
+
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    private HttpAsyncServer server;
+    private AsyncTransport transport;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = H2ServerBootstrap.bootstrap()
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .register("*", new Handler())
+                .create();
+        server.start();
+        InetSocketAddress address = (InetSocketAddress) server
+                .listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), URIScheme.HTTP)
+                .get().getAddress();
+
+        transport = new AsyncTransport("http://localhost:" + address.getPort() + "/artifactory", "user", "secret", 100);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transport.close();
+        server.close(CloseMode.IMMEDIATE);
+    }
+
+    @Test
+    public void aqlShouldPostQuery() throws IOException {
+
+        // when
+        String body;
+        try (InputStream response = ArtifactoryTransport.await(transport.aql("items.find()"))) {
+            body = new BufferedReader(new InputStreamReader(response, StandardCharsets.UTF_8)).lines()
+                    .collect(Collectors.joining("\n"));
+        }
+
+        // then
+        assertEquals(AQL_RESPONSE, body);
+        assertEquals(Collections.singletonList("POST /artifactory/api/search/aql Basic dXNlcjpzZWNyZXQ= items.find()"),
+                requests);
+    }
+
+    @Test
+    public void deletesShouldBeMultiplexedWithEscapedPath() throws IOException {
+
+        // when
+        List<CompletableFuture<Void>> deletes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            deletes.add(transport.delete("repo-local", "com/example app/" + i));
+        }
+        for (CompletableFuture<Void> delete : deletes) {
+            ArtifactoryTransport.await(delete);
+        }
+
+        // then
+        assertEquals(50, requests.size());
+        assertEquals(1, requests.stream()
+                .filter("DELETE /artifactory/repo-local/com/example%20app/7 Basic dXNlcjpzZWNyZXQ= "::equals).count());
+    }
+
+    @Test
+    public void failedDeleteShouldReportStatus() {
+
+        // when
+        HttpResponseException e = assertThrows(HttpResponseException.class,
+                () -> ArtifactoryTransport.await(transport.delete("repo-local", "missing/1.0")));
+
+        // then
+        assertEquals(404, e.getStatusCode());
+    }
+
+    /**
+     * Artifactory stub, records each request and answers AQL queries and deletes.
+     */
+    private final class Handler implements AsyncServerRequestHandler<Message<HttpRequest, String>> {
+
+        @Override
+        public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(
+                HttpRequest request, EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(entityDetails == null ? null : new StringAsyncEntityConsumer());
+        }
+
+        @Override
+        public void handle(Message<HttpRequest, String> message, ResponseTrigger trigger, HttpContext context)
+                throws HttpException, IOException {
+            HttpRequest request = message.getHead();
+            String body = message.getBody() == null ? "" : message.getBody();
+            requests.add(request.getMethod() + " " + request.getPath() + " "
+                    + request.getFirstHeader(HttpHeaders.AUTHORIZATION).getValue() + " " + body);
+
+            AsyncResponseBuilder response;
+            if ("POST".equals(request.getMethod())) {
+                response = AsyncResponseBuilder.create(200).setEntity(AQL_RESPONSE, ContentType.APPLICATION_JSON);
+            } else if (request.getPath().contains("missing")) {
+                response = AsyncResponseBuilder.create(404).setEntity("not found", ContentType.TEXT_PLAIN);
+            } else {
+                response = AsyncResponseBuilder.create(204);
+            }
+            trigger.submitResponse(response.build(), context);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 PayU
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.payu.artifactory.tools.version;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.junit.jupiter.api.Test;
+
+class VersionKeyTest {
+
+    private static final List<String> VERSIONS = Arrays.asList(
+            "1", "1.0", "1.0.0", "1-0", "1.0-0", "1.1", "1-1", "1.0.1", "1.10", "1.9", "01.1", "1.1.0.0.0",
+            "1-SNAPSHOT", "1.0-SNAPSHOT", "1.1-SNAPSHOT", "1-alpha", "1-alpha1", "1-alpha-1", "1a1", "1b2", "1m3",
+            "1-beta", "1-milestone", "1-rc", "1-rc1", "1-cr1", "1-ga", "1-final", "1-sp", "1-sp1", "1-foo", "1-bar",
+            "1-foo1", "1.foo", "1foo", "1-1.foo-bar1baz-.1", "1.0.RELEASE", "2.0.0.M1", "1--1", "1..1", ".1", "-1",
+            "1-", "1.", "", "a", "A", "1.0-Alpha", "1.0-ALPHA", "1-20190101.123456-1", "1-20190101.123456-2",
+            "1.0.0.20190101123456789012", "1.0.0.20190101123456789013", "1.0.0.123456789012345678", "1.0.0.1234567890123456789",
+            "1-1-1", "1-1.1", "1.1-1", "1-a-1", "1-1a", "2", "2.0.0-rc.1", "10", "1.0.0-00", "0", "0.0", "0-0"
+    );
+
+    @Test
+    void orderShouldBeSameAsComparableVersion() {
+        for (String a : VERSIONS) {
+            for (String b : VERSIONS) {
+                assertSameOrder(a, b);
+            }
+        }
+    }
+
+    @Test
+    void orderOfRandomVersionsShouldBeSameAsComparableVersion() {
+        Random random = new Random(42);
+        List<String> versions = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            versions.add(randomVersion(random));
+        }
+
+        for (int i = 0; i + 1 < versions.size(); i++) {
+            assertSameOrder(versions.get(i), versions.get(i + 1));
+            assertSameOrder(versions.get(i), versions.get(random.nextInt(versions.size())));
+        }
+    }
+
+    @Test
+    void equalVersionsShouldBeEqualKeys() {
+        assertEquals(VersionKey.parse("1.0.0"), VersionKey.parse("1"));
+        assertEquals(VersionKey.parse("1-ga").hashCode(), VersionKey.parse("1").hashCode());
+        assertEquals("1.0.0", VersionKey.parse("1.0.0").toString());
+    }
+
+    @Test
+    void cacheShouldParseVersionOnce() {
+        VersionKeyCache cache = new VersionKeyCache();
+
+        assertSame(cache.get("1.0"), cache.get("1.0"));
+        assertEquals(1, cache.size());
+    }
+
+    private static void assertSameOrder(String a, String b) {
+        int expected = Integer.signum(new ComparableVersion(a).compareTo(new ComparableVersion(b)));
+        int actual = Integer.signum(VersionKey.parse(a).compareTo(VersionKey.parse(b)));
+        assertEquals(expected, actual, () -> "compare " + a + " with " + b);
+    }
+
+    private static String randomVersion(Random random) {
+        String[] parts = {"0", "1", "2", "10", "00", "alpha", "b", "rc", "SNAPSHOT", "sp", "ga", "x", "", "20190101"};
+        String[] separators = {".", "-", ""};
+
+        StringBuilder result = new StringBuilder();
+        int length = 1 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                result.append(separators[random.nextInt(separators.length)]);
+            }
+            result.append(parts[random.nextInt(parts.length)]);
+        }
+        return result.toString();
+    }
+}